@@ -0,0 +1,142 @@
+package com.example.benchmark;
+
+import com.example.AsyncBookingSystem;
+import com.example.BookingSystem;
+import com.example.InMemoryRoomRepository;
+import com.example.Room;
+import com.example.RoomRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+// Lasttest med ett repository som tar 1 ms per anrop. Det blockerande API:t får en liten
+// pool plattformstrådar, som parkeras under varje anrop; den asynkrona fasaden kör samma
+// BookingSystem på virtuella trådar, där en väntan bara parkerar en virtuell tråd.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AsyncBookingBenchmark {
+    private static final int CONCURRENT_REQUESTS = 500;
+    private static final int POOL_THREADS = 8;
+    private static final long IO_MILLIS = 1;
+
+    private ExecutorService pool;
+    private InMemoryRoomRepository rooms;
+    private BookingSystem blocking;
+    private AsyncBookingSystem async;
+    private int round;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        pool = Executors.newFixedThreadPool(POOL_THREADS);
+        rooms = BenchmarkFixtures.repository(CONCURRENT_REQUESTS, 0);
+        blocking = new BookingSystem(BenchmarkFixtures.TIME_PROVIDER, new SlowRoomRepository(rooms),
+                new BenchmarkFixtures.RecordingNotificationService());
+        async = new AsyncBookingSystem(new BookingSystem(BenchmarkFixtures.TIME_PROVIDER, new SlowRoomRepository(rooms),
+                new BenchmarkFixtures.RecordingNotificationService()));
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CONCURRENT_REQUESTS)
+    public int blockingBookRoom() throws Exception {
+        LocalDateTime start = nextSlot();
+        Future<?>[] results = new Future<?>[CONCURRENT_REQUESTS];
+        for (int r = 0; r < CONCURRENT_REQUESTS; r++) {
+            String roomId = "room" + r;
+            results[r] = pool.submit(() -> blocking.bookRoom(roomId, start, start.plusHours(1)));
+        }
+        for (Future<?> result : results) {
+            result.get();
+        }
+        return results.length;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CONCURRENT_REQUESTS)
+    public int asyncBookRoom() {
+        LocalDateTime start = nextSlot();
+        CompletableFuture<?>[] results = new CompletableFuture<?>[CONCURRENT_REQUESTS];
+        for (int r = 0; r < CONCURRENT_REQUESTS; r++) {
+            results[r] = async.bookRoom("room" + r, start, start.plusHours(1));
+        }
+        CompletableFuture.allOf(results).join();
+        return results.length;
+    }
+
+    private LocalDateTime nextSlot() {
+        return BenchmarkFixtures.bookingStart(round++);
+    }
+
+    private static void simulateIo() {
+        try {
+            Thread.sleep(IO_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    static final class SlowRoomRepository implements RoomRepository {
+        private final RoomRepository delegate;
+
+        SlowRoomRepository(RoomRepository delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public Optional<Room> findById(String id) {
+            simulateIo();
+            return delegate.findById(id);
+        }
+
+        @Override
+        public Room findByIdOrNull(String id) {
+            simulateIo();
+            return delegate.findByIdOrNull(id);
+        }
+
+        @Override
+        public List<Room> findAll() {
+            simulateIo();
+            return delegate.findAll();
+        }
+
+        @Override
+        public void save(Room room) {
+            simulateIo();
+            delegate.save(room);
+        }
+
+        @Override
+        public void deleteById(String id) {
+            simulateIo();
+            delegate.deleteById(id);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.benchmark;
+
+import com.example.Booking;
+import com.example.InMemoryRoomRepository;
+import com.example.NotificationService;
+import com.example.Room;
+import com.example.TimeProvider;
+import com.example.shop.CartItem;
+import com.example.shop.ShoppingCart;
+
+import java.time.LocalDateTime;
+
+// Deterministiska testdata så att resultat går att jämföra mellan körningar och maskiner
+final class BenchmarkFixtures {
+    static final LocalDateTime NOW = LocalDateTime.of(2026, 1, 1, 8, 0);
+    static final TimeProvider TIME_PROVIDER = () -> NOW;
+
+    // Bokningar ligger varannan timme, en timme långa, med start en timme efter NOW
+    static final int SLOT_HOURS = 2;
+
+    private BenchmarkFixtures() {
+    }
+
+    static Room room(String roomId, int bookingsPerRoom) {
+        Room room = new Room(roomId, "Room " + roomId);
+        for (int i = 0; i < bookingsPerRoom; i++) {
+            LocalDateTime start = bookingStart(i);
+            room.addBooking(new Booking(roomId + "-" + i, roomId, start, start.plusHours(1)));
+        }
+        return room;
+    }
+
+    static InMemoryRoomRepository repository(int roomCount, int bookingsPerRoom) {
+        InMemoryRoomRepository repository = new InMemoryRoomRepository();
+        for (int r = 0; r < roomCount; r++) {
+            repository.save(room("room" + r, bookingsPerRoom));
+        }
+        return repository;
+    }
+
+    static LocalDateTime bookingStart(int index) {
+        return NOW.plusHours(1 + (long) index * SLOT_HOURS);
+    }
+
+    static ShoppingCart cart(int cartSize) {
+        ShoppingCart cart = new ShoppingCart("cart", "Benchmark cart");
+        for (int i = 0; i < cartSize; i++) {
+            cart.addItem(new CartItem("item" + i, "Item " + i, 100 + i % 50, 1 + i % 5));
+        }
+        return cart;
+    }
+
+    static final class RecordingNotificationService implements NotificationService {
+        private Booking lastBooking;
+
+        @Override
+        public void sendBookingConfirmation(Booking booking) {
+            lastBooking = booking;
+        }
+
+        @Override
+        public void sendCancellationConfirmation(Booking booking) {
+        }
+
+        Booking lastBooking() {
+            return lastBooking;
+        }
+    }
+}
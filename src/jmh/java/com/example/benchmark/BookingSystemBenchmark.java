@@ -0,0 +1,63 @@
+package com.example.benchmark;
+
+import com.example.BookingSystem;
+import com.example.Room;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BookingSystemBenchmark {
+
+    @Param({"10", "100", "1000"})
+    private int roomCount;
+
+    @Param({"10", "100", "1000"})
+    private int bookingsPerRoom;
+
+    private BookingSystem bookingSystem;
+    private BenchmarkFixtures.RecordingNotificationService notificationService;
+    private LocalDateTime queryStart;
+    private LocalDateTime cancelStart;
+
+    @Setup
+    public void setUp() {
+        notificationService = new BenchmarkFixtures.RecordingNotificationService();
+        bookingSystem = new BookingSystem(BenchmarkFixtures.TIME_PROVIDER,
+                BenchmarkFixtures.repository(roomCount, bookingsPerRoom),
+                notificationService);
+        bookingSystem.rebuildBookingIndex();
+        queryStart = BenchmarkFixtures.bookingStart(bookingsPerRoom / 2).plusMinutes(75);
+        cancelStart = BenchmarkFixtures.bookingStart(bookingsPerRoom + 1);
+    }
+
+    @Benchmark
+    public List<Room> getAvailableRooms() {
+        return bookingSystem.getAvailableRooms(queryStart, queryStart.plusMinutes(30));
+    }
+
+    // Avbokning kräver en befintlig framtida bokning, så varje anrop bokar och avbokar samma tid
+    @Benchmark
+    public boolean bookAndCancel() {
+        String roomId = "room" + (roomCount - 1);
+        bookingSystem.bookRoom(roomId, cancelStart, cancelStart.plusMinutes(30));
+        return bookingSystem.cancelBooking(notificationService.lastBooking().getId());
+    }
+}
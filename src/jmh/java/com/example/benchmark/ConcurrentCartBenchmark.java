@@ -0,0 +1,78 @@
+package com.example.benchmark;
+
+import com.example.shop.CartItem;
+import com.example.shop.ConcurrentShoppingCart;
+import com.example.shop.ShoppingCart;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Several threads updating quantities in the same cart, with an occasional total read.
+// The baseline is ShoppingCart behind a single monitor, which is what callers had to do
+// before ConcurrentShoppingCart existed.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class ConcurrentCartBenchmark {
+
+    // One total read per this many operations
+    private static final int READ_EVERY = 16;
+
+    @Param({"16", "256"})
+    private int cartSize;
+
+    private CartItem[] items;
+    private ShoppingCart synchronizedCart;
+    private ConcurrentShoppingCart concurrentCart;
+
+    @Setup
+    public void setUp() {
+        synchronizedCart = BenchmarkFixtures.cart(cartSize);
+        concurrentCart = new ConcurrentShoppingCart("cart", "Benchmark cart");
+        items = new CartItem[cartSize];
+        for (int i = 0; i < cartSize; i++) {
+            items[i] = new CartItem("item" + i, "Item " + i, 100 + i % 50, 1 + i % 5);
+            concurrentCart.addItem(items[i]);
+        }
+    }
+
+    @Benchmark
+    public long synchronizedCart() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int index = random.nextInt(cartSize);
+        synchronized (synchronizedCart) {
+            if (index % READ_EVERY == 0) {
+                return synchronizedCart.getTotalPriceMinor();
+            }
+            synchronizedCart.updateQuantity(items[index], random.nextInt(10));
+            return index;
+        }
+    }
+
+    @Benchmark
+    public long concurrentCart() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int index = random.nextInt(cartSize);
+        if (index % READ_EVERY == 0) {
+            return concurrentCart.getTotalPriceMinor();
+        }
+        concurrentCart.updateQuantity(items[index].getId(), random.nextInt(10));
+        return index;
+    }
+}
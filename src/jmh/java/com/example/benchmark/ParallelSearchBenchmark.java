@@ -0,0 +1,68 @@
+package com.example.benchmark;
+
+import com.example.BookingSystem;
+import com.example.Room;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+// Jämför sekventiell och parallell getAvailableRooms på samma data
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParallelSearchBenchmark {
+
+    @Param({"1000", "10000", "50000"})
+    private int roomCount;
+
+    @Param({"100"})
+    private int bookingsPerRoom;
+
+    @Param({"0", "4", "32"})
+    private int parallelism;
+
+    private BookingSystem bookingSystem;
+    private ForkJoinPool pool;
+    private LocalDateTime queryStart;
+
+    @Setup
+    public void setUp() {
+        bookingSystem = new BookingSystem(BenchmarkFixtures.TIME_PROVIDER,
+                BenchmarkFixtures.repository(roomCount, bookingsPerRoom),
+                new BenchmarkFixtures.RecordingNotificationService());
+        if (parallelism > 0) {
+            pool = new ForkJoinPool(parallelism);
+            bookingSystem.enableParallelSearch(pool, 256);
+        }
+        queryStart = BenchmarkFixtures.bookingStart(bookingsPerRoom / 2).plusMinutes(75);
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    @Benchmark
+    public List<Room> getAvailableRooms() {
+        return bookingSystem.getAvailableRooms(queryStart, queryStart.plusMinutes(30));
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.benchmark;
+
+import com.example.payment.InMemoryPaymentNotifier;
+import com.example.payment.InMemoryPaymentRepository;
+import com.example.payment.PaymentProcessor;
+import com.example.payment.SimulatedPaymentGateway;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+// Lasttest utan nätverk: 1 000 betalningar åt gången mot en simulerad betaltjänst som
+// svarar efter 5 ms. Debiteringarna körs på virtuella trådar och posterna sparas i batcher.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PaymentProcessorBenchmark {
+    private static final int PAYMENTS = 1_000;
+
+    private ExecutorService executor;
+    private PaymentProcessor processor;
+    private long round;
+
+    @Setup
+    public void setUp() {
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        processor = new PaymentProcessor(new SimulatedPaymentGateway(Duration.ofMillis(5), 0.05),
+                new InMemoryPaymentRepository(), new InMemoryPaymentNotifier(), executor, BenchmarkFixtures.TIME_PROVIDER);
+    }
+
+    @TearDown
+    public void tearDown() {
+        processor.close();
+        executor.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PAYMENTS)
+    public void processPayments() {
+        long batch = round++;
+        CompletableFuture<?>[] payments = new CompletableFuture<?>[PAYMENTS];
+        for (int i = 0; i < PAYMENTS; i++) {
+            payments[i] = processor.processPayment("order-" + batch + "-" + i, 100 + i, "user@example.com");
+        }
+        CompletableFuture.allOf(payments).join();
+    }
+}
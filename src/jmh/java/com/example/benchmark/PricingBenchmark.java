@@ -0,0 +1,87 @@
+package com.example.benchmark;
+
+import com.example.shop.CartItem;
+import com.example.shop.ShoppingCart;
+import com.example.shop.pricing.BuyXGetYFreeDiscount;
+import com.example.shop.pricing.CartPriceCache;
+import com.example.shop.pricing.CartThresholdDiscount;
+import com.example.shop.pricing.PercentageItemDiscount;
+import com.example.shop.pricing.PricingEngine;
+import com.example.shop.pricing.PricingRule;
+import com.example.shop.pricing.TieredQuantityDiscount;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Repricing after a single quantity change, from scratch and through CartPriceCache.
+// Every item has a rule, which is the worst case for the cache.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PricingBenchmark {
+
+    @Param({"100", "1000"})
+    private int cartSize;
+
+    private ShoppingCart cart;
+    private CartItem changed;
+    private PricingEngine engine;
+    private CartPriceCache cache;
+    private int quantity;
+
+    @Setup
+    public void setUp() {
+        cart = BenchmarkFixtures.cart(cartSize);
+        changed = cart.getItems().get(cartSize / 2);
+        List<PricingRule> rules = new ArrayList<>();
+        for (int i = 0; i < cartSize; i++) {
+            switch (i % 3) {
+                case 0 -> rules.add(new PercentageItemDiscount("item" + i, 10));
+                case 1 -> rules.add(new BuyXGetYFreeDiscount("item" + i, 2, 1));
+                default -> rules.add(new TieredQuantityDiscount("item" + i, Map.of(2, 5, 4, 10)));
+            }
+        }
+        rules.add(new CartThresholdDiscount(10_000, 500));
+        engine = new PricingEngine(rules);
+        cache = engine.cacheFor(cart);
+    }
+
+    @TearDown
+    public void tearDown() {
+        cache.close();
+    }
+
+    @Benchmark
+    public long priceFromScratch() {
+        cart.updateQuantity(changed, 1 + (quantity++ & 7));
+        return engine.price(cart).getTotalMinor();
+    }
+
+    @Benchmark
+    public long priceCached() {
+        cart.updateQuantity(changed, 1 + (quantity++ & 7));
+        return cache.getPrice().getTotalMinor();
+    }
+
+    @Benchmark
+    public long priceCachedUnchanged() {
+        return cache.getPrice().getTotalMinor();
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.benchmark;
+
+import com.example.shop.CartItem;
+import com.example.shop.CartRepricer;
+import com.example.shop.CartStore;
+import com.example.shop.ShoppingCart;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+// A catalog change of 10 items against 100 000 open carts of 20 items each, drawn from a
+// catalog of 1 000 items. The baseline walks every cart and updates the changed lines.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RepricingBenchmark {
+    private static final int CARTS = 100_000;
+    private static final int ITEMS_PER_CART = 20;
+    private static final int CATALOG = 1_000;
+    private static final int CHANGED = 10;
+
+    private final List<ShoppingCart> carts = new ArrayList<>();
+    private final List<Map<String, Integer>> priceChanges = new ArrayList<>();
+    private ExecutorService executor;
+    private CartStore store;
+    private CartRepricer repricer;
+    private int round;
+
+    @Setup
+    public void setUp() {
+        executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        store = new CartStore(BenchmarkFixtures.TIME_PROVIDER, Duration.ofHours(1));
+        repricer = new CartRepricer(store, executor);
+        Random random = new Random(42);
+        for (int c = 0; c < CARTS; c++) {
+            ShoppingCart cart = store.getOrCreate("cart" + c, "Cart " + c);
+            for (int i = 0; i < ITEMS_PER_CART; i++) {
+                int item = random.nextInt(CATALOG);
+                cart.addItem(new CartItem("item" + item, "Item " + item, 100 + item % 50, 1));
+            }
+            carts.add(cart);
+        }
+        // Two alternating price lists so every round changes prices
+        for (int p = 0; p < 2; p++) {
+            Map<String, Integer> prices = new HashMap<>();
+            for (int i = 0; i < CHANGED; i++) {
+                prices.put("item" + i * (CATALOG / CHANGED), 100 + p * 10 + i);
+            }
+            priceChanges.add(prices);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.shutdownNow();
+        store.close();
+    }
+
+    @Benchmark
+    public int reprice() {
+        return repricer.reprice(priceChanges.get(round++ & 1)).getCartsRepriced();
+    }
+
+    // Applies the same change by walking every cart, through ShoppingCart.updatePrice so the
+    // running total stays right, without the index or the store
+    @Benchmark
+    public long recomputeAll() {
+        Map<String, Integer> prices = priceChanges.get(round++ & 1);
+        long sum = 0;
+        for (ShoppingCart cart : carts) {
+            for (CartItem item : cart.getItems()) {
+                Integer price = prices.get(item.getId());
+                if (price != null && item.getPrice() != price) {
+                    cart.updatePrice(item.getId(), price);
+                }
+            }
+            sum += cart.getTotalPriceMinor();
+        }
+        return sum;
+    }
+}
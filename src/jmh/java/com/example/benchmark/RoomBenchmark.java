@@ -0,0 +1,51 @@
+package com.example.benchmark;
+
+import com.example.Room;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RoomBenchmark {
+
+    @Param({"10", "1000", "10000"})
+    private int bookingsPerRoom;
+
+    private Room room;
+    private LocalDateTime freeStart;
+    private LocalDateTime busyStart;
+
+    @Setup
+    public void setUp() {
+        room = BenchmarkFixtures.room("room0", bookingsPerRoom);
+        LocalDateTime middle = BenchmarkFixtures.bookingStart(bookingsPerRoom / 2);
+        busyStart = middle.plusMinutes(15);
+        freeStart = middle.plusMinutes(75);
+    }
+
+    @Benchmark
+    public boolean isAvailableFreeSlot() {
+        return room.isAvailable(freeStart, freeStart.plusMinutes(30));
+    }
+
+    @Benchmark
+    public boolean isAvailableBusySlot() {
+        return room.isAvailable(busyStart, busyStart.plusMinutes(30));
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.benchmark;
+
+import com.example.shop.ShoppingCart;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ShoppingCartBenchmark {
+
+    @Param({"10", "100", "1000"})
+    private int cartSize;
+
+    private ShoppingCart cart;
+
+    @Setup
+    public void setUp() {
+        cart = BenchmarkFixtures.cart(cartSize);
+    }
+
+    @Benchmark
+    public Double getTotalPrice() {
+        return cart.getTotalPrice();
+    }
+
+    @Benchmark
+    public long getTotalPriceMinor() {
+        return cart.getTotalPriceMinor();
+    }
+
+    @Benchmark
+    public Double getDiscountedPrice() {
+        return cart.getDiscountedPrice(0.9);
+    }
+}
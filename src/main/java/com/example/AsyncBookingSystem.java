@@ -0,0 +1,40 @@
+package com.example;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+// Fasad med futures över ett BookingSystem. Varje anrop körs på en egen virtuell tråd, så
+// anroparen väntar aldrig och en väntan på repositoryt eller notifieringar parkerar bara den
+// virtuella tråden. Repositoryt och notifieringarna anropas alltså fortfarande blockerande,
+// men det kostar ingen plattformstråd. Eftersom all logik körs i det inslagna systemet delar
+// fasaden dess rumslås och bokningsindex med direkta anrop till det, och en bokning via
+// fasaden kan aldrig krocka med en bokning via BookingSystem.
+// Fel levereras i den returnerade futuren.
+public class AsyncBookingSystem {
+    private static final Executor VIRTUAL_THREAD_PER_CALL = task -> Thread.ofVirtual().name("async-booking").start(task);
+
+    private final BookingSystem bookingSystem;
+
+    public AsyncBookingSystem(BookingSystem bookingSystem) {
+        if (bookingSystem == null) {
+            throw new IllegalArgumentException("Bokningssystem måste anges");
+        }
+        this.bookingSystem = bookingSystem;
+    }
+
+    public CompletableFuture<Boolean> bookRoom(String roomId, LocalDateTime startTime, LocalDateTime endTime) {
+        return CompletableFuture.supplyAsync(() -> bookingSystem.bookRoom(roomId, startTime, endTime),
+                VIRTUAL_THREAD_PER_CALL);
+    }
+
+    public CompletableFuture<List<Room>> getAvailableRooms(LocalDateTime startTime, LocalDateTime endTime) {
+        return CompletableFuture.supplyAsync(() -> bookingSystem.getAvailableRooms(startTime, endTime),
+                VIRTUAL_THREAD_PER_CALL);
+    }
+
+    public CompletableFuture<Boolean> cancelBooking(String bookingId) {
+        return CompletableFuture.supplyAsync(() -> bookingSystem.cancelBooking(bookingId), VIRTUAL_THREAD_PER_CALL);
+    }
+}
@@ -0,0 +1,21 @@
+package com.example;
+
+// Rummets nya tillstånd inom prenumerationens fönster. Tillståndet är absolut, så samma
+// ändring kan tillämpas flera gånger utan att resultatet påverkas.
+public class AvailabilityChange {
+    private final String roomId;
+    private final boolean available;
+
+    AvailabilityChange(String roomId, boolean available) {
+        this.roomId = roomId;
+        this.available = available;
+    }
+
+    public String getRoomId() {
+        return roomId;
+    }
+
+    public boolean isAvailable() {
+        return available;
+    }
+}
@@ -0,0 +1,371 @@
+package com.example;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+// Grov upptagen/ledig-karta: för varje tidslucka i ett fönster en bitmängd med en bit per rum.
+// En bit är satt om någon av rummets bokningar berör luckan (med samma inkluderande gränser
+// som Booking.overlaps). En fråga ORar luckornas bitmängder ord för ord; ett rum utan satt bit
+// är garanterat ledigt, ett rum med satt bit i en lucka som helt täcks av frågan garanterat
+// upptaget. Övriga fall, och frågor utanför fönstret, avgörs av Room.isAvailable.
+//
+// Fönstret är en ring av luckor som rullas fram med advanceTo: luckor som passerats återanvänds
+// för nya luckor i slutet, och bara de nya luckorna fylls i från rummens bokningar.
+public class AvailabilityIndex {
+    public enum Availability {
+        FREE,
+        BUSY,
+        UNKNOWN
+    }
+
+    // Svaret för alla rum på en fråga, uträknat en gång
+    public static final class Classification {
+        private final Map<String, Integer> ordinals;
+        private final long[] free;
+        private final long[] busy;
+
+        private Classification(Map<String, Integer> ordinals, long[] free, long[] busy) {
+            this.ordinals = ordinals;
+            this.free = free;
+            this.busy = busy;
+        }
+
+        // Ett rum som lagts till eller indexerats om efter frågan har ett nummer som inte
+        // fanns med i frågan och blir UNKNOWN
+        public Availability of(String roomId) {
+            Integer ordinal = ordinals.get(roomId);
+            if (ordinal == null || (ordinal >>> 6) >= free.length) {
+                return Availability.UNKNOWN;
+            }
+            long bit = 1L << ordinal;
+            if ((free[ordinal >>> 6] & bit) != 0) {
+                return Availability.FREE;
+            }
+            return (busy[ordinal >>> 6] & bit) != 0 ? Availability.BUSY : Availability.UNKNOWN;
+        }
+    }
+
+    // Gränsen där sekunder sedan origin inte längre går att räkna om till nanosekunder
+    private static final long MAX_SECONDS = Long.MAX_VALUE / 1_000_000_000L - 1;
+
+    private final LocalDateTime origin;
+    private final long originSecond;
+    private final int originNano;
+    private final long slotNanos;
+    private final int slotCount;
+
+    // Bokningsändringar för olika rum sätter bitar i samma ord och gör det atomärt under
+    // läslåset. Tillväxt, rullning och omindexering av ett helt rum tar skrivlåset.
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // Rumsnummer delas ut i stigande ordning och återanvänds inte förrän vid rebuild, så
+    // ett nummer pekar alltid ut samma indexering av samma rum
+    private final Map<String, Integer> ordinals = new ConcurrentHashMap<>();
+    private int nextOrdinal;
+    private long[] indexed = new long[1];
+    private AtomicLongArray[] busyRoomsBySlot;
+    private volatile long firstSlot;
+
+    public AvailabilityIndex(LocalDateTime origin, Duration slotLength, int slotCount) {
+        if (origin == null || slotLength == null || slotLength.isZero() || slotLength.isNegative() || slotCount <= 0) {
+            throw new IllegalArgumentException("Ogiltig tidshorisont för tillgänglighetsindex");
+        }
+        this.origin = origin;
+        this.originSecond = origin.toEpochSecond(ZoneOffset.UTC);
+        this.originNano = origin.getNano();
+        this.slotNanos = slotLength.toNanos();
+        this.slotCount = slotCount;
+        this.busyRoomsBySlot = newSlots(1);
+    }
+
+    public void rebuild(Stream<Room> rooms) {
+        lock.writeLock().lock();
+        try {
+            ordinals.clear();
+            nextOrdinal = 0;
+            indexed = new long[1];
+            busyRoomsBySlot = newSlots(1);
+            rooms.forEach(this::indexRoomLocked);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void indexRoom(Room room) {
+        lock.writeLock().lock();
+        try {
+            indexRoomLocked(room);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Anropas med rummets lås hållet, så det finns bara en skrivare per rum
+    public void bookingAdded(Room room, Booking booking) {
+        lock.readLock().lock();
+        try {
+            Integer ordinal = ordinals.get(room.getId());
+            if (ordinal != null) {
+                long window = firstSlot;
+                markBooking(ordinal, booking, window, window + slotCount - 1);
+                return;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        indexRoom(room);
+    }
+
+    // Räknar om de berörda luckorna från rummets kvarvarande bokningar och släcker bara
+    // luckor som inte längre berörs, så att läsare aldrig ser en lucka som tillfälligt ser ledig ut
+    public void bookingRemoved(Room room, Booking booking) {
+        lock.readLock().lock();
+        try {
+            Integer ordinal = ordinals.get(room.getId());
+            if (ordinal != null) {
+                long window = firstSlot;
+                long first = Math.max(slotOf(booking.getStartTime()), window);
+                long last = Math.min(slotOf(booking.getEndTime()), window + slotCount - 1);
+                if (first > last) {
+                    return;
+                }
+                boolean[] stillBusy = new boolean[(int) (last - first + 1)];
+                for (Booking remaining : room.getBookings(slotStart(first), slotStart(last + 1).minusNanos(1))) {
+                    long from = Math.max(slotOf(remaining.getStartTime()), first);
+                    long to = Math.min(slotOf(remaining.getEndTime()), last);
+                    for (long slot = from; slot <= to; slot++) {
+                        stillBusy[(int) (slot - first)] = true;
+                    }
+                }
+                int word = ordinal >>> 6;
+                long bit = 1L << ordinal;
+                for (long slot = first; slot <= last; slot++) {
+                    if (!stillBusy[(int) (slot - first)]) {
+                        busyRoomsBySlot[ring(slot)].accumulateAndGet(word, ~bit, (bits, mask) -> bits & mask);
+                    }
+                }
+                return;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        indexRoom(room);
+    }
+
+    public void removeRoom(String roomId) {
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = ordinals.remove(roomId);
+            if (ordinal != null) {
+                clearRoom(ordinal);
+                indexed[ordinal >>> 6] &= ~(1L << ordinal);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean isBehind(LocalDateTime now) {
+        return slotOf(now) > firstSlot;
+    }
+
+    // Flyttar fönstret så att det börjar i luckan som innehåller now. Luckorna som blir nya
+    // i slutet av fönstret fylls i från rummen; rum som inte är indexerade hoppas över.
+    public void advanceTo(LocalDateTime now, Stream<Room> rooms) {
+        lock.writeLock().lock();
+        try {
+            long target = slotOf(now);
+            if (target <= firstSlot) {
+                return;
+            }
+            long newEnd = target + slotCount;
+            long firstNew = Math.max(firstSlot + slotCount, target);
+            for (long slot = firstNew; slot < newEnd; slot++) {
+                AtomicLongArray busyRooms = busyRoomsBySlot[ring(slot)];
+                for (int word = 0; word < busyRooms.length(); word++) {
+                    busyRooms.set(word, 0L);
+                }
+            }
+            firstSlot = target;
+
+            LocalDateTime from = slotStart(firstNew);
+            LocalDateTime to = slotStart(newEnd).minusNanos(1);
+            rooms.forEach(room -> {
+                Integer ordinal = ordinals.get(room.getId());
+                if (ordinal != null) {
+                    for (Booking booking : room.getBookings(from, to)) {
+                        markBooking(ordinal, booking, firstNew, newEnd - 1);
+                    }
+                }
+            });
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean covers(LocalDateTime startTime, LocalDateTime endTime) {
+        long window = firstSlot;
+        return slotOf(startTime) >= window && slotOf(endTime) < window + slotCount;
+    }
+
+    public Availability availability(String roomId, LocalDateTime startTime, LocalDateTime endTime) {
+        lock.readLock().lock();
+        try {
+            Integer ordinal = ordinals.get(roomId);
+            if (ordinal == null || !covers(startTime, endTime)) {
+                return Availability.UNKNOWN;
+            }
+            long first = slotOf(startTime);
+            long last = slotOf(endTime);
+            long fullFirst = fullFirst(first, startTime);
+            int word = ordinal >>> 6;
+            long bit = 1L << ordinal;
+
+            boolean anyBusy = false;
+            for (long slot = first; slot <= last; slot++) {
+                if ((busyRoomsBySlot[ring(slot)].get(word) & bit) == 0) {
+                    continue;
+                }
+                anyBusy = true;
+                if (slot >= fullFirst && slot < last) {
+                    return Availability.BUSY;
+                }
+            }
+            return anyBusy ? Availability.UNKNOWN : Availability.FREE;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ORar luckornas rumsbitar ord för ord. Returnerar null om frågan ligger utanför fönstret.
+    public Classification classify(LocalDateTime startTime, LocalDateTime endTime) {
+        lock.readLock().lock();
+        try {
+            if (!covers(startTime, endTime)) {
+                return null;
+            }
+            long first = slotOf(startTime);
+            long last = slotOf(endTime);
+            long fullFirst = fullFirst(first, startTime);
+            int words = indexed.length;
+            long[] anyBusy = new long[words];
+            long[] fullyBusy = new long[words];
+            for (long slot = first; slot <= last; slot++) {
+                AtomicLongArray busyRooms = busyRoomsBySlot[ring(slot)];
+                boolean covered = slot >= fullFirst && slot < last;
+                for (int word = 0; word < words; word++) {
+                    long bits = busyRooms.get(word);
+                    anyBusy[word] |= bits;
+                    if (covered) {
+                        fullyBusy[word] |= bits;
+                    }
+                }
+            }
+            long[] free = new long[words];
+            long[] busy = new long[words];
+            for (int word = 0; word < words; word++) {
+                free[word] = indexed[word] & ~anyBusy[word];
+                busy[word] = indexed[word] & fullyBusy[word];
+            }
+            return new Classification(ordinals, free, busy);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void indexRoomLocked(Room room) {
+        Integer ordinal = ordinals.get(room.getId());
+        if (ordinal == null) {
+            ordinal = nextOrdinal++;
+            ensureCapacity(ordinal);
+            ordinals.put(room.getId(), ordinal);
+        } else {
+            clearRoom(ordinal);
+        }
+        long window = firstSlot;
+        LocalDateTime from = slotStart(window);
+        LocalDateTime to = slotStart(window + slotCount).minusNanos(1);
+        for (Booking booking : room.getBookings(from, to)) {
+            markBooking(ordinal, booking, window, window + slotCount - 1);
+        }
+        indexed[ordinal >>> 6] |= 1L << ordinal;
+    }
+
+    private void markBooking(int ordinal, Booking booking, long minSlot, long maxSlot) {
+        long first = Math.max(slotOf(booking.getStartTime()), minSlot);
+        long last = Math.min(slotOf(booking.getEndTime()), maxSlot);
+        int word = ordinal >>> 6;
+        long bit = 1L << ordinal;
+        for (long slot = first; slot <= last; slot++) {
+            busyRoomsBySlot[ring(slot)].accumulateAndGet(word, bit, (bits, mask) -> bits | mask);
+        }
+    }
+
+    private void clearRoom(int ordinal) {
+        int word = ordinal >>> 6;
+        long bit = 1L << ordinal;
+        for (AtomicLongArray busyRooms : busyRoomsBySlot) {
+            busyRooms.set(word, busyRooms.get(word) & ~bit);
+        }
+    }
+
+    private void ensureCapacity(int ordinal) {
+        int words = (ordinal >>> 6) + 1;
+        if (words <= indexed.length) {
+            return;
+        }
+        int capacity = Math.max(words, indexed.length * 2);
+        long[] grownIndexed = new long[capacity];
+        System.arraycopy(indexed, 0, grownIndexed, 0, indexed.length);
+        indexed = grownIndexed;
+        AtomicLongArray[] grown = newSlots(capacity);
+        for (int slot = 0; slot < slotCount; slot++) {
+            for (int word = 0; word < busyRoomsBySlot[slot].length(); word++) {
+                grown[slot].set(word, busyRoomsBySlot[slot].get(word));
+            }
+        }
+        busyRoomsBySlot = grown;
+    }
+
+    private AtomicLongArray[] newSlots(int words) {
+        AtomicLongArray[] slots = new AtomicLongArray[slotCount];
+        for (int slot = 0; slot < slotCount; slot++) {
+            slots[slot] = new AtomicLongArray(words);
+        }
+        return slots;
+    }
+
+    // Luckor som ligger helt inom frågan: första luckan bara om frågan börjar exakt på
+    // dess start, sista luckan aldrig eftersom frågan slutar inuti den
+    private long fullFirst(long first, LocalDateTime startTime) {
+        return slotStart(first).equals(startTime) ? first : first + 1;
+    }
+
+    private int ring(long slot) {
+        return (int) Math.floorMod(slot, (long) slotCount);
+    }
+
+    // Tider så långt från origin att nanosekunderna inte ryms i en long hamnar före
+    // respektive efter varje fönster i stället för att räknas fel
+    private long slotOf(LocalDateTime time) {
+        long seconds = time.toEpochSecond(ZoneOffset.UTC) - originSecond;
+        if (seconds > MAX_SECONDS) {
+            return Long.MAX_VALUE / 2;
+        }
+        if (seconds < -MAX_SECONDS) {
+            return Long.MIN_VALUE / 2;
+        }
+        long nanos = seconds * 1_000_000_000L + (time.getNano() - originNano);
+        return Math.floorDiv(nanos, slotNanos);
+    }
+
+    private LocalDateTime slotStart(long slot) {
+        return origin.plusNanos(slot * slotNanos);
+    }
+}
@@ -0,0 +1,103 @@
+package com.example;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+// Prenumeration på ändrad tillgänglighet inom ett tidsfönster. Bufferten har en post per
+// rum med rummets senaste tillstånd: en ny ändring för samma rum skriver över den gamla.
+// Posten tas aldrig bort utan att levereras, eftersom klienten kan ha läst rummet med
+// getAvailableRooms efter att ändringen köades. Fler rum än kapaciteten ger i stället en
+// begäran om omläsning.
+public class AvailabilitySubscription implements AutoCloseable {
+    private final LocalDateTime startTime;
+    private final LocalDateTime endTime;
+    private final int capacity;
+    private final Consumer<AvailabilitySubscription> onClose;
+    private final Map<String, Boolean> pending = new LinkedHashMap<>();
+    private boolean resyncRequired;
+    private boolean closed;
+
+    AvailabilitySubscription(LocalDateTime startTime, LocalDateTime endTime, int capacity,
+                             Consumer<AvailabilitySubscription> onClose) {
+        this.startTime = startTime;
+        this.endTime = endTime;
+        this.capacity = capacity;
+        this.onClose = onClose;
+    }
+
+    public LocalDateTime getStartTime() {
+        return startTime;
+    }
+
+    public LocalDateTime getEndTime() {
+        return endTime;
+    }
+
+    boolean covers(Booking booking) {
+        return booking.overlaps(startTime, endTime);
+    }
+
+    // Anropas bara när rummets tillstånd i fönstret faktiskt har växlat
+    synchronized void publish(String roomId, boolean available) {
+        if (closed || resyncRequired) {
+            return;
+        }
+        if (pending.containsKey(roomId)) {
+            pending.put(roomId, available);
+        } else if (pending.size() >= capacity) {
+            pending.clear();
+            resyncRequired = true;
+        } else {
+            pending.put(roomId, available);
+        }
+        notifyAll();
+    }
+
+    public synchronized AvailabilityUpdate poll() {
+        List<AvailabilityChange> changes = new ArrayList<>(pending.size());
+        for (Iterator<Map.Entry<String, Boolean>> it = pending.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<String, Boolean> entry = it.next();
+            changes.add(new AvailabilityChange(entry.getKey(), entry.getValue()));
+            it.remove();
+        }
+        AvailabilityUpdate update = new AvailabilityUpdate(changes, resyncRequired);
+        resyncRequired = false;
+        return update;
+    }
+
+    // Väntar tills något finns att hämta, prenumerationen stängs eller tiden går ut
+    public synchronized AvailabilityUpdate take(Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (pending.isEmpty() && !resyncRequired && !closed) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                break;
+            }
+            wait(Math.max(1, remaining / 1_000_000));
+        }
+        return poll();
+    }
+
+    public synchronized boolean isClosed() {
+        return closed;
+    }
+
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            pending.clear();
+            notifyAll();
+        }
+        onClose.accept(this);
+    }
+}
@@ -0,0 +1,27 @@
+package com.example;
+
+import java.util.List;
+
+// Ändringar sedan förra hämtningen. Har prenumerantens buffert svämmat över är ändringarna
+// borttagna och klienten måste läsa om tillgängligheten med getAvailableRooms.
+public class AvailabilityUpdate {
+    private final List<AvailabilityChange> changes;
+    private final boolean resyncRequired;
+
+    AvailabilityUpdate(List<AvailabilityChange> changes, boolean resyncRequired) {
+        this.changes = changes;
+        this.resyncRequired = resyncRequired;
+    }
+
+    public List<AvailabilityChange> getChanges() {
+        return changes;
+    }
+
+    public boolean isResyncRequired() {
+        return resyncRequired;
+    }
+
+    public boolean isEmpty() {
+        return changes.isEmpty() && !resyncRequired;
+    }
+}
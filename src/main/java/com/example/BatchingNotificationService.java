@@ -0,0 +1,257 @@
+package com.example;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Lägger notifieringar i en begränsad kö och skickar dem i batcher på virtuella trådar,
+// så att bokningsanropet inte väntar på mejl- eller SMS-tjänsten. Dispatchern tar ut upp
+// till batchSize notifieringar åt gången, och varje batch blir ett anrop till
+// sendBookingConfirmations och ett till sendCancellationConfirmations. Högst concurrency
+// batcher skickas samtidigt, så när tjänsten är långsam växer nästa batch i stället för
+// antalet anrop. När kön är full blockerar send-anropen tills det finns plats igen.
+// Misslyckade utskick läggs i en fördröjningskö och plockas upp av dispatchern när
+// backoff-tiden gått, så att de inte håller upp resten av kön medan de väntar. Ett
+// misslyckat batchanrop försöks om för alla i det, så leveransen är minst en gång.
+public class BatchingNotificationService implements NotificationService, AutoCloseable {
+    private static final int DEFAULT_CAPACITY = 10_000;
+    private static final int DEFAULT_BATCH_SIZE = 100;
+    private static final int DEFAULT_CONCURRENCY = 8;
+    private static final int DEFAULT_MAX_ATTEMPTS = 5;
+    private static final Duration DEFAULT_INITIAL_BACKOFF = Duration.ofMillis(50);
+    private static final long MAX_POLL_MILLIS = 100;
+
+    private enum Type { BOOKING, CANCELLATION }
+
+    private record Notification(Type type, Booking booking, int attempt) {
+        Notification nextAttempt() {
+            return new Notification(type, booking, attempt + 1);
+        }
+    }
+
+    private record Retry(Notification notification, long dueAt) implements Delayed {
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(dueAt - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(dueAt, ((Retry) other).dueAt);
+        }
+    }
+
+    private final NotificationService delegate;
+    private final BlockingQueue<Notification> queue;
+    private final DelayQueue<Retry> retries = new DelayQueue<>();
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration initialBackoff;
+    private final ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor();
+    // En plats per batch som skickas; dispatchern tar inte ut något ur kön utan en ledig
+    // plats, så att en full kö fortfarande blockerar anroparna
+    private final Semaphore sendSlots;
+    private final Thread dispatcher;
+    private final AtomicLong delivered = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    // Notifieringar som tagits emot men varken levererats eller gett upp, inklusive omförsök
+    private final AtomicLong outstanding = new AtomicLong();
+    private final ReadWriteLock stateLock = new ReentrantReadWriteLock();
+    private volatile boolean closed;
+
+    public BatchingNotificationService(NotificationService delegate) {
+        this(delegate, DEFAULT_CAPACITY, DEFAULT_BATCH_SIZE, DEFAULT_MAX_ATTEMPTS, DEFAULT_INITIAL_BACKOFF);
+    }
+
+    public BatchingNotificationService(NotificationService delegate, int capacity, int batchSize,
+                                       int maxAttempts, Duration initialBackoff) {
+        this(delegate, capacity, batchSize, DEFAULT_CONCURRENCY, maxAttempts, initialBackoff);
+    }
+
+    public BatchingNotificationService(NotificationService delegate, int capacity, int batchSize, int concurrency,
+                                       int maxAttempts, Duration initialBackoff) {
+        if (capacity <= 0 || batchSize <= 0 || concurrency <= 0 || maxAttempts <= 0) {
+            throw new IllegalArgumentException("Kapacitet, batchstorlek, samtidighet och antal försök måste vara positiva");
+        }
+        this.delegate = delegate;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoff = initialBackoff;
+        this.sendSlots = new Semaphore(concurrency);
+        this.dispatcher = Thread.ofVirtual().name("notification-dispatcher").start(this::dispatchLoop);
+    }
+
+    @Override
+    public void sendBookingConfirmation(Booking booking) throws NotificationException {
+        enqueue(new Notification(Type.BOOKING, booking, 1));
+    }
+
+    @Override
+    public void sendCancellationConfirmation(Booking booking) throws NotificationException {
+        enqueue(new Notification(Type.CANCELLATION, booking, 1));
+    }
+
+    public long getDeliveredCount() {
+        return delivered.get();
+    }
+
+    public long getFailedCount() {
+        return failed.get();
+    }
+
+    public int getPendingCount() {
+        return queue.size() + retries.size();
+    }
+
+    // Slutar ta emot nya notifieringar och väntar tills alla mottagna är levererade
+    // eller har gett upp efter sista försöket
+    @Override
+    public void close() throws InterruptedException {
+        stateLock.writeLock().lock();
+        try {
+            closed = true;
+        } finally {
+            stateLock.writeLock().unlock();
+        }
+        dispatcher.join();
+        senders.close();
+    }
+
+    // Kontrollen av closed och insättningen sker under läslåset, så close kan inte
+    // sätta flaggan mellan dem och lämna en notifiering kvar i kön efter att dispatchern slutat
+    private void enqueue(Notification notification) throws NotificationException {
+        stateLock.readLock().lock();
+        try {
+            if (closed) {
+                throw new NotificationException("Notifieringskön är stängd");
+            }
+            outstanding.incrementAndGet();
+            queue.put(notification);
+        } catch (InterruptedException e) {
+            outstanding.decrementAndGet();
+            Thread.currentThread().interrupt();
+            throw new NotificationException("Avbröts i väntan på plats i notifieringskön");
+        } finally {
+            stateLock.readLock().unlock();
+        }
+    }
+
+    private void dispatchLoop() {
+        while (!closed || outstanding.get() > 0) {
+            try {
+                sendSlots.acquire();
+                List<Notification> batch = new ArrayList<>(batchSize);
+                for (Retry retry; batch.size() < batchSize && (retry = retries.poll()) != null; ) {
+                    batch.add(retry.notification());
+                }
+                if (batch.size() < batchSize) {
+                    Notification first = batch.isEmpty()
+                            ? queue.poll(pollMillis(), TimeUnit.MILLISECONDS)
+                            : queue.poll();
+                    if (first != null) {
+                        batch.add(first);
+                        queue.drainTo(batch, batchSize - batch.size());
+                    }
+                }
+                if (batch.isEmpty()) {
+                    sendSlots.release();
+                } else {
+                    senders.execute(() -> deliver(batch));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    // Väntar inte längre än tills nästa omförsök ska skickas
+    private long pollMillis() {
+        Retry next = retries.peek();
+        if (next == null) {
+            return MAX_POLL_MILLIS;
+        }
+        return Math.clamp(next.getDelay(TimeUnit.MILLISECONDS), 1, MAX_POLL_MILLIS);
+    }
+
+    private void deliver(List<Notification> batch) {
+        try {
+            deliver(Type.BOOKING, batch);
+            deliver(Type.CANCELLATION, batch);
+        } finally {
+            sendSlots.release();
+        }
+    }
+
+    private void deliver(Type type, List<Notification> batch) {
+        List<Notification> group = new ArrayList<>(batch.size());
+        for (Notification notification : batch) {
+            if (notification.type() == type) {
+                group.add(notification);
+            }
+        }
+        if (group.isEmpty()) {
+            return;
+        }
+        try {
+            send(type, group);
+            delivered.addAndGet(group.size());
+            outstanding.addAndGet(-group.size());
+        } catch (NotificationException e) {
+            for (Notification notification : group) {
+                if (notification.attempt() < maxAttempts) {
+                    retries.add(new Retry(notification.nextAttempt(), System.nanoTime() + backoffNanos(notification.attempt())));
+                } else {
+                    giveUp();
+                }
+            }
+        } catch (RuntimeException e) {
+            for (int i = 0; i < group.size(); i++) {
+                giveUp();
+            }
+        }
+    }
+
+    // En ensam notifiering går till det vanliga anropet
+    private void send(Type type, List<Notification> group) throws NotificationException {
+        if (group.size() == 1) {
+            if (type == Type.BOOKING) {
+                delegate.sendBookingConfirmation(group.get(0).booking());
+            } else {
+                delegate.sendCancellationConfirmation(group.get(0).booking());
+            }
+            return;
+        }
+        List<Booking> bookings = new ArrayList<>(group.size());
+        for (Notification notification : group) {
+            bookings.add(notification.booking());
+        }
+        if (type == Type.BOOKING) {
+            delegate.sendBookingConfirmations(bookings);
+        } else {
+            delegate.sendCancellationConfirmations(bookings);
+        }
+    }
+
+    // Fördubblas för varje misslyckat försök
+    private long backoffNanos(int failedAttempts) {
+        return initialBackoff.toNanos() << Math.min(failedAttempts - 1, 20);
+    }
+
+    private void giveUp() {
+        failed.incrementAndGet();
+        outstanding.decrementAndGet();
+    }
+}
@@ -1,6 +1,7 @@
 package com.example;
 
 import java.time.LocalDateTime;
+import java.util.Objects;
 
 public class Booking {
     private final String id;
@@ -34,4 +35,22 @@ public class Booking {
     public LocalDateTime getEndTime() {
         return endTime;
     }
+
+    // Room bygger en ny instans vid varje uppslag, så två bokningar jämförs på sina värden
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Booking other)) {
+            return false;
+        }
+        return Objects.equals(id, other.id) && Objects.equals(roomId, other.roomId)
+                && Objects.equals(startTime, other.startTime) && Objects.equals(endTime, other.endTime);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, roomId, startTime, endTime);
+    }
 }
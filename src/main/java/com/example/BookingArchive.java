@@ -0,0 +1,545 @@
+package com.example;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+// Arkiv för avslutade bokningar. Nya bokningar läggs i en logg (det aktiva segmentet) och
+// hålls även i minnet tills loggen når segmentRecords poster. Då skrivs de som ett
+// oföränderligt segment där posterna är sorterade på starttid och har fast storlek, och
+// segmentet läses sedan via en minnesmappad buffert. Bokningarna ligger alltså till största
+// delen utanför heapen och utanför Room.
+//
+// När de MERGE_WIDTH nyaste segmenten är ungefär lika stora slås de ihop till ett, så antalet
+// segment växer bara logaritmiskt med arkivet och varje post skrivs om ett fåtal gånger.
+public class BookingArchive implements AutoCloseable {
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String ACTIVE_LOG = "active.wal";
+    private static final int MAGIC = 0x424B4153;
+    private static final int HEADER_BYTES = 24;
+    private static final int RECORD_BYTES = 20;
+    private static final int DEFAULT_SEGMENT_RECORDS = 10_000;
+    private static final int MERGE_WIDTH = 4;
+    // Ett segment mappas som en enda buffert
+    private static final long MAX_SEGMENT_BYTES = Integer.MAX_VALUE;
+
+    private final Path directory;
+    private final int segmentRecords;
+    private final WriteAheadLog activeLog;
+    // Byts ut i sin helhet av append och compact, så en sökning ser aldrig en bokning både i
+    // loggen och i ett segment, eller i två segment som håller på att slås ihop
+    private volatile Snapshot snapshot;
+    private int nextSegmentNumber;
+
+    public BookingArchive(Path directory) {
+        this(directory, DEFAULT_SEGMENT_RECORDS);
+    }
+
+    BookingArchive(Path directory, int segmentRecords) {
+        if (segmentRecords < 1) {
+            throw new IllegalArgumentException("Segmentstorleken måste vara positiv");
+        }
+        this.directory = directory;
+        this.segmentRecords = segmentRecords;
+        try {
+            Files.createDirectories(directory);
+            List<Segment> segments = openSegments();
+            this.activeLog = new WriteAheadLog(directory.resolve(ACTIVE_LOG));
+            List<Entry> active = new ArrayList<>();
+            for (byte[] record : activeLog.recover()) {
+                active.add(Entry.decode(record));
+            }
+            // Kraschade det efter att loggen skrevs som segment men innan den tömdes finns
+            // allt i loggen redan i det nyaste segmentet
+            if (!active.isEmpty() && !segments.isEmpty() && segments.get(segments.size() - 1).containsAll(active)) {
+                activeLog.discardBefore(activeLog.position(), activeLog.recordCount());
+                active.clear();
+            }
+            this.snapshot = new Snapshot(List.copyOf(segments), List.copyOf(active));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Kunde inte öppna bokningsarkivet i " + directory, e);
+        }
+    }
+
+    private List<Segment> openSegments() throws IOException {
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*.tmp")) {
+            for (Path file : stream) {
+                Files.delete(file);
+            }
+        }
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            stream.forEach(files::add);
+        }
+        files.sort(Comparator.naturalOrder());
+        List<Segment> segments = new ArrayList<>();
+        for (Path file : files) {
+            Segment segment = Segment.open(file);
+            segments.add(segment);
+            nextSegmentNumber = Math.max(nextSegmentNumber, segment.number + 1);
+        }
+        // Ett sammanslaget segment ersätter det nyaste av dem det byggdes av och täcker alla
+        // nummer från firstNumber och uppåt. Äldre segment i det spannet blev kvar för att
+        // sammanslagningen avbröts innan de hann tas bort.
+        int coveredFrom = Integer.MAX_VALUE;
+        for (int i = segments.size() - 1; i >= 0; i--) {
+            Segment segment = segments.get(i);
+            if (segment.number >= coveredFrom) {
+                Files.delete(segment.file);
+                segments.remove(i);
+            } else {
+                coveredFrom = segment.firstNumber;
+            }
+        }
+        return segments;
+    }
+
+    // Skriver bokningarna till loggen och gör dem sökbara. Loggen är på disk innan metoden
+    // returnerar, så bokningarna kan därefter tas bort ur rummen.
+    public synchronized void append(List<Booking> bookings) {
+        if (bookings.isEmpty()) {
+            return;
+        }
+        List<byte[]> records = new ArrayList<>(bookings.size());
+        List<Entry> active = new ArrayList<>(snapshot.active());
+        for (Booking booking : bookings) {
+            Entry entry = Entry.of(booking);
+            records.add(entry.encode());
+            active.add(entry);
+        }
+        try {
+            activeLog.append(records);
+            snapshot = new Snapshot(snapshot.segments(), List.copyOf(active));
+            if (active.size() >= segmentRecords) {
+                seal();
+                mergeNewest();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Kunde inte arkivera bokningar i " + directory, e);
+        }
+    }
+
+    // Skriver loggen som segment och slår ihop alla segment som ryms i ett, oavsett storlek
+    public synchronized void compact() {
+        try {
+            if (!snapshot.active().isEmpty()) {
+                seal();
+            }
+            List<Segment> segments = snapshot.segments();
+            int to = segments.size();
+            while (to > 0) {
+                int from = to - 1;
+                long bytes = segments.get(from).bytes();
+                while (from > 0 && bytes + segments.get(from - 1).bytes() <= MAX_SEGMENT_BYTES) {
+                    from--;
+                    bytes += segments.get(from).bytes();
+                }
+                if (to - from > 1) {
+                    merge(from, to);
+                }
+                to = from;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Kunde inte komprimera bokningsarkivet i " + directory, e);
+        }
+    }
+
+    private void seal() throws IOException {
+        List<Entry> entries = new ArrayList<>(snapshot.active());
+        entries.sort(Comparator.comparingLong(Entry::start));
+        int number = nextSegmentNumber++;
+        Segment segment = writeSegment(number, number, entries.iterator());
+        List<Segment> segments = new ArrayList<>(snapshot.segments());
+        segments.add(segment);
+        snapshot = new Snapshot(List.copyOf(segments), List.of());
+        activeLog.discardBefore(activeLog.position(), activeLog.recordCount());
+    }
+
+    private void mergeNewest() throws IOException {
+        while (true) {
+            List<Segment> segments = snapshot.segments();
+            int from = segments.size() - MERGE_WIDTH;
+            if (from < 0) {
+                return;
+            }
+            int tier = tierOf(segments.get(segments.size() - 1));
+            long bytes = 0;
+            for (int i = from; i < segments.size(); i++) {
+                if (tierOf(segments.get(i)) != tier) {
+                    return;
+                }
+                bytes += segments.get(i).bytes();
+            }
+            if (bytes > MAX_SEGMENT_BYTES) {
+                return;
+            }
+            merge(from, segments.size());
+        }
+    }
+
+    // Nivå 0 är ett segment från loggen, och varje nivå uppåt är MERGE_WIDTH gånger större
+    private int tierOf(Segment segment) {
+        int tier = 0;
+        for (long limit = segmentRecords; segment.count > limit; limit *= MERGE_WIDTH) {
+            tier++;
+        }
+        return tier;
+    }
+
+    // Det sammanslagna segmentet får det nyaste segmentets nummer och ersätter det med en
+    // atomisk move, så det blir synligt på en gång. Därefter tas de äldre bort.
+    private void merge(int from, int to) throws IOException {
+        List<Segment> segments = snapshot.segments();
+        List<Segment> run = segments.subList(from, to);
+        Segment newest = run.get(run.size() - 1);
+        Segment merged = writeSegment(newest.number, run.get(0).firstNumber, new MergingIterator(run));
+        List<Segment> remaining = new ArrayList<>(segments.subList(0, from));
+        remaining.add(merged);
+        remaining.addAll(segments.subList(to, segments.size()));
+        snapshot = new Snapshot(List.copyOf(remaining), snapshot.active());
+        for (Segment segment : run) {
+            if (segment != newest) {
+                Files.deleteIfExists(segment.file);
+            }
+        }
+    }
+
+    // Antalet poster, och därmed var strängarna börjar, är inte känt förrän alla poster är
+    // skrivna. Strängarna skrivs därför till en egen fil som sedan läggs efter posterna.
+    private Segment writeSegment(int number, int firstNumber, Iterator<Entry> entries) throws IOException {
+        Path file = directory.resolve(String.format("%s%08d%s", SEGMENT_PREFIX, number, SEGMENT_SUFFIX));
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        Path stringsFile = file.resolveSibling(file.getFileName() + ".strings.tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+             FileChannel strings = FileChannel.open(stringsFile, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                     StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.DELETE_ON_CLOSE)) {
+            channel.position(HEADER_BYTES);
+            DataOutputStream recordOut = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+            DataOutputStream stringOut = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(strings)));
+            int count = 0;
+            long maxDuration = 0;
+            while (entries.hasNext()) {
+                Entry entry = entries.next();
+                maxDuration = Math.max(maxDuration, entry.end() - entry.start());
+                recordOut.writeLong(entry.start());
+                recordOut.writeLong(entry.end());
+                recordOut.writeInt(stringOut.size());
+                writeString(stringOut, entry.roomId());
+                writeString(stringOut, entry.id());
+                count++;
+            }
+            recordOut.flush();
+            stringOut.flush();
+            long stringsOffset = channel.position();
+            if (stringsOffset + strings.size() > MAX_SEGMENT_BYTES) {
+                throw new IOException("Arkivsegmentet blir för stort: " + file);
+            }
+            for (long position = 0; position < strings.size(); ) {
+                position += strings.transferTo(position, strings.size() - position, channel);
+            }
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            header.putInt(MAGIC);
+            header.putInt(count);
+            header.putLong(maxDuration);
+            header.putInt((int) stringsOffset);
+            header.putInt(firstNumber);
+            header.flip();
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+            channel.force(true);
+        }
+        Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        return Segment.open(file);
+    }
+
+    // Arkiverade bokningar som överlappar intervallet, sorterade på starttid.
+    // Med roomId null returneras bokningar för alla rum.
+    public List<Booking> findBookings(String roomId, LocalDateTime startTime, LocalDateTime endTime) {
+        long from = toEpochNanos(startTime);
+        long to = toEpochNanos(endTime);
+        Snapshot current = snapshot;
+        List<Booking> result = new ArrayList<>();
+        for (Segment segment : current.segments()) {
+            segment.collect(roomId, from, to, result);
+        }
+        for (Entry entry : current.active()) {
+            if (entry.start() <= to && entry.end() >= from && (roomId == null || roomId.equals(entry.roomId()))) {
+                result.add(entry.toBooking());
+            }
+        }
+        result.sort(Comparator.comparing(Booking::getStartTime));
+        return result;
+    }
+
+    public long size() {
+        Snapshot current = snapshot;
+        long size = current.active().size();
+        for (Segment segment : current.segments()) {
+            size += segment.count;
+        }
+        return size;
+    }
+
+    // Antal segmentfiler på disk, utöver loggen
+    int segmentCount() {
+        return snapshot.segments().size();
+    }
+
+    @Override
+    public void close() throws IOException {
+        activeLog.close();
+    }
+
+    // Strängar lagras som längd följd av vanlig UTF-8, både i loggen och i segmenten
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer, int position) {
+        byte[] bytes = new byte[buffer.getInt(position)];
+        buffer.get(position + 4, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int stringBytes(ByteBuffer buffer, int position) {
+        return 4 + buffer.getInt(position);
+    }
+
+    private record Snapshot(List<Segment> segments, List<Entry> active) {
+    }
+
+    private record Entry(long start, long end, String roomId, String id) {
+        static Entry of(Booking booking) {
+            return new Entry(toEpochNanos(booking.getStartTime()), toEpochNanos(booking.getEndTime()),
+                    booking.getRoomId(), booking.getId());
+        }
+
+        static Entry decode(byte[] record) {
+            ByteBuffer buffer = ByteBuffer.wrap(record);
+            int roomIdPosition = 16;
+            int idPosition = roomIdPosition + stringBytes(buffer, roomIdPosition);
+            return new Entry(buffer.getLong(0), buffer.getLong(8), readString(buffer, roomIdPosition),
+                    readString(buffer, idPosition));
+        }
+
+        byte[] encode() {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (DataOutputStream out = new DataOutputStream(bytes)) {
+                out.writeLong(start);
+                out.writeLong(end);
+                writeString(out, roomId);
+                writeString(out, id);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return bytes.toByteArray();
+        }
+
+        Booking toBooking() {
+            return new Booking(id, roomId, fromEpochNanos(start), fromEpochNanos(end));
+        }
+    }
+
+    private static final class Segment {
+        private final Path file;
+        private final int number;
+        private final MappedByteBuffer buffer;
+        private final int count;
+        private final long maxDuration;
+        private final int stringsOffset;
+        private final int firstNumber;
+
+        private Segment(Path file, MappedByteBuffer buffer) throws IOException {
+            this.file = file;
+            String name = file.getFileName().toString();
+            this.number = Integer.parseInt(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+            this.buffer = buffer;
+            if (buffer.limit() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+                throw new IOException("Ogiltigt arkivsegment: " + file);
+            }
+            this.count = buffer.getInt(4);
+            this.maxDuration = buffer.getLong(8);
+            this.stringsOffset = buffer.getInt(16);
+            this.firstNumber = buffer.getInt(20);
+        }
+
+        static Segment open(Path file) throws IOException {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                return new Segment(file, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+            }
+        }
+
+        long bytes() {
+            return buffer.limit();
+        }
+
+        // Poster som börjar före from - maxDuration kan inte nå fram till from,
+        // så sökningen börjar där och slutar vid första start efter to
+        void collect(String roomId, long from, long to, List<Booking> result) {
+            long earliestStart = from - maxDuration;
+            int index = firstStartAtOrAfter(earliestStart);
+            for (; index < count; index++) {
+                long start = startAt(index);
+                if (start > to) {
+                    break;
+                }
+                long end = buffer.getLong(recordOffset(index) + 8);
+                if (end < from) {
+                    continue;
+                }
+                int stringPosition = stringsOffset + buffer.getInt(recordOffset(index) + 16);
+                String bookingRoomId = readString(buffer, stringPosition);
+                if (roomId != null && !roomId.equals(bookingRoomId)) {
+                    continue;
+                }
+                String bookingId = readString(buffer, stringPosition + stringBytes(buffer, stringPosition));
+                result.add(new Booking(bookingId, bookingRoomId, fromEpochNanos(start), fromEpochNanos(end)));
+            }
+        }
+
+        boolean containsAll(List<Entry> entries) {
+            for (Entry entry : entries) {
+                boolean found = false;
+                for (int index = firstStartAtOrAfter(entry.start()); !found && index < count
+                        && startAt(index) == entry.start(); index++) {
+                    found = entry.equals(entryAt(index));
+                }
+                if (!found) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        Entry entryAt(int index) {
+            int stringPosition = stringsOffset + buffer.getInt(recordOffset(index) + 16);
+            int idPosition = stringPosition + stringBytes(buffer, stringPosition);
+            return new Entry(startAt(index), buffer.getLong(recordOffset(index) + 8),
+                    readString(buffer, stringPosition), readString(buffer, idPosition));
+        }
+
+        private int firstStartAtOrAfter(long time) {
+            int low = 0;
+            int high = count;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (startAt(mid) < time) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        private long startAt(int index) {
+            return buffer.getLong(recordOffset(index));
+        }
+
+        private static int recordOffset(int index) {
+            return HEADER_BYTES + index * RECORD_BYTES;
+        }
+    }
+
+    // Går igenom flera segment i starttidsordning. Samma bokning kan ha arkiverats två gånger,
+    // till exempel om det kraschade innan den togs bort ur rummet, och kopiorna har då samma
+    // starttid och skrivs bara en gång.
+    private static final class MergingIterator implements Iterator<Entry> {
+        private final PriorityQueue<Cursor> cursors = new PriorityQueue<>(Comparator.comparingLong(Cursor::start));
+        private final Set<Entry> sameStart = new HashSet<>();
+        private long currentStart;
+        private Entry next;
+
+        MergingIterator(List<Segment> segments) {
+            for (Segment segment : segments) {
+                if (segment.count > 0) {
+                    cursors.add(new Cursor(segment));
+                }
+            }
+            next = advance();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public Entry next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            Entry entry = next;
+            next = advance();
+            return entry;
+        }
+
+        private Entry advance() {
+            while (!cursors.isEmpty()) {
+                Cursor cursor = cursors.poll();
+                Entry entry = cursor.segment.entryAt(cursor.index++);
+                if (cursor.index < cursor.segment.count) {
+                    cursors.add(cursor);
+                }
+                if (entry.start() != currentStart) {
+                    sameStart.clear();
+                    currentStart = entry.start();
+                }
+                if (sameStart.add(entry)) {
+                    return entry;
+                }
+            }
+            return null;
+        }
+    }
+
+    private static final class Cursor {
+        private final Segment segment;
+        private int index;
+
+        Cursor(Segment segment) {
+            this.segment = segment;
+        }
+
+        long start() {
+            return segment.startAt(index);
+        }
+    }
+
+    private static long toEpochNanos(LocalDateTime time) {
+        return Math.addExact(Math.multiplyExact(time.toEpochSecond(ZoneOffset.UTC), 1_000_000_000L), time.getNano());
+    }
+
+    private static LocalDateTime fromEpochNanos(long nanos) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(nanos, 1_000_000_000L),
+                (int) Math.floorMod(nanos, 1_000_000_000L), ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,12 @@
+package com.example;
+
+import java.util.UUID;
+
+public interface BookingIdGenerator {
+    String nextId();
+
+    // Slumpade UUID från SecureRandom; oförutsägbara men delar på en synkroniserad källa
+    static BookingIdGenerator randomUuid() {
+        return () -> UUID.randomUUID().toString();
+    }
+}
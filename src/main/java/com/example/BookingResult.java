@@ -0,0 +1,53 @@
+package com.example;
+
+public class BookingResult {
+    public enum Status {
+        BOOKED,
+        CONFLICT,
+        INVALID
+    }
+
+    private final BookingRequest request;
+    private final Status status;
+    private final Booking booking;
+    private final String failureReason;
+
+    private BookingResult(BookingRequest request, Status status, Booking booking, String failureReason) {
+        this.request = request;
+        this.status = status;
+        this.booking = booking;
+        this.failureReason = failureReason;
+    }
+
+    static BookingResult booked(BookingRequest request, Booking booking) {
+        return new BookingResult(request, Status.BOOKED, booking, null);
+    }
+
+    static BookingResult conflict(BookingRequest request) {
+        return new BookingResult(request, Status.CONFLICT, null, "Rummet är redan bokat under den tiden");
+    }
+
+    static BookingResult invalid(BookingRequest request, String reason) {
+        return new BookingResult(request, Status.INVALID, null, reason);
+    }
+
+    public boolean isSuccess() {
+        return status == Status.BOOKED;
+    }
+
+    public BookingRequest getRequest() {
+        return request;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public Booking getBooking() {
+        return booking;
+    }
+
+    public String getFailureReason() {
+        return failureReason;
+    }
+}
@@ -1,13 +1,40 @@
 package com.example;
 
+import com.example.metrics.BookingMetrics;
+import com.example.metrics.Operation;
+import com.example.metrics.Outcome;
+
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public class BookingSystem {
+    private static final int LOCK_STRIPES = 64;
+
     private final TimeProvider timeProvider;
     private final RoomRepository roomRepository;
     private final NotificationService notificationService;
+    private final Map<String, String> roomIdByBookingId = new ConcurrentHashMap<>();
+    // Indexet är fullständigt när en genomsökning gått igenom alla rum utan att indexet
+    // ogiltigförklarats under tiden. Eftersom bokning, avbokning och flytt av rum håller indexet
+    // aktuellt betyder en miss därefter att bokningen inte finns. Varje ogiltigförklaring räknar
+    // upp generationen, så en genomsökning som startade före den kan inte markera indexet klart.
+    private final AtomicLong bookingIndexGeneration = new AtomicLong();
+    private final AtomicLong completeBookingIndexGeneration = new AtomicLong(-1);
+    private final RoomLocks roomLocks = new RoomLocks(LOCK_STRIPES);
+    private final List<AvailabilitySubscription> subscriptions = new CopyOnWriteArrayList<>();
+    private volatile AvailabilityIndex availabilityIndex;
+    private volatile ParallelSearch parallelSearch;
+    private volatile BookingMetrics metrics;
+    private volatile BookingIdGenerator bookingIdGenerator = BookingIdGenerator.randomUuid();
 
     public BookingSystem(TimeProvider timeProvider,
                          RoomRepository roomRepository,
@@ -17,40 +44,238 @@ public class BookingSystem {
         this.notificationService = notificationService;
     }
 
-    public boolean bookRoom(String roomId, LocalDateTime startTime, LocalDateTime endTime) {
-        if (startTime == null || endTime == null || roomId == null) {
-            throw new IllegalArgumentException("Bokning kräver giltiga start- och sluttider samt rum-id");
+    // Indexet byggs från repositoryt här, så det bör sättas innan systemet tar trafik
+    public void setAvailabilityIndex(AvailabilityIndex availabilityIndex) {
+        if (availabilityIndex != null) {
+            try (Stream<Room> rooms = roomRepository.streamAll()) {
+                availabilityIndex.rebuild(rooms);
+            }
+        }
+        this.availabilityIndex = availabilityIndex;
+    }
+
+    // Sökningar med minst threshold rum filtreras parallellt i poolen; resultatet behåller
+    // repositoryts ordning. Rummen måste då läsas in i sin helhet först.
+    public void enableParallelSearch(ForkJoinPool pool, int threshold) {
+        if (pool == null || threshold < 1) {
+            throw new IllegalArgumentException("Parallell sökning kräver en pool och ett positivt tröskelvärde");
         }
+        this.parallelSearch = new ParallelSearch(pool, threshold);
+    }
 
-        if (startTime.isBefore(timeProvider.getCurrentTime())) {
-            throw new IllegalArgumentException("Kan inte boka tid i dåtid");
+    public void disableParallelSearch() {
+        this.parallelSearch = null;
+    }
+
+    // Med null mäts ingenting, och då läses varken klockan eller allokeras något
+    public void setMetrics(BookingMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    public void setBookingIdGenerator(BookingIdGenerator bookingIdGenerator) {
+        if (bookingIdGenerator == null) {
+            throw new IllegalArgumentException("Id-generatorn kan inte vara null");
+        }
+        this.bookingIdGenerator = bookingIdGenerator;
+    }
+
+    // Klienten läser först in tillgängligheten med getAvailableRooms och tillämpar sedan
+    // ändringarna; eftersom ändringarna är absoluta spelar överlapp mellan de två ingen roll
+    public AvailabilitySubscription subscribeAvailability(LocalDateTime startTime, LocalDateTime endTime, int capacity) {
+        if (startTime == null || endTime == null) {
+            throw new IllegalArgumentException("Måste ange både start- och sluttid");
         }
 
         if (endTime.isBefore(startTime)) {
             throw new IllegalArgumentException("Sluttid måste vara efter starttid");
         }
 
-        Room room = roomRepository.findById(roomId)
-                .orElseThrow(() -> new IllegalArgumentException("Rummet existerar inte"));
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Bufferten måste rymma minst en ändring");
+        }
 
-        if (!room.isAvailable(startTime, endTime)) {
-            return false;
+        AvailabilitySubscription subscription =
+                new AvailabilitySubscription(startTime, endTime, capacity, subscriptions::remove);
+        subscriptions.add(subscription);
+        return subscription;
+    }
+
+    public boolean bookRoom(String roomId, LocalDateTime startTime, LocalDateTime endTime) {
+        BookingMetrics metrics = this.metrics;
+        if (metrics == null) {
+            return tryBookRoom(roomId, startTime, endTime);
         }
 
-        Booking booking = new Booking(UUID.randomUUID().toString(), roomId, startTime, endTime);
-        room.addBooking(booking);
-        roomRepository.save(room);
+        long started = System.nanoTime();
+        try {
+            boolean booked = tryBookRoom(roomId, startTime, endTime);
+            metrics.record(Operation.BOOK_ROOM, booked ? Outcome.SUCCESS : Outcome.CONFLICT, System.nanoTime() - started);
+            return booked;
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            metrics.record(Operation.BOOK_ROOM, Outcome.INVALID, System.nanoTime() - started);
+            throw e;
+        }
+    }
 
+    private boolean tryBookRoom(String roomId, LocalDateTime startTime, LocalDateTime endTime) {
+        validateBooking(roomId, startTime, endTime, timeProvider.getCurrentTime());
+
+        Booking booking;
+        Lock lock = roomLocks.lockFor(roomId);
+        lock.lock();
         try {
-            notificationService.sendBookingConfirmation(booking);
-        } catch (NotificationException e) {
-            // Fortsätt även om notifieringen misslyckas
+            Room room = roomRepository.findByIdOrNull(roomId);
+            if (room == null) {
+                throw new IllegalArgumentException("Rummet existerar inte");
+            }
+
+            if (!room.isAvailable(startTime, endTime)) {
+                return false;
+            }
+
+            booking = new Booking(bookingIdGenerator.nextId(), roomId, startTime, endTime);
+            room.addBooking(booking);
+            roomRepository.save(room);
+            bookingAdded(room, booking);
+            roomIdByBookingId.put(booking.getId(), roomId);
+            if (!subscriptions.isEmpty()) {
+                publishBooked(room, List.of(booking));
+            }
+        } finally {
+            lock.unlock();
         }
 
+        sendBookingConfirmation(booking);
         return true;
     }
 
+    public List<BookingResult> bookRooms(List<BookingRequest> requests) {
+        BookingMetrics metrics = this.metrics;
+        if (metrics == null) {
+            return tryBookRooms(requests);
+        }
+
+        long started = System.nanoTime();
+        try {
+            List<BookingResult> results = tryBookRooms(requests);
+            // Varje förfrågan får svar först när hela batchen är klar
+            long elapsed = System.nanoTime() - started;
+            for (BookingResult result : results) {
+                metrics.record(Operation.BOOK_ROOMS, outcomeOf(result), elapsed);
+            }
+            return results;
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            metrics.record(Operation.BOOK_ROOMS, Outcome.INVALID, System.nanoTime() - started);
+            throw e;
+        }
+    }
+
+    private static Outcome outcomeOf(BookingResult result) {
+        return switch (result.getStatus()) {
+            case BOOKED -> Outcome.SUCCESS;
+            case CONFLICT -> Outcome.CONFLICT;
+            case INVALID -> Outcome.INVALID;
+        };
+    }
+
+    private List<BookingResult> tryBookRooms(List<BookingRequest> requests) {
+        if (requests == null) {
+            throw new IllegalArgumentException("Bokningslistan kan inte vara null");
+        }
+
+        LocalDateTime now = timeProvider.getCurrentTime();
+        BookingResult[] results = new BookingResult[requests.size()];
+        Map<String, List<Integer>> indexesByRoom = new LinkedHashMap<>();
+
+        for (int i = 0; i < requests.size(); i++) {
+            BookingRequest request = requests.get(i);
+            try {
+                if (request == null) {
+                    throw new IllegalArgumentException("Bokning kräver giltiga start- och sluttider samt rum-id");
+                }
+                validateBooking(request.getRoomId(), request.getStartTime(), request.getEndTime(), now);
+                indexesByRoom.computeIfAbsent(request.getRoomId(), roomId -> new ArrayList<>()).add(i);
+            } catch (IllegalArgumentException e) {
+                results[i] = BookingResult.invalid(request, e.getMessage());
+            }
+        }
+
+        List<Booking> created = new ArrayList<>();
+        for (Map.Entry<String, List<Integer>> entry : indexesByRoom.entrySet()) {
+            bookRoomBatch(entry.getKey(), entry.getValue(), requests, results, created);
+        }
+
+        for (Booking booking : created) {
+            sendBookingConfirmation(booking);
+        }
+
+        return Arrays.asList(results);
+    }
+
+    // Alla förfrågningar för ett rum prövas under samma lås mot både befintliga och nyss
+    // godkända bokningar, och rummet sparas bara en gång
+    private void bookRoomBatch(String roomId, List<Integer> indexes, List<BookingRequest> requests,
+                               BookingResult[] results, List<Booking> created) {
+        Lock lock = roomLocks.lockFor(roomId);
+        lock.lock();
+        try {
+            Optional<Room> found = roomRepository.findById(roomId);
+            if (found.isEmpty()) {
+                for (int index : indexes) {
+                    results[index] = BookingResult.invalid(requests.get(index), "Rummet existerar inte");
+                }
+                return;
+            }
+
+            Room room = found.get();
+            List<Booking> accepted = new ArrayList<>();
+            for (int index : indexes) {
+                BookingRequest request = requests.get(index);
+                if (!room.isAvailable(request.getStartTime(), request.getEndTime())) {
+                    results[index] = BookingResult.conflict(request);
+                    continue;
+                }
+                Booking booking = new Booking(bookingIdGenerator.nextId(), roomId,
+                        request.getStartTime(), request.getEndTime());
+                room.addBooking(booking);
+                accepted.add(booking);
+                results[index] = BookingResult.booked(request, booking);
+            }
+
+            if (!accepted.isEmpty()) {
+                roomRepository.save(room);
+                for (Booking booking : accepted) {
+                    roomIdByBookingId.put(booking.getId(), roomId);
+                    bookingAdded(room, booking);
+                }
+                if (!subscriptions.isEmpty()) {
+                    publishBooked(room, accepted);
+                }
+                created.addAll(accepted);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
     public List<Room> getAvailableRooms(LocalDateTime startTime, LocalDateTime endTime) {
+        BookingMetrics metrics = this.metrics;
+        if (metrics == null) {
+            return findAvailableRooms(startTime, endTime);
+        }
+
+        long started = System.nanoTime();
+        try {
+            List<Room> rooms = findAvailableRooms(startTime, endTime);
+            metrics.record(Operation.GET_AVAILABLE_ROOMS, Outcome.SUCCESS, System.nanoTime() - started);
+            return rooms;
+        } catch (IllegalArgumentException e) {
+            metrics.record(Operation.GET_AVAILABLE_ROOMS, Outcome.INVALID, System.nanoTime() - started);
+            throw e;
+        }
+    }
+
+    private List<Room> findAvailableRooms(LocalDateTime startTime, LocalDateTime endTime) {
         if (startTime == null || endTime == null) {
             throw new IllegalArgumentException("Måste ange både start- och sluttid");
         }
@@ -59,41 +284,459 @@ public class BookingSystem {
             throw new IllegalArgumentException("Sluttid måste vara efter starttid");
         }
 
-        return roomRepository.findAll().stream()
-                .filter(room -> room.isAvailable(startTime, endTime))
-                .collect(Collectors.toList());
+        // Indexet avgör alla rum med en operation ord för ord; bara rum det inte kan avgöra,
+        // eller alla om frågan ligger utanför dess fönster, prövas mot sina bokningar
+        AvailabilityIndex index = currentAvailabilityIndex();
+        AvailabilityIndex.Classification known = index == null ? null : index.classify(startTime, endTime);
+
+        ParallelSearch parallel = parallelSearch;
+        if (parallel != null) {
+            return findAvailableInParallel(parallel, known, startTime, endTime);
+        }
+
+        try (Stream<Room> rooms = roomRepository.streamAll()) {
+            return rooms.filter(room -> isAvailable(known, room, startTime, endTime))
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private List<Room> findAvailableInParallel(ParallelSearch parallel, AvailabilityIndex.Classification known,
+                                               LocalDateTime startTime, LocalDateTime endTime) {
+        List<Room> rooms;
+        try (Stream<Room> stream = roomRepository.streamAll()) {
+            rooms = stream.collect(Collectors.toList());
+        }
+
+        if (rooms.size() < parallel.threshold) {
+            return rooms.stream()
+                    .filter(room -> isAvailable(known, room, startTime, endTime))
+                    .collect(Collectors.toList());
+        }
+
+        // En parallell ström som startas inifrån poolen körs på poolens trådar
+        return parallel.pool.submit(() -> rooms.parallelStream()
+                        .filter(room -> isAvailable(known, room, startTime, endTime))
+                        .collect(Collectors.toList()))
+                .join();
+    }
+
+    public List<FreeSlot> findEarliestFreeSlots(Duration duration, LocalDateTime from, LocalDateTime until, int limit) {
+        validateSlotSearch(duration, from, until, limit);
+        try (Stream<Room> rooms = roomRepository.streamAll()) {
+            return FreeSlotFinder.find(rooms.iterator(), duration, earliestBookableStart(from), until, limit);
+        }
+    }
+
+    // Rum som inte finns hoppas över
+    public List<FreeSlot> findEarliestFreeSlots(Duration duration, LocalDateTime from, LocalDateTime until, int limit,
+                                                Collection<String> roomIds) {
+        validateSlotSearch(duration, from, until, limit);
+        if (roomIds == null) {
+            throw new IllegalArgumentException("Rumslistan kan inte vara null");
+        }
+        List<Room> rooms = new ArrayList<>(roomIds.size());
+        for (String roomId : roomIds) {
+            Room room = roomRepository.findByIdOrNull(roomId);
+            if (room != null) {
+                rooms.add(room);
+            }
+        }
+        return FreeSlotFinder.find(rooms.iterator(), duration, earliestBookableStart(from), until, limit);
+    }
+
+    private void validateSlotSearch(Duration duration, LocalDateTime from, LocalDateTime until, int limit) {
+        if (duration == null || duration.isZero() || duration.isNegative()) {
+            throw new IllegalArgumentException("Längden måste vara positiv");
+        }
+
+        if (from == null || until == null) {
+            throw new IllegalArgumentException("Måste ange både start- och sluttid");
+        }
+
+        if (until.isBefore(from)) {
+            throw new IllegalArgumentException("Sluttid måste vara efter starttid");
+        }
+
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Antalet tider måste vara positivt");
+        }
+    }
+
+    // Tider i dåtid kan ändå inte bokas
+    private LocalDateTime earliestBookableStart(LocalDateTime from) {
+        LocalDateTime now = timeProvider.getCurrentTime();
+        return from.isBefore(now) ? now : from;
     }
 
     public boolean cancelBooking(String bookingId) {
+        BookingMetrics metrics = this.metrics;
+        if (metrics == null) {
+            return tryCancelBooking(bookingId);
+        }
+
+        long started = System.nanoTime();
+        try {
+            boolean cancelled = tryCancelBooking(bookingId);
+            metrics.record(Operation.CANCEL_BOOKING, cancelled ? Outcome.SUCCESS : Outcome.NOT_FOUND,
+                    System.nanoTime() - started);
+            return cancelled;
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            metrics.record(Operation.CANCEL_BOOKING, Outcome.INVALID, System.nanoTime() - started);
+            throw e;
+        }
+    }
+
+    private boolean tryCancelBooking(String bookingId) {
         if (bookingId == null) {
             throw new IllegalArgumentException("Boknings-id kan inte vara null");
         }
 
-        Optional<Room> roomWithBooking = roomRepository.findAll().stream()
-                .filter(room -> room.hasBooking(bookingId))
-                .findFirst();
+        Optional<Room> roomWithBooking = findRoomWithBooking(bookingId);
 
         if (roomWithBooking.isEmpty()) {
             return false;
         }
 
-        Room room = roomWithBooking.get();
-        Booking booking = room.getBooking(bookingId);
+        String roomId = roomWithBooking.get().getId();
+        Room room;
+        Booking booking;
+        Lock lock = roomLocks.lockFor(roomId);
+        lock.lock();
+        try {
+            // Rummet läses om under låset, precis som vid bokning. Kopian från uppslaget kan
+            // sakna bokningar som gjorts sedan dess, och skulle då skriva över dem när den sparas.
+            room = roomRepository.findByIdOrNull(roomId);
+            // En annan tråd kan ha hunnit avboka mellan uppslaget och låset
+            if (room == null || !room.hasBooking(bookingId)) {
+                return false;
+            }
+
+            booking = room.getBooking(bookingId);
+
+            if (booking.getStartTime().isBefore(timeProvider.getCurrentTime())) {
+                throw new IllegalStateException("Kan inte avboka påbörjad eller avslutad bokning");
+            }
+
+            room.removeBooking(bookingId);
+            roomRepository.save(room);
+            roomIdByBookingId.remove(bookingId);
+            bookingRemoved(room, booking);
+            if (!subscriptions.isEmpty()) {
+                publishCancelled(room, List.of(booking));
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        sendCancellationConfirmation(booking);
+        return true;
+    }
+
+    // Flyttar bokningar som redan har slutat till arkivet. Segmentet skrivs innan något tas
+    // bort ur rummen, så en krasch däremellan ger dubbletter i arkivet men aldrig förlorade bokningar.
+    public int archivePastBookings(BookingArchive archive) {
+        if (archive == null) {
+            throw new IllegalArgumentException("Arkivet kan inte vara null");
+        }
+
+        LocalDateTime cutoff = timeProvider.getCurrentTime();
+        Map<String, List<Booking>> pastByRoom = new LinkedHashMap<>();
+        try (Stream<Room> rooms = roomRepository.streamAll()) {
+            rooms.forEach(room -> {
+                List<Booking> past = room.getBookingsEndedBefore(cutoff);
+                if (!past.isEmpty()) {
+                    pastByRoom.put(room.getId(), past);
+                }
+            });
+        }
+        if (pastByRoom.isEmpty()) {
+            return 0;
+        }
+
+        List<Booking> archived = new ArrayList<>();
+        pastByRoom.values().forEach(archived::addAll);
+        archive.append(archived);
 
-        if (booking.getStartTime().isBefore(timeProvider.getCurrentTime())) {
-            throw new IllegalStateException("Kan inte avboka påbörjad eller avslutad bokning");
+        for (Map.Entry<String, List<Booking>> entry : pastByRoom.entrySet()) {
+            Lock lock = roomLocks.lockFor(entry.getKey());
+            lock.lock();
+            try {
+                Optional<Room> found = roomRepository.findById(entry.getKey());
+                if (found.isEmpty()) {
+                    continue;
+                }
+                Room room = found.get();
+                for (Booking booking : entry.getValue()) {
+                    room.removeBooking(booking.getId());
+                    roomIdByBookingId.remove(booking.getId());
+                }
+                roomRepository.save(room);
+                for (Booking booking : entry.getValue()) {
+                    bookingRemoved(room, booking);
+                }
+                if (!subscriptions.isEmpty()) {
+                    publishCancelled(room, entry.getValue());
+                }
+            } finally {
+                lock.unlock();
+            }
         }
+        return archived.size();
+    }
 
-        room.removeBooking(bookingId);
-        roomRepository.save(room);
+    // Anropas med rummets lås hållet efter att bokningarna lagts till. Ett fönster var ledigt
+    // före om alla bokningar som nu överlappar det är nya, och är nu upptaget.
+    private void publishBooked(Room room, List<Booking> added) {
+        for (AvailabilitySubscription subscription : subscriptions) {
+            if (!coversAny(subscription, added)) {
+                continue;
+            }
+            boolean wasFree = true;
+            for (Booking booking : room.getBookings(subscription.getStartTime(), subscription.getEndTime())) {
+                if (!added.contains(booking)) {
+                    wasFree = false;
+                    break;
+                }
+            }
+            if (wasFree) {
+                subscription.publish(room.getId(), false);
+            }
+        }
+    }
 
+    // Ett fönster som någon av de borttagna bokningarna överlappade var upptaget före
+    private void publishCancelled(Room room, List<Booking> removed) {
+        for (AvailabilitySubscription subscription : subscriptions) {
+            if (coversAny(subscription, removed)
+                    && room.isAvailable(subscription.getStartTime(), subscription.getEndTime())) {
+                subscription.publish(room.getId(), true);
+            }
+        }
+    }
+
+    private static boolean coversAny(AvailabilitySubscription subscription, List<Booking> bookings) {
+        for (Booking booking : bookings) {
+            if (subscription.covers(booking)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void sendBookingConfirmation(Booking booking) {
+        try {
+            notificationService.sendBookingConfirmation(booking);
+            recordNotification(true);
+        } catch (NotificationException e) {
+            // Fortsätt även om notifieringen misslyckas
+            recordNotification(false);
+        }
+    }
+
+    private void sendCancellationConfirmation(Booking booking) {
         try {
             notificationService.sendCancellationConfirmation(booking);
+            recordNotification(true);
         } catch (NotificationException e) {
             // Fortsätt även om notifieringen misslyckas
+            recordNotification(false);
         }
+    }
 
-        return true;
+    private void recordNotification(boolean delivered) {
+        BookingMetrics metrics = this.metrics;
+        if (metrics != null) {
+            metrics.recordNotification(delivered);
+        }
+    }
+
+    private static boolean isAvailable(AvailabilityIndex.Classification known, Room room,
+                                       LocalDateTime startTime, LocalDateTime endTime) {
+        if (known != null) {
+            switch (known.of(room.getId())) {
+                case FREE:
+                    return true;
+                case BUSY:
+                    return false;
+                default:
+                    break;
+            }
+        }
+        return room.isAvailable(startTime, endTime);
+    }
+
+    // Rullar fram indexets fönster när klockan passerat dess första lucka, så att det
+    // fortsätter täcka tiden framåt i stället för att frågorna hamnar utanför det
+    private AvailabilityIndex currentAvailabilityIndex() {
+        AvailabilityIndex index = availabilityIndex;
+        if (index != null) {
+            LocalDateTime now = timeProvider.getCurrentTime();
+            if (index.isBehind(now)) {
+                try (Stream<Room> rooms = roomRepository.streamAll()) {
+                    index.advanceTo(now, rooms);
+                }
+            }
+        }
+        return index;
+    }
+
+    private void bookingAdded(Room room, Booking booking) {
+        AvailabilityIndex index = availabilityIndex;
+        if (index != null) {
+            index.bookingAdded(room, booking);
+        }
+    }
+
+    private void bookingRemoved(Room room, Booking booking) {
+        AvailabilityIndex index = availabilityIndex;
+        if (index != null) {
+            index.bookingRemoved(room, booking);
+        }
+    }
+
+    private void validateBooking(String roomId, LocalDateTime startTime, LocalDateTime endTime, LocalDateTime now) {
+        if (startTime == null || endTime == null || roomId == null) {
+            throw new IllegalArgumentException("Bokning kräver giltiga start- och sluttider samt rum-id");
+        }
+
+        if (startTime.isBefore(now)) {
+            throw new IllegalArgumentException("Kan inte boka tid i dåtid");
+        }
+
+        if (endTime.isBefore(startTime)) {
+            throw new IllegalArgumentException("Sluttid måste vara efter starttid");
+        }
+    }
+
+    // Slår upp bokningen i indexet. Rummen gås bara igenom medan indexet är ofullständigt.
+    // Används av ShardedBookingSystem för att hitta sharden som äger en bokning.
+    boolean hasBooking(String bookingId) {
+        return findRoomWithBooking(bookingId).isPresent();
+    }
+
+    // Lämnar ifrån sig rummen vars id matchar, med bokningar, så att de kan flyttas till
+    // en annan shard. Varje rum tas bort under sitt lås och försvinner ur båda indexen.
+    // Misslyckas en borttagning läggs de rum som redan tagits bort tillbaka.
+    List<Room> removeRooms(Predicate<String> roomIdFilter) {
+        List<String> roomIds;
+        try (Stream<Room> rooms = roomRepository.streamAll()) {
+            roomIds = rooms.map(Room::getId).filter(roomIdFilter).collect(Collectors.toList());
+        }
+
+        List<Room> removed = new ArrayList<>();
+        try {
+            for (String roomId : roomIds) {
+                Lock lock = roomLocks.lockFor(roomId);
+                lock.lock();
+                try {
+                    Room room = roomRepository.findByIdOrNull(roomId);
+                    if (room == null) {
+                        continue;
+                    }
+                    roomRepository.deleteById(roomId);
+                    for (Booking booking : room.getBookings()) {
+                        roomIdByBookingId.remove(booking.getId());
+                    }
+                    AvailabilityIndex index = availabilityIndex;
+                    if (index != null) {
+                        index.removeRoom(roomId);
+                    }
+                    removed.add(room);
+                } finally {
+                    lock.unlock();
+                }
+            }
+        } catch (RuntimeException e) {
+            addRooms(removed);
+            throw e;
+        }
+        return removed;
+    }
+
+    void addRooms(List<Room> rooms) {
+        for (Room room : rooms) {
+            Lock lock = roomLocks.lockFor(room.getId());
+            lock.lock();
+            try {
+                roomRepository.save(room);
+                for (Booking booking : room.getBookings()) {
+                    roomIdByBookingId.put(booking.getId(), room.getId());
+                }
+                AvailabilityIndex index = availabilityIndex;
+                if (index != null) {
+                    index.indexRoom(room);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    // Anropas om repositoryt ändrats utanför systemet, t.ex. laddats om med andra bokningar
+    public void rebuildBookingIndex() {
+        invalidateBookingIndex();
+        roomIdByBookingId.clear();
+        // En genomsökning som började före tömningen får inte heller markera indexet klart
+        invalidateBookingIndex();
+        reindexAndFind(null);
+    }
+
+    private void invalidateBookingIndex() {
+        bookingIndexGeneration.incrementAndGet();
+    }
+
+    private boolean isBookingIndexComplete() {
+        return completeBookingIndexGeneration.get() == bookingIndexGeneration.get();
+    }
+
+    private Optional<Room> findRoomWithBooking(String bookingId) {
+        String roomId = roomIdByBookingId.get(bookingId);
+        if (roomId != null) {
+            Optional<Room> room = roomRepository.findById(roomId)
+                    .filter(candidate -> candidate.hasBooking(bookingId));
+            if (room.isPresent()) {
+                return room;
+            }
+            // Inaktuell post: repositoryt har ändrats utanför systemet, så indexet kan inte
+            // längre avgöra att en bokning saknas
+            roomIdByBookingId.remove(bookingId, roomId);
+            invalidateBookingIndex();
+        } else if (isBookingIndexComplete()) {
+            return Optional.empty();
+        }
+
+        return reindexAndFind(bookingId);
+    }
+
+    // Indexerar rummen medan de strömmas och slutar vid första träffen, så resten av
+    // rummen behöver aldrig läsas in. Utan bokningsid gås alla rum igenom. En genomsökning
+    // utan träff har sett alla rum, och efter den är indexet fullständigt.
+    private Optional<Room> reindexAndFind(String bookingId) {
+        long generation = bookingIndexGeneration.get();
+        Optional<Room> found;
+        try (Stream<Room> rooms = roomRepository.streamAll()) {
+            found = rooms.filter(room -> {
+                        for (Booking booking : room.getBookings()) {
+                            roomIdByBookingId.put(booking.getId(), room.getId());
+                        }
+                        return bookingId != null && room.hasBooking(bookingId);
+                    })
+                    .findFirst();
+        }
+        if (found.isEmpty()) {
+            completeBookingIndexGeneration.accumulateAndGet(generation, Math::max);
+        }
+        return found;
+    }
+
+    private static final class ParallelSearch {
+        private final ForkJoinPool pool;
+        private final int threshold;
+
+        private ParallelSearch(ForkJoinPool pool, int threshold) {
+            this.pool = pool;
+            this.threshold = threshold;
+        }
     }
 }
 
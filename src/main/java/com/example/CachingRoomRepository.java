@@ -0,0 +1,197 @@
+package com.example;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+// Håller de senast använda rummen i minnet framför ett långsammare repository. Skrivningar
+// går alltid igenom till det underliggande repositoryt och förs sedan in i ögonblicksbilden
+// av alla rum, så att en bokning inte tvingar nästa sökning att läsa om alla rum.
+public class CachingRoomRepository implements RoomRepository {
+    private final RoomRepository delegate;
+    private final int maximumSize;
+    private final Map<String, Room> cache;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private volatile List<Room> allRooms;
+    private long version;
+
+    public CachingRoomRepository(RoomRepository delegate, int maximumSize) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("Cachestorleken måste vara positiv");
+        }
+        this.delegate = delegate;
+        this.maximumSize = maximumSize;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Room> eldest) {
+                if (size() > CachingRoomRepository.this.maximumSize) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    @Override
+    public Optional<Room> findById(String id) {
+        synchronized (cache) {
+            Room cached = cache.get(id);
+            if (cached != null) {
+                hits.incrementAndGet();
+                return Optional.of(cached);
+            }
+        }
+        misses.incrementAndGet();
+        long versionBeforeLoad;
+        synchronized (cache) {
+            versionBeforeLoad = version;
+        }
+        Optional<Room> loaded = delegate.findById(id);
+        if (loaded.isEmpty()) {
+            return loaded;
+        }
+        synchronized (cache) {
+            // En annan tråd kan ha sparat eller läst in rummet under tiden, och då gäller det cachade
+            Room winner = cache.get(id);
+            if (winner != null) {
+                return Optional.of(winner);
+            }
+            // En borttagning eller invalidateAll under inläsningen kan ha gjort rummet inaktuellt
+            if (version == versionBeforeLoad) {
+                cache.put(id, loaded.get());
+            }
+        }
+        return loaded;
+    }
+
+    @Override
+    public Room findByIdOrNull(String id) {
+        synchronized (cache) {
+            Room cached = cache.get(id);
+            if (cached != null) {
+                hits.incrementAndGet();
+                return cached;
+            }
+        }
+        return findById(id).orElse(null);
+    }
+
+    @Override
+    public List<Room> findAll() {
+        List<Room> snapshot = allRooms;
+        if (snapshot != null) {
+            hits.incrementAndGet();
+            return snapshot;
+        }
+        misses.incrementAndGet();
+        long versionBeforeLoad;
+        synchronized (cache) {
+            versionBeforeLoad = version;
+        }
+        snapshot = List.copyOf(delegate.findAll());
+        synchronized (cache) {
+            // En save under inläsningen kan ha gjort listan inaktuell redan innan den cachas
+            if (version == versionBeforeLoad) {
+                allRooms = snapshot;
+            }
+        }
+        return snapshot;
+    }
+
+    // Strömmar från samma ögonblicksbild som findAll och bygger den vid behov, eftersom
+    // sökningarna går via streamAll
+    @Override
+    public Stream<Room> streamAll() {
+        return findAll().stream();
+    }
+
+    @Override
+    public void save(Room room) {
+        delegate.save(room);
+        synchronized (cache) {
+            cache.put(room.getId(), room);
+            version++;
+            allRooms = withRoom(allRooms, room);
+        }
+    }
+
+    @Override
+    public void deleteById(String id) {
+        delegate.deleteById(id);
+        synchronized (cache) {
+            cache.remove(id);
+            version++;
+            allRooms = withoutRoom(allRooms, id);
+        }
+    }
+
+    public void invalidateAll() {
+        synchronized (cache) {
+            cache.clear();
+            version++;
+            allRooms = null;
+        }
+    }
+
+    // Oftast sparas samma instans som redan ligger i listan, och då behövs ingen ny lista
+    private static List<Room> withRoom(List<Room> rooms, Room room) {
+        if (rooms == null) {
+            return null;
+        }
+        List<Room> updated = new ArrayList<>(rooms.size() + 1);
+        boolean replaced = false;
+        for (Room existing : rooms) {
+            if (existing.getId().equals(room.getId())) {
+                if (existing == room) {
+                    return rooms;
+                }
+                updated.add(room);
+                replaced = true;
+            } else {
+                updated.add(existing);
+            }
+        }
+        if (!replaced) {
+            updated.add(room);
+        }
+        return List.copyOf(updated);
+    }
+
+    private static List<Room> withoutRoom(List<Room> rooms, String id) {
+        if (rooms == null) {
+            return null;
+        }
+        List<Room> updated = new ArrayList<>(rooms.size());
+        for (Room existing : rooms) {
+            if (!existing.getId().equals(id)) {
+                updated.add(existing);
+            }
+        }
+        return List.copyOf(updated);
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    public int size() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+}
@@ -0,0 +1,426 @@
+package com.example;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+// Kolumnlagring av ett rums bokningar i primitiva arrayer: start och slut som nanosekunder
+// sedan epok (UTC) och UUID-id som två longs. Raderna hålls sorterade på starttid tillsammans
+// med högsta sluttid hittills, så att tillgänglighet avgörs med en binärsökning.
+// Booking-objekt skapas först när de efterfrågas. Används som lagring i Room.
+public class CompactBookingStore {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final String roomId;
+    private long[] starts = new long[INITIAL_CAPACITY];
+    private long[] ends = new long[INITIAL_CAPACITY];
+    private long[] maxEndUpTo = new long[INITIAL_CAPACITY];
+    private long[] idMostBits = new long[INITIAL_CAPACITY];
+    private long[] idLeastBits = new long[INITIAL_CAPACITY];
+    // Skapas först om någon bokning har ett id som inte är ett UUID
+    private String[] otherIds;
+    // Id till starttid; raden hittas sedan med binärsökning bland rader med samma start.
+    // Radnummer går inte att lagra eftersom de flyttas vid varje insättning och borttagning.
+    private final StartTimeIndex uuidStarts = new StartTimeIndex();
+    private Map<String, Long> otherIdStarts;
+    private int size;
+
+    public CompactBookingStore(String roomId) {
+        this.roomId = roomId;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public String getRoomId() {
+        return roomId;
+    }
+
+    // En bokning med ett id som redan finns ersätter den gamla
+    public void add(Booking booking) {
+        if (!roomId.equals(booking.getRoomId())) {
+            throw new IllegalArgumentException("Bokningen tillhör ett annat rum");
+        }
+        long start = toEpochNanos(booking.getStartTime());
+        long end = toEpochNanos(booking.getEndTime());
+        remove(booking.getId());
+        ensureCapacity(size + 1);
+
+        int index = upperBound(start);
+        shift(index, index + 1, size - index);
+        starts[index] = start;
+        ends[index] = end;
+
+        String id = booking.getId();
+        if (isCanonicalUuid(id)) {
+            idMostBits[index] = mostBits(id);
+            idLeastBits[index] = leastBits(id);
+            if (otherIds != null) {
+                otherIds[index] = null;
+            }
+            uuidStarts.put(idLeastBits[index], start);
+        } else {
+            if (otherIds == null) {
+                otherIds = new String[starts.length];
+                otherIdStarts = new HashMap<>();
+            }
+            otherIds[index] = id;
+            otherIdStarts.put(id, start);
+        }
+        size++;
+
+        // Högsta sluttid hittills ändras bara fram till första raden som redan har minst lika hög
+        long previousMax = index == 0 ? Long.MIN_VALUE : maxEndUpTo[index - 1];
+        maxEndUpTo[index] = Math.max(previousMax, end);
+        for (int i = index + 1; i < size && maxEndUpTo[i] < end; i++) {
+            maxEndUpTo[i] = end;
+        }
+    }
+
+    // Returnerar den borttagna bokningen, eller null om id:t inte finns
+    public Booking remove(String bookingId) {
+        int index = indexOf(bookingId);
+        if (index < 0) {
+            return null;
+        }
+        Booking removed = bookingAt(index);
+        if (otherIds == null || otherIds[index] == null) {
+            uuidStarts.remove(idLeastBits[index], starts[index]);
+        } else {
+            otherIdStarts.remove(bookingId);
+        }
+        shift(index + 1, index, size - index - 1);
+        size--;
+        if (otherIds != null) {
+            otherIds[size] = null;
+        }
+
+        // När ett värde räknas om till samma som innan stämmer resten av kolumnen också
+        long max = index == 0 ? Long.MIN_VALUE : maxEndUpTo[index - 1];
+        for (int i = index; i < size; i++) {
+            max = Math.max(max, ends[i]);
+            if (maxEndUpTo[i] == max) {
+                break;
+            }
+            maxEndUpTo[i] = max;
+        }
+        return removed;
+    }
+
+    public boolean contains(String bookingId) {
+        return indexOf(bookingId) >= 0;
+    }
+
+    public Optional<Booking> find(String bookingId) {
+        int index = indexOf(bookingId);
+        return index < 0 ? Optional.empty() : Optional.of(bookingAt(index));
+    }
+
+    // Samma inkluderande gränser som Booking.overlaps
+    public boolean isAvailable(LocalDateTime startTime, LocalDateTime endTime) {
+        int candidates = upperBound(toQueryNanos(endTime));
+        return candidates == 0 || maxEndUpTo[candidates - 1] < toQueryNanos(startTime);
+    }
+
+    // Bokningar som överlappar intervallet, sorterade på starttid. Rader före den första vars
+    // högsta sluttid hittills når starttiden kan inte överlappa och hoppas över.
+    public List<Booking> findOverlapping(LocalDateTime startTime, LocalDateTime endTime) {
+        long start = toQueryNanos(startTime);
+        int to = upperBound(toQueryNanos(endTime));
+        List<Booking> overlapping = new ArrayList<>();
+        for (int i = firstReaching(start, to); i < to; i++) {
+            if (ends[i] >= start) {
+                overlapping.add(bookingAt(i));
+            }
+        }
+        return overlapping;
+    }
+
+    // Bokningar som slutat före angiven tid, i startordning
+    public List<Booking> findEndedBefore(LocalDateTime time) {
+        long limit = toQueryNanos(time);
+        int to = lowerBound(limit);
+        List<Booking> ended = new ArrayList<>();
+        for (int i = 0; i < to; i++) {
+            if (ends[i] < limit) {
+                ended.add(bookingAt(i));
+            }
+        }
+        return ended;
+    }
+
+    public Booking bookingAt(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        return new Booking(idAt(index), roomId, fromEpochNanos(starts[index]), fromEpochNanos(ends[index]));
+    }
+
+    public List<Booking> toBookings() {
+        List<Booking> bookings = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            bookings.add(bookingAt(i));
+        }
+        return bookings;
+    }
+
+    private int indexOf(String bookingId) {
+        if (isCanonicalUuid(bookingId)) {
+            long most = mostBits(bookingId);
+            long least = leastBits(bookingId);
+            return uuidStarts.find(least, start -> indexAmongStart(start, most, least));
+        }
+        if (otherIdStarts == null || bookingId == null) {
+            return -1;
+        }
+        Long start = otherIdStarts.get(bookingId);
+        if (start == null) {
+            return -1;
+        }
+        for (int i = lowerBound(start); i < size && starts[i] == start; i++) {
+            if (bookingId.equals(otherIds[i])) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private int indexAmongStart(long start, long most, long least) {
+        for (int i = lowerBound(start); i < size && starts[i] == start; i++) {
+            if (idMostBits[i] == most && idLeastBits[i] == least && (otherIds == null || otherIds[i] == null)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private String idAt(int index) {
+        if (otherIds != null && otherIds[index] != null) {
+            return otherIds[index];
+        }
+        return new UUID(idMostBits[index], idLeastBits[index]).toString();
+    }
+
+    // Antal rader med start < time
+    private int lowerBound(long time) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (starts[mid] < time) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // Antal rader med start <= time
+    private int upperBound(long time) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (starts[mid] <= time) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // Första raden före limit vars högsta sluttid hittills är minst time; kolumnen är växande
+    private int firstReaching(long time, int limit) {
+        int low = 0;
+        int high = limit;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (maxEndUpTo[mid] < time) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private void shift(int from, int to, int length) {
+        if (length <= 0) {
+            return;
+        }
+        System.arraycopy(starts, from, starts, to, length);
+        System.arraycopy(ends, from, ends, to, length);
+        System.arraycopy(maxEndUpTo, from, maxEndUpTo, to, length);
+        System.arraycopy(idMostBits, from, idMostBits, to, length);
+        System.arraycopy(idLeastBits, from, idLeastBits, to, length);
+        if (otherIds != null) {
+            System.arraycopy(otherIds, from, otherIds, to, length);
+        }
+    }
+
+    private void ensureCapacity(int required) {
+        if (required <= starts.length) {
+            return;
+        }
+        int capacity = Math.max(required, starts.length + (starts.length >> 1));
+        starts = Arrays.copyOf(starts, capacity);
+        ends = Arrays.copyOf(ends, capacity);
+        maxEndUpTo = Arrays.copyOf(maxEndUpTo, capacity);
+        idMostBits = Arrays.copyOf(idMostBits, capacity);
+        idLeastBits = Arrays.copyOf(idLeastBits, capacity);
+        if (otherIds != null) {
+            otherIds = Arrays.copyOf(otherIds, capacity);
+        }
+    }
+
+    // Bara id:n som skrivs exakt som UUID.toString, med gemener och bindestreck på rätt
+    // plats, lagras som två longs; annars skulle ett id som "1-2-3-4-5" komma tillbaka i en
+    // annan form. Kontrollen och tolkningen görs utan att skapa UUID- eller strängobjekt.
+    private static boolean isCanonicalUuid(String id) {
+        if (id == null || id.length() != 36) {
+            return false;
+        }
+        for (int i = 0; i < 36; i++) {
+            char c = id.charAt(i);
+            boolean valid = i == 8 || i == 13 || i == 18 || i == 23
+                    ? c == '-'
+                    : (c >= '0' && c <= '9') || (c >= 'a' && c <= 'f');
+            if (!valid) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long mostBits(String uuid) {
+        return hex(uuid, 0, 8) << 32 | hex(uuid, 9, 13) << 16 | hex(uuid, 14, 18);
+    }
+
+    private static long leastBits(String uuid) {
+        return hex(uuid, 19, 23) << 48 | hex(uuid, 24, 36);
+    }
+
+    private static long hex(String s, int from, int to) {
+        long value = 0;
+        for (int i = from; i < to; i++) {
+            value = value << 4 | Character.digit(s.charAt(i), 16);
+        }
+        return value;
+    }
+
+    private static long toEpochNanos(LocalDateTime time) {
+        try {
+            return Math.addExact(Math.multiplyExact(time.toEpochSecond(ZoneOffset.UTC), 1_000_000_000L), time.getNano());
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Tiden ligger utanför det som kan lagras kompakt");
+        }
+    }
+
+    // Frågegränser utanför det lagringsbara spannet mättas till ytterkanterna. Alla lagrade
+    // tider ligger innanför, så jämförelserna mot dem blir desamma som med den exakta tiden.
+    private static long toQueryNanos(LocalDateTime time) {
+        long seconds = time.toEpochSecond(ZoneOffset.UTC);
+        try {
+            return Math.addExact(Math.multiplyExact(seconds, 1_000_000_000L), time.getNano());
+        } catch (ArithmeticException e) {
+            return seconds < 0 ? Long.MIN_VALUE : Long.MAX_VALUE;
+        }
+    }
+
+    private static LocalDateTime fromEpochNanos(long nanos) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(nanos, 1_000_000_000L),
+                (int) Math.floorMod(nanos, 1_000_000_000L), ZoneOffset.UTC);
+    }
+
+    private interface RowLookup {
+        int indexFor(long start);
+    }
+
+    // Öppen adressering med linjär sondering från UUID:ts låga 64 bitar till bokningens starttid.
+    // Två id:n kan dela låga bitar, så varje träff prövas mot raderna tills en stämmer.
+    // Borttagning flyttar tillbaka efterföljande poster i stället för att lämna gravstenar.
+    private static final class StartTimeIndex {
+        private long[] keys = new long[INITIAL_CAPACITY];
+        private long[] values = new long[INITIAL_CAPACITY];
+        private boolean[] used = new boolean[INITIAL_CAPACITY];
+        private int count;
+
+        void put(long key, long start) {
+            if ((count + 1) * 3 > keys.length * 2) {
+                grow();
+            }
+            int slot = slotFor(key);
+            while (used[slot]) {
+                slot = (slot + 1) & (keys.length - 1);
+            }
+            keys[slot] = key;
+            values[slot] = start;
+            used[slot] = true;
+            count++;
+        }
+
+        int find(long key, RowLookup lookup) {
+            for (int slot = slotFor(key); used[slot]; slot = (slot + 1) & (keys.length - 1)) {
+                if (keys[slot] == key) {
+                    int index = lookup.indexFor(values[slot]);
+                    if (index >= 0) {
+                        return index;
+                    }
+                }
+            }
+            return -1;
+        }
+
+        void remove(long key, long start) {
+            int mask = keys.length - 1;
+            int slot = slotFor(key);
+            while (used[slot] && (keys[slot] != key || values[slot] != start)) {
+                slot = (slot + 1) & mask;
+            }
+            if (!used[slot]) {
+                return;
+            }
+            int hole = slot;
+            for (int next = (hole + 1) & mask; used[next]; next = (next + 1) & mask) {
+                int home = slotFor(keys[next]);
+                // Posten får flyttas till hålet om hålet ligger mellan dess hemplats och dess plats
+                if (((next - home) & mask) >= ((next - hole) & mask)) {
+                    keys[hole] = keys[next];
+                    values[hole] = values[next];
+                    hole = next;
+                }
+            }
+            used[hole] = false;
+            count--;
+        }
+
+        private int slotFor(long key) {
+            long mixed = key * 0x9E3779B97F4A7C15L;
+            return (int) (mixed ^ (mixed >>> 32)) & (keys.length - 1);
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            long[] oldValues = values;
+            boolean[] oldUsed = used;
+            keys = new long[oldKeys.length * 2];
+            values = new long[oldKeys.length * 2];
+            used = new boolean[oldKeys.length * 2];
+            count = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldUsed[i]) {
+                    put(oldKeys[i], oldValues[i]);
+                }
+            }
+        }
+    }
+}
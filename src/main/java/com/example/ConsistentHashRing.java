@@ -0,0 +1,54 @@
+package com.example;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+// Hashring där varje shard får ett antal virtuella noder. En nyckel ägs av första noden
+// medsols från nyckelns hash, så när en shard läggs till flyttas bara de nycklar som
+// hamnar på den nya shardens noder.
+class ConsistentHashRing {
+    private final int virtualNodes;
+    private final TreeMap<Long, String> ring = new TreeMap<>();
+
+    ConsistentHashRing(int virtualNodes) {
+        if (virtualNodes <= 0) {
+            throw new IllegalArgumentException("Antal virtuella noder måste vara positivt");
+        }
+        this.virtualNodes = virtualNodes;
+    }
+
+    ConsistentHashRing(ConsistentHashRing other) {
+        this.virtualNodes = other.virtualNodes;
+        this.ring.putAll(other.ring);
+    }
+
+    void addShard(String shardId) {
+        for (int i = 0; i < virtualNodes; i++) {
+            ring.put(hash(shardId + "#" + i), shardId);
+        }
+    }
+
+    String ownerOf(String key) {
+        if (ring.isEmpty()) {
+            throw new IllegalStateException("Inga shards har lagts till");
+        }
+        Map.Entry<Long, String> owner = ring.ceilingEntry(hash(key));
+        return owner != null ? owner.getValue() : ring.firstEntry().getValue();
+    }
+
+    // FNV-1a följt av MurmurHash3:s slutblandning; String.hashCode sprider för dåligt
+    // för närliggande id som "room1", "room2"
+    static long hash(String key) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            hash ^= key.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
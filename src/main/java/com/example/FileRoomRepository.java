@@ -0,0 +1,361 @@
+package com.example;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+// Beständigt repository: alla rum hålls i minnet, och varje bokning och avbokning läggs
+// till i en write-ahead-logg när rummet sparas. Med jämna mellanrum skrivs en komplett
+// ögonblicksbild och loggen töms. Vid start läses ögonblicksbilden och sedan loggens svans.
+//
+// Ögonblicksbilden skrivs av en bakgrundstråd, inte av den som sparar. Sparningar väntar
+// bara medan rummen kodas i minnet, inte medan filen skrivs.
+public class FileRoomRepository implements RoomRepository, AutoCloseable {
+    private static final String SNAPSHOT_FILE = "rooms.snapshot";
+    private static final String LOG_FILE = "rooms.wal";
+    private static final int DEFAULT_SNAPSHOT_INTERVAL = 10_000;
+
+    private static final byte ROOM = 1;
+    private static final byte BOOK = 2;
+    private static final byte CANCEL = 3;
+    private static final byte DELETE = 4;
+
+    private final Path snapshotPath;
+    private final int snapshotInterval;
+    private final Map<String, Room> rooms = new ConcurrentSkipListMap<>();
+    private final Map<String, List<byte[]>> pendingByRoom = new ConcurrentHashMap<>();
+    private final ReadWriteLock snapshotLock = new ReentrantReadWriteLock();
+    // Hålls under en hel ögonblicksbild, så att två bilder inte skrivs samtidigt
+    private final Lock snapshotWriter = new ReentrantLock();
+    private final AtomicBoolean snapshotScheduled = new AtomicBoolean();
+    private volatile Thread snapshotThread;
+    private final WriteAheadLog log;
+
+    private final RoomChangeListener changeListener = new RoomChangeListener() {
+        @Override
+        public void bookingAdded(Room room, Booking booking) {
+            pendingFor(room.getId()).add(encodeBooking(booking));
+        }
+
+        @Override
+        public void bookingRemoved(Room room, Booking booking) {
+            pendingFor(room.getId()).add(encodeCancellation(room.getId(), booking.getId()));
+        }
+    };
+
+    public FileRoomRepository(Path directory) {
+        this(directory, DEFAULT_SNAPSHOT_INTERVAL);
+    }
+
+    public FileRoomRepository(Path directory, int snapshotInterval) {
+        if (snapshotInterval <= 0) {
+            throw new IllegalArgumentException("Intervallet för ögonblicksbilder måste vara positivt");
+        }
+        this.snapshotPath = directory.resolve(SNAPSHOT_FILE);
+        this.snapshotInterval = snapshotInterval;
+        try {
+            Files.createDirectories(directory);
+            if (Files.exists(snapshotPath)) {
+                for (byte[] record : readSnapshot(snapshotPath)) {
+                    apply(record);
+                }
+            }
+            this.log = new WriteAheadLog(directory.resolve(LOG_FILE));
+            for (byte[] record : log.recover()) {
+                apply(record);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Kunde inte läsa in rummen från " + directory, e);
+        }
+        for (Room room : rooms.values()) {
+            room.setChangeListener(changeListener);
+        }
+    }
+
+    @Override
+    public Optional<Room> findById(String id) {
+        return Optional.ofNullable(rooms.get(id));
+    }
+
+    @Override
+    public Room findByIdOrNull(String id) {
+        return rooms.get(id);
+    }
+
+    @Override
+    public List<Room> findAll() {
+        return new ArrayList<>(rooms.values());
+    }
+
+    @Override
+    public Stream<Room> streamAll() {
+        return rooms.values().stream();
+    }
+
+    // För ett rum som redan finns här skrivs bara de bokningar och avbokningar som gjorts
+    // sedan förra sparningen. Ett nytt rum, eller en ny instans med samma id, skrivs helt.
+    @Override
+    public void save(Room room) {
+        snapshotLock.readLock().lock();
+        try {
+            List<byte[]> records;
+            Room current = rooms.get(room.getId());
+            if (current == room) {
+                records = drainPending(room.getId());
+            } else {
+                if (current != null) {
+                    current.setChangeListener(null);
+                }
+                synchronized (room) {
+                    records = encodeRoom(room);
+                    pendingByRoom.put(room.getId(), new ArrayList<>());
+                    room.setChangeListener(changeListener);
+                }
+                rooms.put(room.getId(), room);
+            }
+            if (!records.isEmpty()) {
+                log.append(records);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Kunde inte spara rummet " + room.getId(), e);
+        } finally {
+            snapshotLock.readLock().unlock();
+        }
+
+        if (log.recordCount() >= snapshotInterval && snapshotScheduled.compareAndSet(false, true)) {
+            snapshotThread = Thread.ofVirtual().name("room-snapshot").start(this::snapshotInBackground);
+        }
+    }
+
+    private void snapshotInBackground() {
+        try {
+            // En annan tråd kan redan ha skrivit ögonblicksbilden
+            if (log.recordCount() >= snapshotInterval) {
+                snapshot();
+            }
+        } catch (UncheckedIOException e) {
+            // Loggen innehåller fortfarande allt, så nästa sparning som når intervallet försöker igen
+        } finally {
+            snapshotScheduled.set(false);
+        }
+    }
+
+    @Override
+    public void deleteById(String id) {
+        snapshotLock.readLock().lock();
+        try {
+            Room removed = rooms.remove(id);
+            if (removed == null) {
+                return;
+            }
+            removed.setChangeListener(null);
+            pendingByRoom.remove(id);
+            log.append(List.of(encode(out -> {
+                out.writeByte(DELETE);
+                out.writeUTF(id);
+            })));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Kunde inte ta bort rummet " + id, e);
+        } finally {
+            snapshotLock.readLock().unlock();
+        }
+    }
+
+    public void snapshot() {
+        snapshotWriter.lock();
+        try {
+            writeSnapshot();
+        } finally {
+            snapshotWriter.unlock();
+        }
+    }
+
+    // Rummen kodas och loggens position noteras under skrivlåset. Poster som läggs till
+    // medan filen skrivs hamnar efter positionen och finns kvar i loggen efteråt.
+    private void writeSnapshot() {
+        try {
+            ByteArrayOutputStream content = new ByteArrayOutputStream();
+            long logPosition;
+            long logRecords;
+            snapshotLock.writeLock().lock();
+            try {
+                for (Room room : rooms.values()) {
+                    synchronized (room) {
+                        for (byte[] record : encodeRoom(room)) {
+                            WriteAheadLog.writeFramed(content, record);
+                        }
+                    }
+                }
+                logPosition = log.position();
+                logRecords = log.recordCount();
+            } finally {
+                snapshotLock.writeLock().unlock();
+            }
+
+            Path temporary = snapshotPath.resolveSibling(SNAPSHOT_FILE + ".tmp");
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer buffer = ByteBuffer.wrap(content.toByteArray());
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(true);
+            }
+            Files.move(temporary, snapshotPath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            // Kraschar vi innan loggen rensats spelas den gamla loggen upp ovanpå den nya
+            // ögonblicksbilden, vilket ger samma tillstånd eftersom posterna är idempotenta
+            snapshotLock.writeLock().lock();
+            try {
+                log.discardBefore(logPosition, logRecords);
+            } finally {
+                snapshotLock.writeLock().unlock();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Kunde inte skriva ögonblicksbild", e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        Thread thread = snapshotThread;
+        if (thread != null) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        log.close();
+    }
+
+    private List<byte[]> pendingFor(String roomId) {
+        return pendingByRoom.computeIfAbsent(roomId, id -> new ArrayList<>());
+    }
+
+    private List<byte[]> drainPending(String roomId) {
+        Room room = rooms.get(roomId);
+        synchronized (room) {
+            List<byte[]> pending = pendingByRoom.get(roomId);
+            if (pending == null || pending.isEmpty()) {
+                return List.of();
+            }
+            List<byte[]> drained = new ArrayList<>(pending);
+            pending.clear();
+            return drained;
+        }
+    }
+
+    private void apply(byte[] record) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(record));
+        byte type = in.readByte();
+        String roomId = in.readUTF();
+        switch (type) {
+            case ROOM -> rooms.put(roomId, new Room(roomId, in.readUTF()));
+            case BOOK -> {
+                String bookingId = in.readUTF();
+                LocalDateTime start = readTime(in);
+                LocalDateTime end = readTime(in);
+                Room room = rooms.get(roomId);
+                if (room != null) {
+                    room.addBooking(new Booking(bookingId, roomId, start, end));
+                }
+            }
+            case CANCEL -> {
+                String bookingId = in.readUTF();
+                Room room = rooms.get(roomId);
+                if (room != null) {
+                    room.removeBooking(bookingId);
+                }
+            }
+            case DELETE -> rooms.remove(roomId);
+            default -> throw new IOException("Okänd posttyp " + type);
+        }
+    }
+
+    private static List<byte[]> readSnapshot(Path path) throws IOException {
+        ByteBuffer content = ByteBuffer.wrap(Files.readAllBytes(path));
+        List<byte[]> records = new ArrayList<>();
+        if (WriteAheadLog.readRecords(content, records) != content.limit()) {
+            throw new IOException("Ögonblicksbilden är skadad: " + path);
+        }
+        return records;
+    }
+
+    private static List<byte[]> encodeRoom(Room room) {
+        List<byte[]> records = new ArrayList<>();
+        records.add(encode(out -> {
+            out.writeByte(ROOM);
+            out.writeUTF(room.getId());
+            out.writeUTF(room.getName());
+        }));
+        for (Booking booking : room.getBookings()) {
+            records.add(encodeBooking(booking));
+        }
+        return records;
+    }
+
+    private static byte[] encodeBooking(Booking booking) {
+        return encode(out -> {
+            out.writeByte(BOOK);
+            out.writeUTF(booking.getRoomId());
+            out.writeUTF(booking.getId());
+            writeTime(out, booking.getStartTime());
+            writeTime(out, booking.getEndTime());
+        });
+    }
+
+    private static byte[] encodeCancellation(String roomId, String bookingId) {
+        return encode(out -> {
+            out.writeByte(CANCEL);
+            out.writeUTF(roomId);
+            out.writeUTF(bookingId);
+        });
+    }
+
+    private static void writeTime(DataOutputStream out, LocalDateTime time) throws IOException {
+        out.writeLong(time.toEpochSecond(ZoneOffset.UTC));
+        out.writeInt(time.getNano());
+    }
+
+    private static LocalDateTime readTime(DataInputStream in) throws IOException {
+        long seconds = in.readLong();
+        return LocalDateTime.ofEpochSecond(seconds, in.readInt(), ZoneOffset.UTC);
+    }
+
+    private interface RecordWriter {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    private static byte[] encode(RecordWriter writer) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            writer.write(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,27 @@
+package com.example;
+
+import java.time.LocalDateTime;
+
+public class FreeSlot {
+    private final String roomId;
+    private final LocalDateTime startTime;
+    private final LocalDateTime endTime;
+
+    FreeSlot(String roomId, LocalDateTime startTime, LocalDateTime endTime) {
+        this.roomId = roomId;
+        this.startTime = startTime;
+        this.endTime = endTime;
+    }
+
+    public String getRoomId() {
+        return roomId;
+    }
+
+    public LocalDateTime getStartTime() {
+        return startTime;
+    }
+
+    public LocalDateTime getEndTime() {
+        return endTime;
+    }
+}
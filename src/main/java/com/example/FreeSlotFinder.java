@@ -0,0 +1,142 @@
+package com.example;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+// Hittar de tidigaste lediga tiderna genom att slå ihop varje rums luckor i en
+// prioritetskö. Ett rum läses bara så långt som behövs för att hitta dess nästa lucka,
+// och bokningarna hämtas i allt större intervall med Room.getBookings.
+final class FreeSlotFinder {
+    private static final Comparator<GapCursor> EARLIEST_FIRST = Comparator
+            .comparing((GapCursor cursor) -> cursor.slot.getStartTime())
+            .thenComparing(cursor -> cursor.slot.getRoomId());
+
+    private FreeSlotFinder() {
+    }
+
+    static List<FreeSlot> find(Iterator<Room> rooms, Duration duration, LocalDateTime from,
+                               LocalDateTime until, int limit) {
+        PriorityQueue<GapCursor> queue = new PriorityQueue<>(EARLIEST_FIRST);
+        while (rooms.hasNext()) {
+            GapCursor cursor = new GapCursor(rooms.next(), duration, from, until);
+            if (cursor.advance()) {
+                queue.add(cursor);
+            }
+        }
+
+        List<FreeSlot> slots = new ArrayList<>(Math.min(limit, queue.size()));
+        while (slots.size() < limit && !queue.isEmpty()) {
+            GapCursor cursor = queue.poll();
+            slots.add(cursor.slot);
+            if (cursor.advance()) {
+                queue.add(cursor);
+            }
+        }
+        return slots;
+    }
+
+    // Bokningar har inkluderande gränser, så en tid kan tidigast börja efter att föregående
+    // bokning slutat. Vi avrundar uppåt till nästa hela minut.
+    static LocalDateTime firstStartAfter(LocalDateTime time) {
+        return time.truncatedTo(ChronoUnit.MINUTES).plusMinutes(1);
+    }
+
+    // Går igenom ett rums luckor i tidsordning. Varje lucka ger en tid: den tidigaste
+    // starten i luckan.
+    private static final class GapCursor {
+        private final Room room;
+        private final Duration duration;
+        private final LocalDateTime until;
+        private Duration fetchLength;
+        private List<Booking> bookings = List.of();
+        private int position;
+        private LocalDateTime fetchedUntil;
+        private LocalDateTime candidate;
+        // Satt efter en hittad tid: nästa lucka börjar efter första bokningen som startar efter den här tiden
+        private LocalDateTime skipPast;
+        private FreeSlot slot;
+
+        GapCursor(Room room, Duration duration, LocalDateTime from, LocalDateTime until) {
+            this.room = room;
+            this.duration = duration;
+            this.until = until;
+            this.fetchLength = duration.multipliedBy(8);
+            this.candidate = from;
+            this.fetchedUntil = from.minusNanos(1);
+        }
+
+        boolean advance() {
+            if (skipPast != null && !skipToNextGap()) {
+                return false;
+            }
+            while (true) {
+                LocalDateTime slotEnd = candidate.plus(duration);
+                if (slotEnd.isAfter(until)) {
+                    return false;
+                }
+                if (slotEnd.isAfter(fetchedUntil)) {
+                    fetch(candidate, slotEnd);
+                }
+
+                Booking blocking = null;
+                while (position < bookings.size()) {
+                    Booking booking = bookings.get(position);
+                    if (booking.getStartTime().isAfter(slotEnd)) {
+                        break;
+                    }
+                    position++;
+                    if (!booking.getEndTime().isBefore(candidate)) {
+                        blocking = booking;
+                        break;
+                    }
+                }
+
+                if (blocking == null) {
+                    slot = new FreeSlot(room.getId(), candidate, slotEnd);
+                    skipPast = slotEnd;
+                    return true;
+                }
+                candidate = firstStartAfter(blocking.getEndTime());
+            }
+        }
+
+        private boolean skipToNextGap() {
+            while (true) {
+                while (position < bookings.size()) {
+                    Booking booking = bookings.get(position++);
+                    if (booking.getStartTime().isAfter(skipPast)) {
+                        candidate = firstStartAfter(booking.getEndTime());
+                        skipPast = null;
+                        return true;
+                    }
+                }
+                if (!fetchedUntil.isBefore(until)) {
+                    return false;
+                }
+                fetch(fetchedUntil, fetchedUntil);
+            }
+        }
+
+        // Hämtar bokningarna som överlappar [start, minst needed] och fördubblar längden
+        // inför nästa hämtning
+        private void fetch(LocalDateTime start, LocalDateTime needed) {
+            LocalDateTime end = start.plus(fetchLength);
+            if (end.isBefore(needed)) {
+                end = needed;
+            }
+            if (end.isAfter(until)) {
+                end = until;
+            }
+            bookings = room.getBookings(start, end);
+            position = 0;
+            fetchedUntil = end;
+            fetchLength = fetchLength.multipliedBy(2);
+        }
+    }
+}
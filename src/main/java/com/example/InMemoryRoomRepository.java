@@ -0,0 +1,42 @@
+package com.example;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Stream;
+
+public class InMemoryRoomRepository implements RoomRepository {
+    private final Map<String, Room> rooms = new ConcurrentSkipListMap<>();
+
+    @Override
+    public Optional<Room> findById(String id) {
+        return Optional.ofNullable(rooms.get(id));
+    }
+
+    @Override
+    public Room findByIdOrNull(String id) {
+        return rooms.get(id);
+    }
+
+    @Override
+    public List<Room> findAll() {
+        return new ArrayList<>(rooms.values());
+    }
+
+    @Override
+    public Stream<Room> streamAll() {
+        return rooms.values().stream();
+    }
+
+    @Override
+    public void save(Room room) {
+        rooms.put(room.getId(), room);
+    }
+
+    @Override
+    public void deleteById(String id) {
+        rooms.remove(id);
+    }
+}
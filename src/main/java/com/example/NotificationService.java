@@ -1,6 +1,23 @@
 package com.example;
 
+import java.util.List;
+
 public interface NotificationService {
     void sendBookingConfirmation(Booking booking) throws NotificationException;
     void sendCancellationConfirmation(Booking booking) throws NotificationException;
+
+    // Skickar flera bekräftelser i ett anrop. Standardimplementationen skickar en i taget; en
+    // tjänst med massutskick kan skriva över dem. Ett fel gäller hela anropet, så de som redan
+    // gått iväg kan skickas igen vid ett nytt försök.
+    default void sendBookingConfirmations(List<Booking> bookings) throws NotificationException {
+        for (Booking booking : bookings) {
+            sendBookingConfirmation(booking);
+        }
+    }
+
+    default void sendCancellationConfirmations(List<Booking> bookings) throws NotificationException {
+        for (Booking booking : bookings) {
+            sendCancellationConfirmation(booking);
+        }
+    }
 }
@@ -1,45 +1,69 @@
 package com.example;
 
 import java.time.LocalDateTime;
-import java.util.HashSet;
-import java.util.Set;
+import java.util.Collection;
+import java.util.List;
 
 public class Room {
     private final String id;
     private final String name;
-    private final Set<Booking> bookings = new HashSet<>();
+    // Bokningarna lagras kolumnvis och Booking-objekt skapas vid varje uppslag, så samma
+    // bokning kan komma tillbaka som olika instanser
+    private final CompactBookingStore bookings;
+    private RoomChangeListener changeListener;
 
     public Room(String id, String name) {
         this.id = id;
         this.name = name;
+        this.bookings = new CompactBookingStore(id);
     }
 
-    public boolean isAvailable(LocalDateTime startTime, LocalDateTime endTime) {
-        return bookings.stream()
-                .noneMatch(booking ->
-                        booking.overlaps(startTime, endTime));
+    public synchronized boolean isAvailable(LocalDateTime startTime, LocalDateTime endTime) {
+        return bookings.isAvailable(startTime, endTime);
     }
 
-    public void addBooking(Booking booking) {
+    public synchronized void addBooking(Booking booking) {
         bookings.add(booking);
+        if (changeListener != null) {
+            changeListener.bookingAdded(this, booking);
+        }
     }
 
-    public void removeBooking(String bookingId) {
-        bookings.removeIf(booking -> booking.getId().equals(bookingId));
+    public synchronized void removeBooking(String bookingId) {
+        Booking booking = bookings.remove(bookingId);
+        if (booking != null && changeListener != null) {
+            changeListener.bookingRemoved(this, booking);
+        }
     }
 
-    public boolean hasBooking(String bookingId) {
-        return bookings.stream()
-                .anyMatch(booking -> booking.getId().equals(bookingId));
+    public synchronized boolean hasBooking(String bookingId) {
+        return bookings.contains(bookingId);
     }
 
-    public Booking getBooking(String bookingId) {
-        return bookings.stream()
-                .filter(booking -> booking.getId().equals(bookingId))
-                .findFirst()
+    public synchronized Booking getBooking(String bookingId) {
+        return bookings.find(bookingId)
                 .orElseThrow(() -> new IllegalArgumentException("Bokning finns inte"));
     }
 
+    public synchronized Collection<Booking> getBookings() {
+        return bookings.toBookings();
+    }
+
+    // Bokningar som överlappar intervallet, sorterade på starttid
+    public synchronized List<Booking> getBookings(LocalDateTime startTime, LocalDateTime endTime) {
+        return bookings.findOverlapping(startTime, endTime);
+    }
+
+    // Bokningar som slutat före angiven tid, i startordning
+    public synchronized List<Booking> getBookingsEndedBefore(LocalDateTime time) {
+        return bookings.findEndedBefore(time);
+    }
+
+    // Används av repositoryn som vill spara enbart ändringarna i stället för hela rummet
+    synchronized void setChangeListener(RoomChangeListener changeListener) {
+        this.changeListener = changeListener;
+    }
+
     public String getId() {
         return id;
     }
@@ -0,0 +1,6 @@
+package com.example;
+
+interface RoomChangeListener {
+    void bookingAdded(Room room, Booking booking);
+    void bookingRemoved(Room room, Booking booking);
+}
@@ -0,0 +1,30 @@
+package com.example;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+// Fast uppsättning lås där varje rum-id hashas till en stripe. Bokningar i olika rum
+// går parallellt medan check-then-act för samma rum alltid serialiseras.
+class RoomLocks {
+    private final ReentrantLock[] stripes;
+    private final int mask;
+
+    RoomLocks(int stripeCount) {
+        if (stripeCount <= 0) {
+            throw new IllegalArgumentException("Antal lås måste vara positivt");
+        }
+        int size = 1;
+        while (size < stripeCount) {
+            size <<= 1;
+        }
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        this.mask = size - 1;
+    }
+
+    ReentrantLock lockFor(String roomId) {
+        int hash = roomId.hashCode();
+        return stripes[(hash ^ (hash >>> 16)) & mask];
+    }
+}
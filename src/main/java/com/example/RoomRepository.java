@@ -2,9 +2,28 @@ package com.example;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface RoomRepository {
     Optional<Room> findById(String id);
     List<Room> findAll();
     void save(Room room);
+
+    // Som findById men utan Optional, för bokningsvägen som inte ska allokera.
+    // Repositoryn som kan slå upp rummet direkt bör överlagra den.
+    default Room findByIdOrNull(String id) {
+        return findById(id).orElse(null);
+    }
+
+    // Tar bort rummet med alla dess bokningar, t.ex. när det flyttas till en annan shard.
+    // Repositoryn som inte kan ta bort rum går inte att dela upp i shards.
+    default void deleteById(String id) {
+        throw new UnsupportedOperationException("Repositoryn kan inte ta bort rum");
+    }
+
+    // Rummen ett i taget. Repositoryn mot större lagring bör läsa sida för sida här så att
+    // minnet hålls begränsat; strömmen ska stängas efter användning.
+    default Stream<Room> streamAll() {
+        return findAll().stream();
+    }
 }
@@ -0,0 +1,205 @@
+package com.example;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Fördelar rummen över flera BookingSystem med konsistent hashning av rum-id. Bokningar
+// skickas till sharden som äger rummet, avbokningar till sharden som har bokningen i sitt
+// index och sökningar går till alla shards parallellt. När en shard läggs till flyttas de
+// rum som byter ägare medan alla andra anrop väntar; misslyckas flytten flyttas alla rum
+// tillbaka och den nya sharden läggs inte till.
+public class ShardedBookingSystem {
+    private static final int DEFAULT_VIRTUAL_NODES = 128;
+
+    private final Executor executor;
+    private final Map<String, BookingSystem> shards = new LinkedHashMap<>();
+    private final ReadWriteLock topologyLock = new ReentrantReadWriteLock();
+    private ConsistentHashRing ring;
+
+    public ShardedBookingSystem(Executor executor) {
+        this(executor, DEFAULT_VIRTUAL_NODES);
+    }
+
+    public ShardedBookingSystem(Executor executor, int virtualNodes) {
+        if (executor == null) {
+            throw new IllegalArgumentException("Executor kan inte vara null");
+        }
+        this.executor = executor;
+        this.ring = new ConsistentHashRing(virtualNodes);
+    }
+
+    // Returnerar antalet rum som flyttades till den nya sharden
+    public int addShard(String shardId, BookingSystem shard) {
+        if (shardId == null || shard == null) {
+            throw new IllegalArgumentException("Shard kräver id och bokningssystem");
+        }
+
+        topologyLock.writeLock().lock();
+        try {
+            if (shards.containsKey(shardId)) {
+                throw new IllegalArgumentException("Sharden finns redan: " + shardId);
+            }
+            ConsistentHashRing rebalanced = new ConsistentHashRing(ring);
+            rebalanced.addShard(shardId);
+
+            Map<BookingSystem, List<Room>> moved = new LinkedHashMap<>();
+            int movedCount = 0;
+            try {
+                for (BookingSystem source : shards.values()) {
+                    List<Room> rooms = source.removeRooms(roomId -> shardId.equals(rebalanced.ownerOf(roomId)));
+                    moved.put(source, rooms);
+                    shard.addRooms(rooms);
+                    movedCount += rooms.size();
+                }
+            } catch (RuntimeException e) {
+                rollBack(shard, moved, e);
+                throw e;
+            }
+
+            shards.put(shardId, shard);
+            ring = rebalanced;
+            return movedCount;
+        } finally {
+            topologyLock.writeLock().unlock();
+        }
+    }
+
+    // Tar bort de flyttade rummen från den nya sharden, även de som bara hann läggas till
+    // delvis, och lämnar tillbaka dem till sina tidigare shards
+    private static void rollBack(BookingSystem target, Map<BookingSystem, List<Room>> moved, RuntimeException failure) {
+        Set<String> movedIds = new HashSet<>();
+        for (List<Room> rooms : moved.values()) {
+            for (Room room : rooms) {
+                movedIds.add(room.getId());
+            }
+        }
+        try {
+            target.removeRooms(movedIds::contains);
+        } catch (RuntimeException e) {
+            failure.addSuppressed(e);
+        }
+        for (Map.Entry<BookingSystem, List<Room>> entry : moved.entrySet()) {
+            try {
+                entry.getKey().addRooms(entry.getValue());
+            } catch (RuntimeException e) {
+                failure.addSuppressed(e);
+            }
+        }
+    }
+
+    public void addRoom(Room room) {
+        if (room == null || room.getId() == null) {
+            throw new IllegalArgumentException("Rum kräver ett id");
+        }
+        topologyLock.readLock().lock();
+        try {
+            shardFor(room.getId()).addRooms(List.of(room));
+        } finally {
+            topologyLock.readLock().unlock();
+        }
+    }
+
+    public boolean bookRoom(String roomId, LocalDateTime startTime, LocalDateTime endTime) {
+        if (roomId == null) {
+            throw new IllegalArgumentException("Bokning kräver giltiga start- och sluttider samt rum-id");
+        }
+        topologyLock.readLock().lock();
+        try {
+            return shardFor(roomId).bookRoom(roomId, startTime, endTime);
+        } finally {
+            topologyLock.readLock().unlock();
+        }
+    }
+
+    // Boknings-id säger inget om rummet, så ägaren hittas via shardernas bokningsindex, som
+    // var och en bara går igenom sina rum så länge indexet inte är fullständigt. Bara sharden
+    // som har bokningen avbokar.
+    public boolean cancelBooking(String bookingId) {
+        if (bookingId == null) {
+            throw new IllegalArgumentException("Boknings-id kan inte vara null");
+        }
+        topologyLock.readLock().lock();
+        try {
+            for (BookingSystem shard : shards.values()) {
+                if (shard.hasBooking(bookingId)) {
+                    return shard.cancelBooking(bookingId);
+                }
+            }
+            return false;
+        } finally {
+            topologyLock.readLock().unlock();
+        }
+    }
+
+    // Resultatet sorteras på rum-id så att ordningen inte beror på fördelningen
+    public List<Room> getAvailableRooms(LocalDateTime startTime, LocalDateTime endTime) {
+        if (startTime == null || endTime == null) {
+            throw new IllegalArgumentException("Måste ange både start- och sluttid");
+        }
+
+        if (endTime.isBefore(startTime)) {
+            throw new IllegalArgumentException("Sluttid måste vara efter starttid");
+        }
+
+        topologyLock.readLock().lock();
+        try {
+            List<CompletableFuture<List<Room>>> results = new ArrayList<>();
+            for (BookingSystem shard : shards.values()) {
+                results.add(CompletableFuture.supplyAsync(() -> shard.getAvailableRooms(startTime, endTime), executor));
+            }
+
+            List<Room> merged = new ArrayList<>();
+            for (CompletableFuture<List<Room>> result : results) {
+                merged.addAll(join(result));
+            }
+            merged.sort(Comparator.comparing(Room::getId));
+            return merged;
+        } finally {
+            topologyLock.readLock().unlock();
+        }
+    }
+
+    public int getShardCount() {
+        topologyLock.readLock().lock();
+        try {
+            return shards.size();
+        } finally {
+            topologyLock.readLock().unlock();
+        }
+    }
+
+    public String getShardIdFor(String roomId) {
+        topologyLock.readLock().lock();
+        try {
+            return ring.ownerOf(roomId);
+        } finally {
+            topologyLock.readLock().unlock();
+        }
+    }
+
+    private BookingSystem shardFor(String roomId) {
+        return shards.get(ring.ownerOf(roomId));
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
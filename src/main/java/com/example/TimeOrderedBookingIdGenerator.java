@@ -0,0 +1,21 @@
+package com.example;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Id:n i UUID version 7-format: millisekunder sedan epok överst och resten från trådens
+// egen ThreadLocalRandom. Ingen delad slumpkälla eller räknare, så trådar väntar aldrig på
+// varandra, och id:n sorteras ungefär i skapandeordning. De går däremot delvis att gissa,
+// så de passar inte där boknings-id används som hemlighet.
+public class TimeOrderedBookingIdGenerator implements BookingIdGenerator {
+    private static final long VERSION_7 = 0x7000L;
+    private static final long VARIANT = 0x8000_0000_0000_0000L;
+
+    @Override
+    public String nextId() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long mostBits = (System.currentTimeMillis() << 16) | VERSION_7 | (random.nextLong() & 0x0FFFL);
+        long leastBits = VARIANT | (random.nextLong() >>> 2);
+        return new UUID(mostBits, leastBits).toString();
+    }
+}
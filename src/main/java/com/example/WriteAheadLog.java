@@ -0,0 +1,240 @@
+package com.example;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+// Loggfil med poster på formen [längd][crc32][data]. Skrivare som kommer samtidigt delar
+// på en write + force: den som får commit-låset skriver allt som köats, och de som väntade
+// på låset ser att deras poster redan är på disk.
+//
+// Misslyckas en skrivning misslyckas alla i samma grupp, och loggen tar sedan inte emot
+// fler poster. Den måste öppnas på nytt, och då läses det som faktiskt kom till disk.
+class WriteAheadLog implements AutoCloseable {
+    private static final int HEADER_BYTES = 8;
+
+    private final Path path;
+    // Byts ut av discardBefore
+    private volatile FileChannel channel;
+    private final Object appendLock = new Object();
+    private final ReentrantLock commitLock = new ReentrantLock();
+    private final ByteArrayOutputStream pending = new ByteArrayOutputStream();
+    private long appendedSequence;
+    private long committedSequence;
+    private long recordCount;
+    // Sätts när en gruppskrivning misslyckats; därefter avvisas alla append
+    private volatile IOException failure;
+
+    WriteAheadLog(Path path) throws IOException {
+        this.path = path;
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    // Läser alla hela poster och klipper bort en halvskriven svans efter en krasch. En skadad
+    // post mitt i filen är inte en halvskriven svans, och då avbryts inläsningen i stället.
+    List<byte[]> recover() throws IOException {
+        ByteBuffer content = ByteBuffer.allocate((int) channel.size());
+        while (content.hasRemaining() && channel.read(content, content.position()) >= 0) {
+            // läser tills bufferten är full
+        }
+        content.flip();
+        List<byte[]> records = new ArrayList<>();
+        long validEnd = readRecords(content, records);
+        if (validEnd < content.limit() && !isTornTail(content, (int) validEnd)) {
+            throw new IOException("Loggen är skadad vid position " + validEnd + ": " + path);
+        }
+        channel.truncate(validEnd);
+        channel.position(validEnd);
+        recordCount = records.size();
+        return records;
+    }
+
+    void append(List<byte[]> records) throws IOException {
+        long sequence;
+        synchronized (appendLock) {
+            ensureWritable();
+            for (byte[] record : records) {
+                writeFramed(pending, record);
+            }
+            recordCount += records.size();
+            sequence = ++appendedSequence;
+        }
+
+        commitLock.lock();
+        try {
+            if (committedSequence >= sequence) {
+                return;
+            }
+            // Posten låg i en grupp som inte kom till disk, eller köades efter den
+            ensureWritable();
+            byte[] batch;
+            long upTo;
+            synchronized (appendLock) {
+                batch = pending.toByteArray();
+                pending.reset();
+                upTo = appendedSequence;
+            }
+            long start = -1;
+            try {
+                start = channel.position();
+                ByteBuffer buffer = ByteBuffer.wrap(batch);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(false);
+            } catch (IOException e) {
+                fence(e, start);
+                throw e;
+            }
+            committedSequence = upTo;
+        } finally {
+            commitLock.unlock();
+        }
+    }
+
+    // Anropas med commit-låset. Gruppen tas bort från filen om det går, så att den inte
+    // spelas upp vid nästa start trots att alla i den fick ett fel.
+    private void fence(IOException cause, long start) {
+        synchronized (appendLock) {
+            failure = cause;
+            pending.reset();
+        }
+        if (start < 0) {
+            return;
+        }
+        try {
+            channel.truncate(start);
+        } catch (IOException e) {
+            cause.addSuppressed(e);
+        }
+    }
+
+    private void ensureWritable() throws IOException {
+        IOException cause = failure;
+        if (cause != null) {
+            throw new IOException("Loggen tar inte emot fler poster efter ett skrivfel", cause);
+        }
+    }
+
+    // Position efter sista posten på disk. Får bara anropas när inga append pågår.
+    long position() throws IOException {
+        commitLock.lock();
+        try {
+            return channel.position();
+        } finally {
+            commitLock.unlock();
+        }
+    }
+
+    long recordCount() {
+        synchronized (appendLock) {
+            return recordCount;
+        }
+    }
+
+    // Tar bort de records första posterna, som slutar vid position, och behåller resten. Resten
+    // skrivs till en ny fil som sedan ersätter loggen, så en krasch lämnar antingen den gamla
+    // eller den nya loggen kvar. Får bara anropas när inga append pågår.
+    void discardBefore(long position, long records) throws IOException {
+        commitLock.lock();
+        try {
+            ensureWritable();
+            long end = channel.position();
+            ByteBuffer tail = ByteBuffer.allocate((int) (end - position));
+            while (tail.hasRemaining() && channel.read(tail, position + tail.position()) >= 0) {
+                // läser tills bufferten är full
+            }
+            tail.flip();
+            if (!tail.hasRemaining()) {
+                channel.truncate(0);
+                channel.position(0);
+                channel.force(true);
+            } else {
+                Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+                try (FileChannel rewritten = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                    while (tail.hasRemaining()) {
+                        rewritten.write(tail);
+                    }
+                    rewritten.force(true);
+                }
+                Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                channel.close();
+                channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                channel.position(channel.size());
+            }
+            synchronized (appendLock) {
+                recordCount -= records;
+            }
+        } finally {
+            commitLock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    static void writeFramed(ByteArrayOutputStream out, byte[] record) {
+        CRC32 crc = new CRC32();
+        crc.update(record);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        header.putInt(record.length);
+        header.putInt((int) crc.getValue());
+        out.write(header.array(), 0, HEADER_BYTES);
+        out.write(record, 0, record.length);
+    }
+
+    // En halvskriven grupp slutar alltid vid filens slut: antingen räcker inte bytes till
+    // huvudet eller posten, eller så är det den sista posten som har fel checksumma. Efter
+    // ett strömavbrott kan svansen också vara nollor, från förallokerat utrymme eller block
+    // som aldrig skrevs, och då är allt från positionen till slutet noll.
+    private static boolean isTornTail(ByteBuffer content, int start) {
+        int remaining = content.limit() - start;
+        if (remaining < HEADER_BYTES) {
+            return true;
+        }
+        int length = content.getInt(start);
+        if (length == 0) {
+            for (int i = start; i < content.limit(); i++) {
+                if (content.get(i) != 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return length < 0 || length >= remaining - HEADER_BYTES;
+    }
+
+    // Returnerar positionen efter sista hela och oskadade posten. Ingen post är tom, och
+    // checksumman för noll bytes är noll, så längden noll skulle annars läsa nollor som poster.
+    static long readRecords(ByteBuffer content, List<byte[]> records) {
+        while (content.remaining() >= HEADER_BYTES) {
+            int start = content.position();
+            int length = content.getInt();
+            int checksum = content.getInt();
+            if (length <= 0 || length > content.remaining()) {
+                return start;
+            }
+            byte[] record = new byte[length];
+            content.get(record);
+            CRC32 crc = new CRC32();
+            crc.update(record);
+            if ((int) crc.getValue() != checksum) {
+                return start;
+            }
+            records.add(record);
+        }
+        return content.position();
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+// Räknare per operation och utfall, latenshistogram per operation samt utfallet av
+// notifieringar. Allt ligger i arrayer indexerade på enumvärdenas ordinal så att
+// inspelning inte allokerar.
+public class BookingMetrics {
+    private static final Operation[] OPERATIONS = Operation.values();
+    private static final Outcome[] OUTCOMES = Outcome.values();
+
+    private final LatencyHistogram[] latencies = new LatencyHistogram[OPERATIONS.length];
+    private final LongAdder[][] outcomes = new LongAdder[OPERATIONS.length][OUTCOMES.length];
+    private final LongAdder notificationsSent = new LongAdder();
+    private final LongAdder notificationsFailed = new LongAdder();
+
+    public BookingMetrics() {
+        for (Operation operation : OPERATIONS) {
+            latencies[operation.ordinal()] = new LatencyHistogram();
+            for (Outcome outcome : OUTCOMES) {
+                outcomes[operation.ordinal()][outcome.ordinal()] = new LongAdder();
+            }
+        }
+    }
+
+    public void record(Operation operation, Outcome outcome, long nanos) {
+        outcomes[operation.ordinal()][outcome.ordinal()].increment();
+        latencies[operation.ordinal()].record(nanos);
+    }
+
+    public void recordNotification(boolean delivered) {
+        if (delivered) {
+            notificationsSent.increment();
+        } else {
+            notificationsFailed.increment();
+        }
+    }
+
+    public long getCount(Operation operation, Outcome outcome) {
+        return outcomes[operation.ordinal()][outcome.ordinal()].sum();
+    }
+
+    public LatencySnapshot getLatency(Operation operation) {
+        return latencies[operation.ordinal()].snapshot();
+    }
+
+    public long getNotificationsSent() {
+        return notificationsSent.sum();
+    }
+
+    public long getNotificationsFailed() {
+        return notificationsFailed.sum();
+    }
+
+    public double getNotificationSuccessRate() {
+        long sent = notificationsSent.sum();
+        long total = sent + notificationsFailed.sum();
+        return total == 0 ? 1.0 : (double) sent / total;
+    }
+
+    // Namnen blir t.ex. "bookRoom.conflict", "bookRoom.latency" och "notification.failed"
+    public void exportTo(MetricsExporter exporter) {
+        for (Operation operation : OPERATIONS) {
+            for (Outcome outcome : OUTCOMES) {
+                exporter.exportCounter(operation.getMetricName() + "." + outcome.getMetricName(),
+                        getCount(operation, outcome));
+            }
+            exporter.exportLatency(operation.getMetricName() + ".latency", getLatency(operation));
+        }
+        exporter.exportCounter("notification.sent", getNotificationsSent());
+        exporter.exportCounter("notification.failed", getNotificationsFailed());
+    }
+}
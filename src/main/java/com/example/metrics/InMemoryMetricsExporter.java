@@ -0,0 +1,32 @@
+package com.example.metrics;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class InMemoryMetricsExporter implements MetricsExporter {
+    private final Map<String, Long> counters = new ConcurrentHashMap<>();
+    private final Map<String, LatencySnapshot> latencies = new ConcurrentHashMap<>();
+
+    @Override
+    public void exportCounter(String name, long value) {
+        counters.put(name, value);
+    }
+
+    @Override
+    public void exportLatency(String name, LatencySnapshot snapshot) {
+        latencies.put(name, snapshot);
+    }
+
+    public long getCounter(String name) {
+        return counters.getOrDefault(name, 0L);
+    }
+
+    public Optional<LatencySnapshot> getLatency(String name) {
+        return Optional.ofNullable(latencies.get(name));
+    }
+
+    public Map<String, Long> getCounters() {
+        return Map.copyOf(counters);
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.metrics;
+
+// Mottagare av mätvärden, t.ex. en adapter mot ett övervakningssystem
+public interface MetricsExporter {
+    void exportCounter(String name, long value);
+    void exportLatency(String name, LatencySnapshot snapshot);
+}
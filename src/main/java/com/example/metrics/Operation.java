@@ -0,0 +1,19 @@
+package com.example.metrics;
+
+public enum Operation {
+    BOOK_ROOM("bookRoom"),
+    // En post per förfrågan i batchen, med hela batchens tid som latens
+    BOOK_ROOMS("bookRooms"),
+    CANCEL_BOOKING("cancelBooking"),
+    GET_AVAILABLE_ROOMS("getAvailableRooms");
+
+    private final String metricName;
+
+    Operation(String metricName) {
+        this.metricName = metricName;
+    }
+
+    public String getMetricName() {
+        return metricName;
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.metrics;
+
+public enum Outcome {
+    SUCCESS("success"),
+    // Ogiltiga argument eller ett tillstånd som inte tillåter operationen
+    INVALID("invalid"),
+    // Rummet var upptaget, t.ex. för att en annan tråd hann boka först
+    CONFLICT("conflict"),
+    // Bokningen fanns inte, eller hann avbokas av någon annan
+    NOT_FOUND("notFound");
+
+    private final String metricName;
+
+    Outcome(String metricName) {
+        this.metricName = metricName;
+    }
+
+    public String getMetricName() {
+        return metricName;
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.payment;
+
+public class ChargeResult {
+    private final PaymentStatus status;
+    private final String transactionId;
+
+    public ChargeResult(PaymentStatus status, String transactionId) {
+        if (status == null) {
+            throw new IllegalArgumentException("Status saknas");
+        }
+        this.status = status;
+        this.transactionId = transactionId;
+    }
+
+    public PaymentStatus getStatus() {
+        return status;
+    }
+
+    // Betaltjänstens id för transaktionen, eller null om betalningen nekades
+    public String getTransactionId() {
+        return transactionId;
+    }
+}
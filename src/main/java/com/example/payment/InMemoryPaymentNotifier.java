@@ -0,0 +1,19 @@
+package com.example.payment;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// Sparar bekräftelserna i stället för att skicka dem, för tester och lasttester utan mejlserver
+public class InMemoryPaymentNotifier implements PaymentNotifier {
+    private final List<PaymentRecord> sent = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void sendPaymentConfirmation(String email, PaymentRecord record) {
+        sent.add(record);
+    }
+
+    public List<PaymentRecord> getSent() {
+        return new ArrayList<>(sent);
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.payment;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class InMemoryPaymentRepository implements PaymentRepository {
+    private final Map<String, PaymentRecord> records = new ConcurrentHashMap<>();
+    private final AtomicInteger batches = new AtomicInteger();
+
+    @Override
+    public Optional<PaymentRecord> findByIdempotencyKey(String idempotencyKey) {
+        return Optional.ofNullable(records.get(idempotencyKey));
+    }
+
+    @Override
+    public void saveAll(List<PaymentRecord> records) {
+        for (PaymentRecord record : records) {
+            this.records.put(record.getIdempotencyKey(), record);
+        }
+        batches.incrementAndGet();
+    }
+
+    public int size() {
+        return records.size();
+    }
+
+    // Antal anrop till saveAll
+    public int getBatchCount() {
+        return batches.get();
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.payment;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Optional;
+import javax.sql.DataSource;
+
+// Förväntar sig tabellen
+//   payments (idempotency_key VARCHAR PRIMARY KEY, amount_minor BIGINT, status VARCHAR,
+//             transaction_id VARCHAR, processed_at TIMESTAMP)
+// Alla värden skickas som parametrar till förberedda satser, och en batch skrivs med
+// executeBatch i en transaktion.
+public class JdbcPaymentRepository implements PaymentRepository {
+    static final String INSERT_SQL = "INSERT INTO payments (idempotency_key, amount_minor, status, transaction_id, processed_at)"
+            + " VALUES (?, ?, ?, ?, ?)";
+    static final String SELECT_SQL = "SELECT idempotency_key, amount_minor, status, transaction_id, processed_at"
+            + " FROM payments WHERE idempotency_key = ?";
+
+    private final DataSource dataSource;
+
+    public JdbcPaymentRepository(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    @Override
+    public Optional<PaymentRecord> findByIdempotencyKey(String idempotencyKey) {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(SELECT_SQL)) {
+            statement.setString(1, idempotencyKey);
+            try (ResultSet result = statement.executeQuery()) {
+                if (!result.next()) {
+                    return Optional.empty();
+                }
+                Timestamp processedAt = result.getTimestamp(5);
+                return Optional.of(new PaymentRecord(result.getString(1), result.getLong(2),
+                        PaymentStatus.valueOf(result.getString(3)), result.getString(4),
+                        processedAt == null ? null : processedAt.toLocalDateTime()));
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Kunde inte läsa betalningen " + idempotencyKey, e);
+        }
+    }
+
+    @Override
+    public void saveAll(List<PaymentRecord> records) {
+        if (records.isEmpty()) {
+            return;
+        }
+        try (Connection connection = dataSource.getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try (PreparedStatement statement = connection.prepareStatement(INSERT_SQL)) {
+                for (PaymentRecord record : records) {
+                    statement.setString(1, record.getIdempotencyKey());
+                    statement.setLong(2, record.getAmountMinor());
+                    statement.setString(3, record.getStatus().name());
+                    statement.setString(4, record.getTransactionId());
+                    statement.setTimestamp(5, record.getProcessedAt() == null ? null : Timestamp.valueOf(record.getProcessedAt()));
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Kunde inte spara " + records.size() + " betalningar", e);
+        }
+    }
+}
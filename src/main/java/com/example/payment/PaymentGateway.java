@@ -0,0 +1,6 @@
+package com.example.payment;
+
+public interface PaymentGateway {
+    // Samma idempotensnyckel ska ge samma resultat utan att kortet debiteras igen
+    ChargeResult charge(String idempotencyKey, long amountMinor) throws PaymentGatewayException;
+}
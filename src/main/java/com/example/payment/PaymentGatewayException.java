@@ -0,0 +1,15 @@
+package com.example.payment;
+
+// Betaltjänsten svarade inte eller svarade med ett fel. Det är okänt om kortet
+// debiterades, så anropet får göras om med samma idempotensnyckel.
+public class PaymentGatewayException extends Exception {
+    private static final long serialVersionUID = 1L;
+
+    public PaymentGatewayException(String message) {
+        super(message);
+    }
+
+    public PaymentGatewayException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
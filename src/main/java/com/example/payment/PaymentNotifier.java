@@ -0,0 +1,7 @@
+package com.example.payment;
+
+import com.example.NotificationException;
+
+public interface PaymentNotifier {
+    void sendPaymentConfirmation(String email, PaymentRecord record) throws NotificationException;
+}
@@ -1,23 +1,253 @@
 package com.example.payment;
 
-//public class PaymentProcessor {
-//    private static final String API_KEY = "sk_test_123456";
-//
-//    public boolean processPayment(double amount) {
-//        // Anropar extern betaltjänst direkt med statisk API-nyckel
-//        PaymentApiResponse response = PaymentApi.charge(API_KEY, amount);
-//
-//        // Skriver till databas direkt
-//        if (response.isSuccess()) {
-//            DatabaseConnection.getInstance()
-//                    .executeUpdate("INSERT INTO payments (amount, status) VALUES (" + amount + ", 'SUCCESS')");
-//        }
+import com.example.NotificationException;
+import com.example.TimeProvider;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Genomför betalningar utan att anroparen väntar. Debiteringen görs på den injicerade
+// executorn, posten sparas tillsammans med andra i en batch, och bekräftelsen skickas
+// först när posten är sparad. Den returnerade framtiden blir klar när posten är sparad.
 //
-//        // Skickar e-post direkt
-//        if (response.isSuccess()) {
-//            EmailService.sendPaymentConfirmation("user@example.com", amount);
-//        }
+// Varje betalning har en idempotensnyckel. Ett nytt försök med samma nyckel medan
+// betalningen pågår får samma framtid, och ett försök efter att den sparats får den
+// sparade posten. Om betaltjänsten eller databasen fallerar tas nyckeln bort så att
+// anroparen kan försöka igen. Betaltjänsten får då samma nyckel och debiterar inte
+// kortet en gång till.
 //
-//        return response.isSuccess();
-//    }
-//}
+// Skrivtråden arbetar tills processorn är stängd och inga betalningar pågår. Kontrollen av
+// closed och registreringen i inFlight görs under läslåset, och close() sätter closed under
+// skrivlåset, så ingen betalning kan registreras efter att skrivtråden bedömt att den är klar.
+public class PaymentProcessor implements AutoCloseable {
+    private static final int DEFAULT_QUEUE_CAPACITY = 10_000;
+    private static final int DEFAULT_BATCH_SIZE = 100;
+
+    private record Pending(long amountMinor, CompletableFuture<PaymentRecord> future) {
+    }
+
+    private record Write(PaymentRecord record, String email, Pending pending) {
+    }
+
+    private final PaymentGateway gateway;
+    private final PaymentRepository repository;
+    private final PaymentNotifier notifier;
+    private final Executor executor;
+    private final TimeProvider timeProvider;
+    private final int batchSize;
+    private final Map<String, Pending> inFlight = new ConcurrentHashMap<>();
+    private final BlockingQueue<Write> writes;
+    private final Thread writer;
+    private final AtomicLong failedNotifications = new AtomicLong();
+    private final ReadWriteLock stateLock = new ReentrantReadWriteLock();
+    private volatile boolean closed;
+
+    public PaymentProcessor(PaymentGateway gateway, PaymentRepository repository, PaymentNotifier notifier,
+                            Executor executor, TimeProvider timeProvider) {
+        this(gateway, repository, notifier, executor, timeProvider, DEFAULT_QUEUE_CAPACITY, DEFAULT_BATCH_SIZE);
+    }
+
+    public PaymentProcessor(PaymentGateway gateway, PaymentRepository repository, PaymentNotifier notifier,
+                            Executor executor, TimeProvider timeProvider, int queueCapacity, int batchSize) {
+        if (gateway == null || repository == null || notifier == null || executor == null || timeProvider == null) {
+            throw new IllegalArgumentException("Betaltjänst, lagring, notifiering, executor och tid måste anges");
+        }
+        if (queueCapacity <= 0 || batchSize <= 0) {
+            throw new IllegalArgumentException("Kapacitet och batchstorlek måste vara positiva");
+        }
+        this.gateway = gateway;
+        this.repository = repository;
+        this.notifier = notifier;
+        this.executor = executor;
+        this.timeProvider = timeProvider;
+        this.batchSize = batchSize;
+        this.writes = new ArrayBlockingQueue<>(queueCapacity);
+        this.writer = Thread.ofVirtual().name("payment-writer").start(this::writeLoop);
+    }
+
+    // Beloppet anges i minsta valutaenhet, till exempel öre
+    public CompletableFuture<PaymentRecord> processPayment(String idempotencyKey, long amountMinor, String email) {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            throw new IllegalArgumentException("Idempotensnyckel saknas");
+        }
+        if (amountMinor <= 0) {
+            throw new IllegalArgumentException("Beloppet måste vara positivt");
+        }
+
+        Pending pending = new Pending(amountMinor, new CompletableFuture<>());
+        Pending existing;
+        Lock lock = stateLock.readLock();
+        lock.lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("Betalningsprocessorn är stängd");
+            }
+            existing = inFlight.putIfAbsent(idempotencyKey, pending);
+        } finally {
+            lock.unlock();
+        }
+        if (existing != null) {
+            if (existing.amountMinor() != amountMinor) {
+                return CompletableFuture.failedFuture(new IllegalArgumentException(
+                        "Idempotensnyckeln används redan för ett annat belopp"));
+            }
+            return existing.future().copy();
+        }
+
+        try {
+            executor.execute(() -> charge(idempotencyKey, pending, email));
+        } catch (RejectedExecutionException e) {
+            fail(idempotencyKey, pending, e);
+        }
+        return pending.future().copy();
+    }
+
+    public int getInFlightCount() {
+        return inFlight.size();
+    }
+
+    public long getFailedNotificationCount() {
+        return failedNotifications.get();
+    }
+
+    // Slutar ta emot betalningar och väntar tills alla pågående betalningar är sparade. Om
+    // tråden avbryts under väntan misslyckas de betalningar som inte hunnit sparas; de kan
+    // göras om med samma idempotensnyckel utan att kortet debiteras igen.
+    @Override
+    public void close() {
+        Lock lock = stateLock.writeLock();
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        } finally {
+            lock.unlock();
+        }
+
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            writer.interrupt();
+            Thread.currentThread().interrupt();
+        }
+        // Skrivtråden avbröts med debiterade betalningar kvar i kön
+        List<Write> remaining = new ArrayList<>();
+        writes.drainTo(remaining);
+        save(remaining);
+        IllegalStateException stopped = new IllegalStateException("Betalningsprocessorn stängdes innan betalningen sparades");
+        for (Map.Entry<String, Pending> entry : inFlight.entrySet()) {
+            fail(entry.getKey(), entry.getValue(), stopped);
+        }
+    }
+
+    private void charge(String idempotencyKey, Pending pending, String email) {
+        try {
+            Optional<PaymentRecord> saved = repository.findByIdempotencyKey(idempotencyKey);
+            if (saved.isPresent()) {
+                complete(idempotencyKey, pending, saved.get());
+                return;
+            }
+            ChargeResult result = gateway.charge(idempotencyKey, pending.amountMinor());
+            PaymentRecord record = new PaymentRecord(idempotencyKey, pending.amountMinor(), result.getStatus(),
+                    result.getTransactionId(), timeProvider.getCurrentTime());
+            writes.put(new Write(record, email, pending));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            fail(idempotencyKey, pending, e);
+        } catch (PaymentGatewayException | RuntimeException e) {
+            fail(idempotencyKey, pending, e);
+        }
+    }
+
+    private void complete(String idempotencyKey, Pending pending, PaymentRecord record) {
+        if (record.getAmountMinor() != pending.amountMinor()) {
+            fail(idempotencyKey, pending, new IllegalArgumentException(
+                    "Idempotensnyckeln används redan för ett annat belopp"));
+            return;
+        }
+        // Posten är redan sparad, så ett nytt försök som inte hittar nyckeln får den från lagringen
+        inFlight.remove(idempotencyKey, pending);
+        pending.future().complete(record);
+    }
+
+    private void fail(String idempotencyKey, Pending pending, Throwable cause) {
+        inFlight.remove(idempotencyKey, pending);
+        pending.future().completeExceptionally(cause);
+    }
+
+    private void writeLoop() {
+        List<Write> batch = new ArrayList<>(batchSize);
+        while (!closed || !writes.isEmpty() || !inFlight.isEmpty()) {
+            try {
+                Write first = writes.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                writes.drainTo(batch, batchSize - 1);
+                save(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void save(List<Write> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        List<PaymentRecord> records = new ArrayList<>(batch.size());
+        for (Write write : batch) {
+            records.add(write.record());
+        }
+        try {
+            repository.saveAll(records);
+        } catch (RuntimeException e) {
+            for (Write write : batch) {
+                fail(write.record().getIdempotencyKey(), write.pending(), e);
+            }
+            return;
+        }
+        // Bekräftelsen läggs på executorn innan framtiden blir klar, så att en anropare som
+        // väntar in executorn efter betalningen också väntar in bekräftelsen
+        for (Write write : batch) {
+            if (write.record().getStatus() == PaymentStatus.SUCCEEDED && write.email() != null) {
+                notifyAsync(write.email(), write.record());
+            }
+            complete(write.record().getIdempotencyKey(), write.pending(), write.record());
+        }
+    }
+
+    private void notifyAsync(String email, PaymentRecord record) {
+        try {
+            executor.execute(() -> {
+                try {
+                    notifier.sendPaymentConfirmation(email, record);
+                } catch (NotificationException | RuntimeException e) {
+                    // Betalningen är genomförd även om bekräftelsen inte kommer fram
+                    failedNotifications.incrementAndGet();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            failedNotifications.incrementAndGet();
+        }
+    }
+}
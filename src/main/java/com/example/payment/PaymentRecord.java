@@ -0,0 +1,41 @@
+package com.example.payment;
+
+import java.time.LocalDateTime;
+
+// Belopp anges i minsta valutaenhet, till exempel öre
+public class PaymentRecord {
+    private final String idempotencyKey;
+    private final long amountMinor;
+    private final PaymentStatus status;
+    private final String transactionId;
+    private final LocalDateTime processedAt;
+
+    public PaymentRecord(String idempotencyKey, long amountMinor, PaymentStatus status, String transactionId,
+                         LocalDateTime processedAt) {
+        this.idempotencyKey = idempotencyKey;
+        this.amountMinor = amountMinor;
+        this.status = status;
+        this.transactionId = transactionId;
+        this.processedAt = processedAt;
+    }
+
+    public String getIdempotencyKey() {
+        return idempotencyKey;
+    }
+
+    public long getAmountMinor() {
+        return amountMinor;
+    }
+
+    public PaymentStatus getStatus() {
+        return status;
+    }
+
+    public String getTransactionId() {
+        return transactionId;
+    }
+
+    public LocalDateTime getProcessedAt() {
+        return processedAt;
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.payment;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface PaymentRepository {
+    Optional<PaymentRecord> findByIdempotencyKey(String idempotencyKey);
+
+    // Sparar alla poster eller ingen
+    void saveAll(List<PaymentRecord> records);
+}
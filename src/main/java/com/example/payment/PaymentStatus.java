@@ -0,0 +1,6 @@
+package com.example.payment;
+
+public enum PaymentStatus {
+    SUCCEEDED,
+    DECLINED
+}
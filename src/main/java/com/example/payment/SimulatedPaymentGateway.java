@@ -0,0 +1,59 @@
+package com.example.payment;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Lokal betaltjänst för tester och lasttester. Varje anrop tar den angivna tiden, och en
+// andel av de nya betalningarna nekas. Liksom en riktig betaltjänst ger samma
+// idempotensnyckel samma svar, och getChargeCount räknar bara verkliga debiteringar.
+public class SimulatedPaymentGateway implements PaymentGateway {
+    private final Duration latency;
+    private final double declineRate;
+    private final Map<String, ChargeResult> results = new ConcurrentHashMap<>();
+    private final AtomicInteger charges = new AtomicInteger();
+    private final AtomicInteger calls = new AtomicInteger();
+
+    public SimulatedPaymentGateway() {
+        this(Duration.ZERO, 0.0);
+    }
+
+    public SimulatedPaymentGateway(Duration latency, double declineRate) {
+        if (latency.isNegative() || declineRate < 0.0 || declineRate > 1.0) {
+            throw new IllegalArgumentException("Ogiltig fördröjning eller andel nekade betalningar");
+        }
+        this.latency = latency;
+        this.declineRate = declineRate;
+    }
+
+    @Override
+    public ChargeResult charge(String idempotencyKey, long amountMinor) throws PaymentGatewayException {
+        calls.incrementAndGet();
+        if (!latency.isZero()) {
+            try {
+                Thread.sleep(latency);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new PaymentGatewayException("Avbröts i väntan på betaltjänsten", e);
+            }
+        }
+        return results.computeIfAbsent(idempotencyKey, key -> {
+            if (ThreadLocalRandom.current().nextDouble() < declineRate) {
+                return new ChargeResult(PaymentStatus.DECLINED, null);
+            }
+            charges.incrementAndGet();
+            return new ChargeResult(PaymentStatus.SUCCEEDED, UUID.randomUUID().toString());
+        });
+    }
+
+    public int getChargeCount() {
+        return charges.get();
+    }
+
+    public int getCallCount() {
+        return calls.get();
+    }
+}
@@ -1,5 +1,7 @@
 package com.example.shop;
 
+import java.util.Objects;
+
 public class CartItem
 {
     private final String id;
@@ -34,4 +36,21 @@ public class CartItem
     public int getQuantity() {
         return quantity;
     }
+
+    // Two items are the same cart line when they have the same id
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof CartItem)) {
+            return false;
+        }
+        return Objects.equals(id, ((CartItem) o).id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(id);
+    }
 }
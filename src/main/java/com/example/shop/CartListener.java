@@ -0,0 +1,6 @@
+package com.example.shop;
+
+// Told after an item in a cart was added, replaced, removed or changed quantity
+public interface CartListener {
+    void itemChanged(ShoppingCart cart, String itemId);
+}
@@ -0,0 +1,112 @@
+package com.example.shop;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+// Applies catalog price changes to the carts in a CartStore. The store's reverse index from
+// item id to cart ids means a price change only touches the carts that hold the item, and
+// the repricer keeps no references of its own that would hold evicted carts on the heap.
+// The affected carts are split into batches that run in parallel on the executor. Each
+// cart is changed through CartStore.updatePrices, under the same lock as lookups, spills
+// and CartStore.update, and its total is adjusted by the price difference instead of
+// being recomputed. A spilled cart is changed off-heap, so it comes back with the new
+// prices when it is rehydrated.
+public class CartRepricer {
+    private static final int DEFAULT_BATCH_SIZE = 256;
+
+    private record BatchResult(int carts, int linesUpdated) {
+    }
+
+    private final CartStore store;
+    private final Executor executor;
+    private final int batchSize;
+
+    public CartRepricer(CartStore store, Executor executor) {
+        this(store, executor, DEFAULT_BATCH_SIZE);
+    }
+
+    public CartRepricer(CartStore store, Executor executor, int batchSize) {
+        if (store == null || executor == null || batchSize <= 0) {
+            throw new IllegalArgumentException("Invalid input");
+        }
+        this.store = store;
+        this.executor = executor;
+        this.batchSize = batchSize;
+    }
+
+    // New unit prices in minor units, keyed by item id
+    public RepricingReport reprice(Map<String, Integer> newPrices) {
+        long started = System.nanoTime();
+        for (Integer price : newPrices.values()) {
+            if (price == null || price < 0) {
+                throw new IllegalArgumentException("Invalid input");
+            }
+        }
+
+        // Batches are cut straight from the store's live index. A cart that holds several of
+        // the changed items is repriced once, which needs a set only when there are several.
+        Set<String> seen = newPrices.size() > 1 ? new HashSet<>() : null;
+        List<CompletableFuture<BatchResult>> batches = new ArrayList<>();
+        List<String> batch = new ArrayList<>(batchSize);
+        for (String itemId : newPrices.keySet()) {
+            for (String cartId : store.cartIdsWith(itemId)) {
+                if (seen != null && !seen.add(cartId)) {
+                    continue;
+                }
+                batch.add(cartId);
+                if (batch.size() == batchSize) {
+                    batches.add(submit(batch, newPrices));
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            batches.add(submit(batch, newPrices));
+        }
+        int carts = 0;
+        int linesUpdated = 0;
+        for (CompletableFuture<BatchResult> pending : batches) {
+            BatchResult result = join(pending);
+            carts += result.carts();
+            linesUpdated += result.linesUpdated();
+        }
+        return new RepricingReport(carts, linesUpdated, batches.size(),
+                Duration.ofNanos(System.nanoTime() - started));
+    }
+
+    private CompletableFuture<BatchResult> submit(List<String> cartIds, Map<String, Integer> newPrices) {
+        return CompletableFuture.supplyAsync(() -> repriceBatch(cartIds, newPrices), executor);
+    }
+
+    private BatchResult repriceBatch(List<String> cartIds, Map<String, Integer> newPrices) {
+        int carts = 0;
+        int linesUpdated = 0;
+        for (String cartId : cartIds) {
+            int updated = store.updatePrices(cartId, newPrices);
+            // The cart may have been removed since the index was read
+            if (updated >= 0) {
+                carts++;
+                linesUpdated += updated;
+            }
+        }
+        return new BatchResult(carts, linesUpdated);
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.shop;
+
+import java.util.List;
+
+// The items and total of a cart at a single point in time. The items are copies, so
+// changing them does not affect the cart.
+public class CartSnapshot {
+    private final List<CartItem> items;
+    private final long totalPriceMinor;
+
+    CartSnapshot(List<CartItem> items, long totalPriceMinor) {
+        this.items = items;
+        this.totalPriceMinor = totalPriceMinor;
+    }
+
+    public List<CartItem> getItems() {
+        return items;
+    }
+
+    public long getTotalPriceMinor() {
+        return totalPriceMinor;
+    }
+}
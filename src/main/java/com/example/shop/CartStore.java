@@ -0,0 +1,485 @@
+package com.example.shop;
+
+import com.example.TimeProvider;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+// Carts keyed by cart id. A cart that has not been accessed for idleTtl is spilled by
+// evictIdle(): its contents are written to off-heap memory and the ShoppingCart is dropped,
+// so only a small entry remains on the heap. The next findById or getOrCreate rehydrates
+// it into a new ShoppingCart, with the listeners of the spilled cart added back. A spilled
+// cart that stays untouched for another idleTtl is dropped by evictIdle().
+//
+// Spilled carts are packed into slabs, and every slab has its own Arena. A slab is freed
+// once all carts in it have been rehydrated or removed. The slab that is currently being
+// filled is kept and reused from the start instead.
+//
+// Callers should look carts up through the store on every access rather than keep a
+// ShoppingCart reference. After a spill, changes to an old reference are not seen. Changes
+// that may run alongside a CartRepricer should go through update(), which holds the same
+// lock as updatePrices().
+//
+// The store keeps a reverse index from item id to the ids of the carts that hold it. A
+// membership listener on every cart keeps it current. It is only called when an item is
+// added or removed, and the store sets it again on a rehydrated cart.
+//
+// Lock order is a map bin first, then the store monitor: spill and rehydrate run inside
+// compute and take the monitor for the slab bookkeeping. close() therefore clears the map
+// before it takes the monitor.
+public class CartStore implements AutoCloseable {
+    private static final int DEFAULT_SLAB_BYTES = 1 << 20;
+    private static final ValueLayout.OfInt INT = ValueLayout.JAVA_INT_UNALIGNED;
+
+    private final TimeProvider timeProvider;
+    private final Duration idleTtl;
+    private final int slabBytes;
+    private final Map<String, Entry> carts = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> cartIdsByItem = new ConcurrentHashMap<>();
+    private final CartListener indexer = this::itemChanged;
+    private final List<Slab> slabs = new ArrayList<>();
+    private Slab currentSlab;
+    private volatile boolean closed;
+
+    public CartStore(TimeProvider timeProvider, Duration idleTtl) {
+        this(timeProvider, idleTtl, DEFAULT_SLAB_BYTES);
+    }
+
+    public CartStore(TimeProvider timeProvider, Duration idleTtl, int slabBytes) {
+        if (idleTtl.isNegative() || slabBytes <= 0) {
+            throw new IllegalArgumentException("Invalid input");
+        }
+        this.timeProvider = timeProvider;
+        this.idleTtl = idleTtl;
+        this.slabBytes = slabBytes;
+    }
+
+    public ShoppingCart getOrCreate(String cartId, String cartName) {
+        ensureOpen();
+        LocalDateTime now = timeProvider.getCurrentTime();
+        // The cart is read inside compute, since evictIdle may spill the entry right after
+        ShoppingCart[] result = new ShoppingCart[1];
+        carts.compute(cartId, (id, existing) -> {
+            Entry entry = existing;
+            if (entry == null) {
+                entry = new Entry();
+                entry.cart = new ShoppingCart(id, cartName);
+                entry.cart.setMembershipListener(indexer);
+            }
+            touch(id, entry, now);
+            result[0] = entry.cart;
+            return entry;
+        });
+        return result[0];
+    }
+
+    public Optional<ShoppingCart> findById(String cartId) {
+        ensureOpen();
+        LocalDateTime now = timeProvider.getCurrentTime();
+        ShoppingCart[] result = new ShoppingCart[1];
+        carts.computeIfPresent(cartId, (id, entry) -> {
+            touch(id, entry, now);
+            result[0] = entry.cart;
+            return entry;
+        });
+        return Optional.ofNullable(result[0]);
+    }
+
+    // Runs the change on the cart under the entry's lock, rehydrating it first if it was
+    // spilled. Returns false if the cart is not in the store.
+    public boolean update(String cartId, Consumer<ShoppingCart> change) {
+        ensureOpen();
+        LocalDateTime now = timeProvider.getCurrentTime();
+        boolean[] found = new boolean[1];
+        carts.computeIfPresent(cartId, (id, entry) -> {
+            touch(id, entry, now);
+            change.accept(entry.cart);
+            found[0] = true;
+            return entry;
+        });
+        return found[0];
+    }
+
+    // Sets new unit prices, in minor units keyed by item id, on the lines of the cart that
+    // hold the items. A spilled cart is changed in place off-heap and stays spilled, and the
+    // access time is left alone. Returns the number of lines whose price changed, or -1 if
+    // the cart is not in the store.
+    public int updatePrices(String cartId, Map<String, Integer> prices) {
+        ensureOpen();
+        int[] updated = {-1};
+        carts.computeIfPresent(cartId, (id, entry) -> {
+            updated[0] = entry.cart != null ? entry.cart.updatePrices(prices) : updateSpilledPrices(entry, prices);
+            return entry;
+        });
+        return updated[0];
+    }
+
+    // Ids of the carts in the store that contain the item
+    public Set<String> getCartIdsWith(String itemId) {
+        return Set.copyOf(cartIdsWith(itemId));
+    }
+
+    // The live set behind getCartIdsWith, for CartRepricer. It may change while it is read.
+    Set<String> cartIdsWith(String itemId) {
+        Set<String> cartIds = cartIdsByItem.get(itemId);
+        return cartIds == null ? Set.of() : Collections.unmodifiableSet(cartIds);
+    }
+
+    // Removes a listener from the cart. A spilled cart has no instance yet, so the listener is
+    // taken out of the ones that rehydrate would add back.
+    public void removeListener(String cartId, CartListener listener) {
+        carts.computeIfPresent(cartId, (id, entry) -> {
+            if (entry.cart != null) {
+                entry.cart.removeListener(listener);
+            } else {
+                List<CartListener> listeners = new ArrayList<>(entry.listeners);
+                listeners.remove(listener);
+                entry.listeners = listeners;
+            }
+            return entry;
+        });
+    }
+
+    public boolean remove(String cartId) {
+        ensureOpen();
+        Entry removed = carts.remove(cartId);
+        if (removed == null) {
+            return false;
+        }
+        dropFromIndex(cartId, removed);
+        if (removed.slab != null) {
+            release(removed.slab, removed.length);
+        }
+        return true;
+    }
+
+    // Spills every cart that has not been accessed for idleTtl and drops every spilled cart
+    // that has stayed spilled for idleTtl. Returns how many carts were spilled or dropped.
+    public int evictIdle() {
+        ensureOpen();
+        LocalDateTime now = timeProvider.getCurrentTime();
+        LocalDateTime cutoff = now.minus(idleTtl);
+        int[] evicted = new int[1];
+        for (String cartId : carts.keySet()) {
+            carts.computeIfPresent(cartId, (id, entry) -> {
+                if (entry.cart == null) {
+                    if (entry.spilledAt.isAfter(cutoff)) {
+                        return entry;
+                    }
+                    dropFromIndex(id, entry);
+                    release(entry.slab, entry.length);
+                    evicted[0]++;
+                    return null;
+                }
+                if (!entry.lastAccess.isAfter(cutoff)) {
+                    spill(entry, now);
+                    evicted[0]++;
+                }
+                return entry;
+            });
+        }
+        return evicted[0];
+    }
+
+    public int getCartCount() {
+        return carts.size();
+    }
+
+    public int getSpilledCartCount() {
+        int count = 0;
+        for (Entry entry : carts.values()) {
+            if (entry.cart == null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    // Off-heap bytes reserved by the open slabs
+    public synchronized long getOffHeapBytes() {
+        long total = 0;
+        for (Slab slab : slabs) {
+            total += slab.segment.byteSize();
+        }
+        return total;
+    }
+
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+        // Outside the monitor, since a compute holding a bin lock may be waiting for it
+        carts.clear();
+        cartIdsByItem.clear();
+        synchronized (this) {
+            for (Slab slab : slabs) {
+                slab.arena.close();
+            }
+            slabs.clear();
+            currentSlab = null;
+        }
+    }
+
+    private int updateSpilledPrices(Entry entry, Map<String, Integer> prices) {
+        int updated = 0;
+        synchronized (this) {
+            ensureOpen();
+            MemorySegment segment = entry.slab.segment;
+            long position = entry.offset;
+            position += stringBytes(getString(segment, position));
+            int count = segment.get(INT, position);
+            position += Integer.BYTES;
+            for (int i = 0; i < count; i++) {
+                byte[] id = getString(segment, position);
+                position += stringBytes(id);
+                position += stringBytes(getString(segment, position));
+                Integer price = prices.get(new String(id, StandardCharsets.UTF_8));
+                if (price != null && segment.get(INT, position) != price) {
+                    segment.set(INT, position, price);
+                    updated++;
+                }
+                position += 2L * Integer.BYTES;
+            }
+        }
+        return updated;
+    }
+
+    // Removes a cart that is leaving the store from the item index, and stops it from
+    // being indexed again through a reference the caller may still hold
+    private void dropFromIndex(String cartId, Entry entry) {
+        ShoppingCart cart = entry.cart;
+        if (cart != null) {
+            cart.setMembershipListener(null);
+            for (CartItem item : cart.getItems()) {
+                unindex(item.getId(), cartId);
+            }
+            return;
+        }
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            MemorySegment segment = entry.slab.segment;
+            long position = entry.offset;
+            position += stringBytes(getString(segment, position));
+            int count = segment.get(INT, position);
+            position += Integer.BYTES;
+            for (int i = 0; i < count; i++) {
+                byte[] id = getString(segment, position);
+                position += stringBytes(id);
+                position += stringBytes(getString(segment, position)) + 2L * Integer.BYTES;
+                unindex(new String(id, StandardCharsets.UTF_8), cartId);
+            }
+        }
+    }
+
+    // Only called when the item was added to or removed from the cart
+    private void itemChanged(ShoppingCart cart, String itemId) {
+        if (cart.getItem(itemId) == null) {
+            unindex(itemId, cart.getCartId());
+        } else {
+            index(itemId, cart.getCartId());
+        }
+    }
+
+    // Inside compute, so that a set cannot be dropped by unindex just as a cart is added to it
+    private void index(String itemId, String cartId) {
+        cartIdsByItem.compute(itemId, (id, cartIds) -> {
+            Set<String> result = cartIds == null ? ConcurrentHashMap.newKeySet() : cartIds;
+            result.add(cartId);
+            return result;
+        });
+    }
+
+    private void unindex(String itemId, String cartId) {
+        cartIdsByItem.computeIfPresent(itemId, (id, cartIds) -> {
+            cartIds.remove(cartId);
+            return cartIds.isEmpty() ? null : cartIds;
+        });
+    }
+
+    private void touch(String cartId, Entry entry, LocalDateTime now) {
+        if (entry.cart == null) {
+            rehydrate(cartId, entry);
+        }
+        entry.lastAccess = now;
+    }
+
+    // Layout: cart name, item count, then per item id, name, price and quantity. Strings are
+    // stored as a byte length followed by UTF-8 bytes.
+    private void spill(Entry entry, LocalDateTime now) {
+        ShoppingCart cart = entry.cart;
+        List<CartItem> items = cart.getItems();
+        byte[] cartName = utf8(cart.getCartName());
+        byte[][] ids = new byte[items.size()][];
+        byte[][] names = new byte[items.size()][];
+        long length = stringBytes(cartName) + Integer.BYTES;
+        for (int i = 0; i < items.size(); i++) {
+            ids[i] = utf8(items.get(i).getId());
+            names[i] = utf8(items.get(i).getName());
+            length += stringBytes(ids[i]) + stringBytes(names[i]) + 2L * Integer.BYTES;
+        }
+
+        // The slab is written under the monitor, so that close() cannot free it meanwhile
+        synchronized (this) {
+            allocate(entry, length);
+            MemorySegment segment = entry.slab.segment;
+            long position = putString(segment, entry.offset, cartName);
+            segment.set(INT, position, items.size());
+            position += Integer.BYTES;
+            for (int i = 0; i < items.size(); i++) {
+                position = putString(segment, position, ids[i]);
+                position = putString(segment, position, names[i]);
+                segment.set(INT, position, items.get(i).getPrice());
+                segment.set(INT, position + Integer.BYTES, items.get(i).getQuantity());
+                position += 2L * Integer.BYTES;
+            }
+        }
+
+        entry.listeners = cart.getListeners();
+        // Changes to the dropped instance are lost, so they must not reach the index either
+        cart.setMembershipListener(null);
+        entry.cart = null;
+        entry.spilledAt = now;
+    }
+
+    private void rehydrate(String cartId, Entry entry) {
+        ShoppingCart cart;
+        synchronized (this) {
+            ensureOpen();
+            MemorySegment segment = entry.slab.segment;
+            long position = entry.offset;
+            byte[] cartName = getString(segment, position);
+            position += stringBytes(cartName);
+            cart = new ShoppingCart(cartId, cartName == null ? null : new String(cartName, StandardCharsets.UTF_8));
+            int count = segment.get(INT, position);
+            position += Integer.BYTES;
+            for (int i = 0; i < count; i++) {
+                byte[] id = getString(segment, position);
+                position += stringBytes(id);
+                byte[] name = getString(segment, position);
+                position += stringBytes(name);
+                cart.addItem(new CartItem(new String(id, StandardCharsets.UTF_8), new String(name, StandardCharsets.UTF_8),
+                        segment.get(INT, position), segment.get(INT, position + Integer.BYTES)));
+                position += 2L * Integer.BYTES;
+            }
+            release(entry.slab, entry.length);
+        }
+        // Added after the items, so that listeners are not told about the rehydration itself
+        for (CartListener listener : entry.listeners) {
+            cart.addListener(listener);
+        }
+        cart.setMembershipListener(indexer);
+        entry.cart = cart;
+        entry.slab = null;
+        entry.listeners = null;
+        entry.spilledAt = null;
+    }
+
+    // Bump allocation in the current slab. A cart larger than a slab gets a slab of its own.
+    private synchronized void allocate(Entry entry, long length) {
+        ensureOpen();
+        Slab slab = currentSlab;
+        if (slab == null || slab.segment.byteSize() - slab.position < length) {
+            Arena arena = Arena.ofShared();
+            slab = new Slab(arena, arena.allocate(Math.max(slabBytes, length)));
+            slabs.add(slab);
+            if (length <= slabBytes) {
+                currentSlab = slab;
+            }
+        }
+        entry.slab = slab;
+        entry.offset = slab.position;
+        entry.length = length;
+        slab.position += length;
+        slab.liveBytes += length;
+    }
+
+    private synchronized void release(Slab slab, long length) {
+        slab.liveBytes -= length;
+        if (slab.liveBytes > 0 || closed) {
+            return;
+        }
+        if (slab == currentSlab) {
+            slab.position = 0;
+        } else {
+            slabs.remove(slab);
+            slab.arena.close();
+        }
+    }
+
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("Cart store is closed");
+        }
+    }
+
+    private static byte[] utf8(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static long stringBytes(byte[] value) {
+        return Integer.BYTES + (value == null ? 0 : value.length);
+    }
+
+    // A null string is stored as length -1
+    private static long putString(MemorySegment segment, long position, byte[] value) {
+        if (value == null) {
+            segment.set(INT, position, -1);
+            return position + Integer.BYTES;
+        }
+        segment.set(INT, position, value.length);
+        MemorySegment.copy(value, 0, segment, ValueLayout.JAVA_BYTE, position + Integer.BYTES, value.length);
+        return position + stringBytes(value);
+    }
+
+    private static byte[] getString(MemorySegment segment, long position) {
+        int length = segment.get(INT, position);
+        if (length < 0) {
+            return null;
+        }
+        byte[] value = new byte[length];
+        MemorySegment.copy(segment, ValueLayout.JAVA_BYTE, position + Integer.BYTES, value, 0, value.length);
+        return value;
+    }
+
+    private static final class Entry {
+        // Set while the cart is on the heap
+        private volatile ShoppingCart cart;
+        private LocalDateTime lastAccess;
+        // Set while the cart is spilled
+        private Slab slab;
+        private List<CartListener> listeners;
+        private LocalDateTime spilledAt;
+        private long offset;
+        private long length;
+    }
+
+    private static final class Slab {
+        private final Arena arena;
+        private final MemorySegment segment;
+        private long position;
+        private long liveBytes;
+
+        private Slab(Arena arena, MemorySegment segment) {
+            this.arena = arena;
+            this.segment = segment;
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package com.example.shop;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Cart that can be shared between threads. Items are spread over lock stripes by id, and
+// every stripe keeps its own subtotal. Updates to items in different stripes do not touch
+// any shared state. Reading the total or taking a snapshot locks all stripes in a fixed
+// order, so the result always matches a state the cart was actually in.
+//
+// Items are copied on the way in and out. Later changes to a CartItem's public fields do
+// not affect the cart.
+public class ConcurrentShoppingCart {
+    private static final int DEFAULT_STRIPES = 16;
+
+    private final String cartID;
+    private final String cartName;
+    private final Stripe[] stripes;
+    private final int mask;
+
+    public ConcurrentShoppingCart(String cartID, String cartName) {
+        this(cartID, cartName, DEFAULT_STRIPES);
+    }
+
+    public ConcurrentShoppingCart(String cartID, String cartName, int stripeCount) {
+        if (stripeCount <= 0) {
+            throw new IllegalArgumentException("Invalid input");
+        }
+        int size = 1;
+        while (size < stripeCount) {
+            size <<= 1;
+        }
+        this.cartID = cartID;
+        this.cartName = cartName;
+        this.stripes = new Stripe[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new Stripe();
+        }
+        this.mask = size - 1;
+    }
+
+    public String getCartId() {
+        return cartID;
+    }
+
+    public String getCartName() {
+        return cartName;
+    }
+
+    // An item with an id that is already in the cart replaces the earlier one
+    public boolean addItem(CartItem cartItem) {
+        if (cartItem.getId() == null || cartItem.getName() == null || cartItem.getPrice() < 0 || cartItem.getQuantity() < 0) {
+            throw new IllegalArgumentException("Invalid input");
+        }
+        Line line = new Line(cartItem.getId(), cartItem.getName(), cartItem.getPrice(), cartItem.getQuantity());
+        Stripe stripe = stripeFor(line.id);
+        stripe.lock.lock();
+        try {
+            Line previous = stripe.lines.put(line.id, line);
+            stripe.totalMinor += line.lineTotal() - (previous == null ? 0 : previous.lineTotal());
+            return true;
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    public boolean removeItem(String itemId) {
+        Stripe stripe = stripeFor(itemId);
+        stripe.lock.lock();
+        try {
+            Line removed = stripe.lines.remove(itemId);
+            if (removed == null) {
+                throw new IllegalArgumentException("Item does not exist");
+            }
+            stripe.totalMinor -= removed.lineTotal();
+            return true;
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    public void updateQuantity(String itemId, int quantity) {
+        if (quantity < 0) {
+            throw new IllegalArgumentException("Invalid input");
+        }
+        Stripe stripe = stripeFor(itemId);
+        stripe.lock.lock();
+        try {
+            // Like ShoppingCart, an item that is not in the cart is ignored
+            Line previous = stripe.lines.get(itemId);
+            if (previous == null) {
+                return;
+            }
+            Line line = previous.withQuantity(quantity);
+            stripe.lines.put(itemId, line);
+            stripe.totalMinor += line.lineTotal() - previous.lineTotal();
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    public int checkQuantity(String itemId) {
+        Stripe stripe = stripeFor(itemId);
+        stripe.lock.lock();
+        try {
+            Line line = stripe.lines.get(itemId);
+            return line == null ? 0 : line.quantity;
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    public long getTotalPriceMinor() {
+        lockAll();
+        try {
+            long total = 0;
+            for (Stripe stripe : stripes) {
+                total += stripe.totalMinor;
+            }
+            return total;
+        } finally {
+            unlockAll();
+        }
+    }
+
+    public Double getTotalPrice() {
+        return (double) getTotalPriceMinor();
+    }
+
+    public Double getDiscountedPrice(Double discount) {
+        return getTotalPriceMinor() * discount.doubleValue();
+    }
+
+    public CartSnapshot snapshot() {
+        lockAll();
+        try {
+            List<CartItem> items = new ArrayList<>();
+            long total = 0;
+            for (Stripe stripe : stripes) {
+                for (Line line : stripe.lines.values()) {
+                    items.add(new CartItem(line.id, line.name, line.price, line.quantity));
+                }
+                total += stripe.totalMinor;
+            }
+            return new CartSnapshot(items, total);
+        } finally {
+            unlockAll();
+        }
+    }
+
+    private Stripe stripeFor(String itemId) {
+        int hash = itemId.hashCode();
+        return stripes[(hash ^ (hash >>> 16)) & mask];
+    }
+
+    // Always in index order so that two snapshots cannot deadlock
+    private void lockAll() {
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+        }
+    }
+
+    private void unlockAll() {
+        for (int i = stripes.length - 1; i >= 0; i--) {
+            stripes[i].lock.unlock();
+        }
+    }
+
+    private static final class Stripe {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Map<String, Line> lines = new HashMap<>();
+        private long totalMinor;
+    }
+
+    private static final class Line {
+        private final String id;
+        private final String name;
+        private final int price;
+        private final int quantity;
+
+        private Line(String id, String name, int price, int quantity) {
+            this.id = id;
+            this.name = name;
+            this.price = price;
+            this.quantity = quantity;
+        }
+
+        private Line withQuantity(int quantity) {
+            return new Line(id, name, price, quantity);
+        }
+
+        private long lineTotal() {
+            return (long) price * quantity;
+        }
+    }
+}
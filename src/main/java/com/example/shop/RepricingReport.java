@@ -0,0 +1,39 @@
+package com.example.shop;
+
+import java.time.Duration;
+
+public class RepricingReport {
+    private final int cartsRepriced;
+    private final int linesUpdated;
+    private final int batches;
+    private final Duration elapsed;
+
+    RepricingReport(int cartsRepriced, int linesUpdated, int batches, Duration elapsed) {
+        this.cartsRepriced = cartsRepriced;
+        this.linesUpdated = linesUpdated;
+        this.batches = batches;
+        this.elapsed = elapsed;
+    }
+
+    public int getCartsRepriced() {
+        return cartsRepriced;
+    }
+
+    // Cart lines whose price actually changed
+    public int getLinesUpdated() {
+        return linesUpdated;
+    }
+
+    public int getBatches() {
+        return batches;
+    }
+
+    public Duration getElapsed() {
+        return elapsed;
+    }
+
+    public double getCartsPerSecond() {
+        long nanos = elapsed.toNanos();
+        return nanos == 0 ? 0.0 : cartsRepriced * 1_000_000_000.0 / nanos;
+    }
+}
@@ -1,54 +1,109 @@
 package com.example.shop;
 
-import java.util.HashSet;
-import java.util.Set;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
+// Items are keyed by id and the total is kept as a running sum in minor currency units
+// (CartItem.price is the unit price in minor units). Each line remembers what it added to
+// the total, so a later change to an item's public fields cannot put the total out of sync.
 public class ShoppingCart {
     private final String cartID;
     private final String cartName;
-    private final Set<CartItem> cartItems = new HashSet<>();
+    private final Map<String, Line> lines = new LinkedHashMap<>();
+    private long totalMinor;
+    // Incremented on every change to the items, so derived values can be cached per version
+    private long version;
+    private final List<CartListener> listeners = new ArrayList<>();
+    // Set by CartStore for its item index. It is only told when an item is added or removed,
+    // so price and quantity changes, which is most of a reprice, skip it.
+    private CartListener membershipListener;
 
     public ShoppingCart(String cartID, String cartName) {
         this.cartID = cartID;
         this.cartName = cartName;
     }
+    public String getCartId() {
+        return cartID;
+    }
+    public String getCartName() {
+        return cartName;
+    }
+    // The items in the order they were first added
+    public List<CartItem> getItems() {
+        List<CartItem> items = new ArrayList<>(lines.size());
+        for (Line line : lines.values()) {
+            items.add(line.item);
+        }
+        return Collections.unmodifiableList(items);
+    }
     public Boolean findById(String id) {
         if (cartID.equals(null) || !cartID.equals(id)) {
             throw new IllegalArgumentException("Invalid cart ID");
         }
         return id.equals(cartID);
     }
+    // An item with an id that is already in the cart replaces the earlier one
     public boolean addItem(CartItem cartItem) {
         if (cartItem.getId() == null || cartItem.getName() == null || cartItem.getPrice() < 0 || cartItem.getQuantity() < 0) {
             throw new IllegalArgumentException("Invalid input");
         } else {
-            cartItems.add(cartItem);
+            Line line = new Line(cartItem);
+            Line previous = lines.put(cartItem.getId(), line);
+            if (previous != null) {
+                totalMinor -= previous.lineTotalMinor;
+            } else if (membershipListener != null) {
+                membershipListener.itemChanged(this, cartItem.getId());
+            }
+            totalMinor += line.lineTotalMinor;
+            changed(cartItem.getId());
             return true;
         }
     }
     public boolean removeItem(CartItem cartItem) {
-        if (!cartItems.contains(cartItem)) {
+        Line removed = lines.remove(cartItem.getId());
+        if (removed == null) {
             throw new IllegalArgumentException("Item does not exist");
         } else {
-            cartItems.remove(cartItem);
+            totalMinor -= removed.lineTotalMinor;
+            if (membershipListener != null) {
+                membershipListener.itemChanged(this, cartItem.getId());
+            }
+            changed(cartItem.getId());
             return true;
         }
     }
+    // The item in the cart with this id, or null
+    public CartItem getItem(String itemId) {
+        Line line = lines.get(itemId);
+        return line == null ? null : line.item;
+    }
+    public void addListener(CartListener listener) {
+        listeners.add(listener);
+    }
+    public void removeListener(CartListener listener) {
+        listeners.remove(listener);
+    }
+    // Used by CartStore to carry the listeners over to the rehydrated cart
+    List<CartListener> getListeners() {
+        return List.copyOf(listeners);
+    }
+    void setMembershipListener(CartListener listener) {
+        this.membershipListener = listener;
+    }
+    public long getVersion() {
+        return version;
+    }
+    public long getTotalPriceMinor() {
+        return totalMinor;
+    }
     public Double getTotalPrice() {
-        Double result = 0.0;
-
-        for (CartItem cartItem : cartItems) {
-            result += cartItem.price * cartItem.quantity;
-        }
-        return result;
+        return (double) totalMinor;
     }
     public Double getDiscountedPrice(Double discount) {
-        Double result = 0.0;
-
-        for (CartItem cartItem : cartItems) {
-            result += cartItem.price * cartItem.quantity;
-        }
-        return result * discount;
+        return totalMinor * discount.doubleValue();
     }
 
 
@@ -56,22 +111,85 @@ public class ShoppingCart {
         if (i < 0) {
             throw new IllegalArgumentException("Invalid input");
         }
-        for (CartItem cartItem : cartItems) {
-            if (cartItem.getId().equals(item.getId()) && cartItem.quantity == i) {
-                return;
-            } else if (cartItem.getId().equals(item.getId())) {
-                item.setQuantity(i);
+        Line line = lines.get(item.getId());
+        if (line == null || line.item.quantity == i) {
+            return;
+        }
+        line.item.setQuantity(i);
+        totalMinor -= line.lineTotalMinor;
+        line.lineTotalMinor = lineTotal(line.item);
+        totalMinor += line.lineTotalMinor;
+        changed(item.getId());
+    }
+
+    // Sets a new unit price for the item and adjusts the total by the difference. Returns
+    // false if the item is not in the cart.
+    public boolean updatePrice(String itemId, int price) {
+        if (price < 0) {
+            throw new IllegalArgumentException("Invalid input");
+        }
+        Line line = lines.get(itemId);
+        if (line == null) {
+            return false;
+        }
+        if (line.item.price == price) {
+            return true;
+        }
+        line.item.price = price;
+        totalMinor -= line.lineTotalMinor;
+        line.lineTotalMinor = lineTotal(line.item);
+        totalMinor += line.lineTotalMinor;
+        changed(itemId);
+        return true;
+    }
+
+    // Sets new unit prices, keyed by item id, walking whichever is smaller, the price list or
+    // the cart, without copying the items. Returns the number of lines whose price changed.
+    int updatePrices(Map<String, Integer> prices) {
+        int updated = 0;
+        if (prices.size() <= lines.size()) {
+            for (Map.Entry<String, Integer> price : prices.entrySet()) {
+                Line line = lines.get(price.getKey());
+                if (line != null && line.item.price != price.getValue()) {
+                    updatePrice(price.getKey(), price.getValue());
+                    updated++;
+                }
+            }
+        } else {
+            for (Line line : lines.values()) {
+                Integer price = prices.get(line.item.getId());
+                if (price != null && line.item.price != price) {
+                    updatePrice(line.item.getId(), price);
+                    updated++;
+                }
             }
         }
+        return updated;
     }
 
     public int checkQuantity(CartItem item) {
-        int result = 0;
-        for (CartItem cartItem : cartItems) {
-            if (cartItem.getId().equals(item.getId())) {
-                result = cartItem.quantity;
-            }
+        Line line = lines.get(item.getId());
+        return line == null ? 0 : line.item.quantity;
+    }
+
+    private void changed(String itemId) {
+        version++;
+        for (int i = 0; i < listeners.size(); i++) {
+            listeners.get(i).itemChanged(this, itemId);
+        }
+    }
+
+    private static long lineTotal(CartItem item) {
+        return (long) item.getPrice() * item.getQuantity();
+    }
+
+    private static final class Line {
+        private final CartItem item;
+        private long lineTotalMinor;
+
+        private Line(CartItem item) {
+            this.item = item;
+            this.lineTotalMinor = lineTotal(item);
         }
-        return result;
     }
 }
@@ -0,0 +1,28 @@
+package com.example.shop.pricing;
+
+// For every buy + free units of the item, free of them cost nothing
+public class BuyXGetYFreeDiscount implements ItemDiscountRule {
+    private final String itemId;
+    private final int buy;
+    private final int free;
+
+    public BuyXGetYFreeDiscount(String itemId, int buy, int free) {
+        if (itemId == null || buy <= 0 || free <= 0) {
+            throw new IllegalArgumentException("Invalid input");
+        }
+        this.itemId = itemId;
+        this.buy = buy;
+        this.free = free;
+    }
+
+    @Override
+    public String getItemId() {
+        return itemId;
+    }
+
+    @Override
+    public long discountMinor(int unitPriceMinor, int quantity) {
+        long groups = quantity / (buy + free);
+        return groups * free * unitPriceMinor;
+    }
+}
@@ -0,0 +1,6 @@
+package com.example.shop.pricing;
+
+public interface CartDiscountRule extends PricingRule {
+    // Discount in minor units given the cart total after item discounts
+    long discountMinor(long subtotalMinor);
+}
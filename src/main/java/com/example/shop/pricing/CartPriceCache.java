@@ -0,0 +1,123 @@
+package com.example.shop.pricing;
+
+import com.example.shop.CartItem;
+import com.example.shop.CartListener;
+import com.example.shop.CartStore;
+import com.example.shop.ShoppingCart;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+// Caches the price of one cart. The result is reused while ShoppingCart.getVersion() is
+// unchanged. The cache listens to the cart and remembers which items with rules changed,
+// so repricing after an update only runs the rules for those lines plus the cart rules.
+// Lines without rules cost nothing. Like ShoppingCart, it is not thread-safe. Close it when
+// the cart is no longer priced, so that the cart stops notifying it.
+//
+// A cache for a cart in a CartStore looks the cart up on every getPrice(). A spill and
+// rehydrate replaces the ShoppingCart, and prices changed while it was spilled are not
+// reported to listeners, so a new instance is priced from scratch.
+public class CartPriceCache implements AutoCloseable {
+    private final PricingEngine engine;
+    // Null when the cache prices a cart outside a store
+    private final CartStore store;
+    private ShoppingCart cart;
+    // Only lines with a discount above zero
+    private final Map<String, Long> lineDiscounts = new HashMap<>();
+    private final Set<String> changedItems = new HashSet<>();
+    private final CartListener listener;
+    private long itemDiscount;
+    private boolean loaded;
+    private PriceBreakdown price;
+    private long version;
+    private boolean closed;
+
+    CartPriceCache(PricingEngine engine, ShoppingCart cart) {
+        this(engine, null, cart);
+    }
+
+    CartPriceCache(PricingEngine engine, CartStore store, ShoppingCart cart) {
+        this.engine = engine;
+        this.store = store;
+        this.cart = cart;
+        this.listener = (changedCart, itemId) -> {
+            if (loaded && engine.hasItemRules(itemId)) {
+                changedItems.add(itemId);
+            }
+        };
+        cart.addListener(listener);
+    }
+
+    public PriceBreakdown getPrice() {
+        if (closed) {
+            throw new IllegalStateException("Price cache is closed");
+        }
+        if (store != null) {
+            follow(store.findById(cart.getCartId())
+                    .orElseThrow(() -> new IllegalStateException("Cart is no longer in the store")));
+        }
+        if (price != null && version == cart.getVersion()) {
+            return price;
+        }
+        if (!loaded) {
+            for (CartItem item : cart.getItems()) {
+                reprice(item.getId());
+            }
+            loaded = true;
+        } else {
+            for (String itemId : changedItems) {
+                reprice(itemId);
+            }
+        }
+        changedItems.clear();
+        price = engine.breakdown(cart.getTotalPriceMinor(), itemDiscount, Map.copyOf(lineDiscounts));
+        version = cart.getVersion();
+        return price;
+    }
+
+    @Override
+    public void close() {
+        if (!closed) {
+            closed = true;
+            if (store != null) {
+                store.removeListener(cart.getCartId(), listener);
+            } else {
+                cart.removeListener(listener);
+            }
+        }
+    }
+
+    private void follow(ShoppingCart current) {
+        if (current == cart) {
+            return;
+        }
+        // The store carries the listener over on rehydrate, but not to a cart that was
+        // removed and created again under the same id
+        current.removeListener(listener);
+        current.addListener(listener);
+        cart = current;
+        lineDiscounts.clear();
+        changedItems.clear();
+        itemDiscount = 0;
+        loaded = false;
+        price = null;
+    }
+
+    private void reprice(String itemId) {
+        Long previous = lineDiscounts.remove(itemId);
+        if (previous != null) {
+            itemDiscount -= previous;
+        }
+        CartItem item = cart.getItem(itemId);
+        if (item == null || !engine.hasItemRules(itemId)) {
+            return;
+        }
+        long discount = engine.lineDiscount(itemId, item.getPrice(), item.getQuantity());
+        if (discount > 0) {
+            lineDiscounts.put(itemId, discount);
+            itemDiscount += discount;
+        }
+    }
+}
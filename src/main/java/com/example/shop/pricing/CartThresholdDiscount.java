@@ -0,0 +1,20 @@
+package com.example.shop.pricing;
+
+// A fixed amount off when the cart total after item discounts reaches the threshold
+public class CartThresholdDiscount implements CartDiscountRule {
+    private final long thresholdMinor;
+    private final long amountMinor;
+
+    public CartThresholdDiscount(long thresholdMinor, long amountMinor) {
+        if (thresholdMinor < 0 || amountMinor < 0) {
+            throw new IllegalArgumentException("Invalid input");
+        }
+        this.thresholdMinor = thresholdMinor;
+        this.amountMinor = amountMinor;
+    }
+
+    @Override
+    public long discountMinor(long subtotalMinor) {
+        return subtotalMinor >= thresholdMinor ? amountMinor : 0;
+    }
+}
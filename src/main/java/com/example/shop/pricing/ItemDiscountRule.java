@@ -0,0 +1,9 @@
+package com.example.shop.pricing;
+
+public interface ItemDiscountRule extends PricingRule {
+    String getItemId();
+
+    // Discount in minor units for one cart line. Must only depend on the arguments, since
+    // results are cached per unit price and quantity.
+    long discountMinor(int unitPriceMinor, int quantity);
+}
@@ -0,0 +1,25 @@
+package com.example.shop.pricing;
+
+// A percentage off every unit of one item, rounded down to whole minor units
+public class PercentageItemDiscount implements ItemDiscountRule {
+    private final String itemId;
+    private final int percent;
+
+    public PercentageItemDiscount(String itemId, int percent) {
+        if (itemId == null || percent < 0 || percent > 100) {
+            throw new IllegalArgumentException("Invalid input");
+        }
+        this.itemId = itemId;
+        this.percent = percent;
+    }
+
+    @Override
+    public String getItemId() {
+        return itemId;
+    }
+
+    @Override
+    public long discountMinor(int unitPriceMinor, int quantity) {
+        return (long) unitPriceMinor * quantity * percent / 100;
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.shop.pricing;
+
+import java.util.Map;
+
+// All amounts are in minor currency units
+public class PriceBreakdown {
+    private final long subtotalMinor;
+    private final long itemDiscountMinor;
+    private final long cartDiscountMinor;
+    private final Map<String, Long> lineDiscounts;
+
+    PriceBreakdown(long subtotalMinor, long itemDiscountMinor, long cartDiscountMinor, Map<String, Long> lineDiscounts) {
+        this.subtotalMinor = subtotalMinor;
+        this.itemDiscountMinor = itemDiscountMinor;
+        this.cartDiscountMinor = cartDiscountMinor;
+        this.lineDiscounts = lineDiscounts;
+    }
+
+    // Total before any discount
+    public long getSubtotalMinor() {
+        return subtotalMinor;
+    }
+
+    public long getItemDiscountMinor() {
+        return itemDiscountMinor;
+    }
+
+    public long getCartDiscountMinor() {
+        return cartDiscountMinor;
+    }
+
+    public long getTotalMinor() {
+        return subtotalMinor - itemDiscountMinor - cartDiscountMinor;
+    }
+
+    public long getLineDiscountMinor(String itemId) {
+        return lineDiscounts.getOrDefault(itemId, 0L);
+    }
+}
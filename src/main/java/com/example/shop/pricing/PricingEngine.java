@@ -0,0 +1,96 @@
+package com.example.shop.pricing;
+
+import com.example.shop.CartItem;
+import com.example.shop.CartStore;
+import com.example.shop.ShoppingCart;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Evaluates discount rules against carts. The rules are compiled once into a plan: item
+// rules are indexed by item id, so a line only runs the rules for its own item, and lines
+// without rules are skipped. When several rules match, the largest discount applies. Item
+// rules never take a line below zero, and cart rules never take the cart below zero.
+public class PricingEngine {
+    private static final ItemDiscountRule[] NO_ITEM_RULES = new ItemDiscountRule[0];
+
+    private final Map<String, ItemDiscountRule[]> itemRules;
+    private final CartDiscountRule[] cartRules;
+
+    public PricingEngine(Collection<? extends PricingRule> rules) {
+        Map<String, List<ItemDiscountRule>> byItem = new HashMap<>();
+        List<CartDiscountRule> cart = new ArrayList<>();
+        for (PricingRule rule : rules) {
+            boolean known = false;
+            if (rule instanceof ItemDiscountRule) {
+                ItemDiscountRule itemRule = (ItemDiscountRule) rule;
+                byItem.computeIfAbsent(itemRule.getItemId(), id -> new ArrayList<>()).add(itemRule);
+                known = true;
+            }
+            if (rule instanceof CartDiscountRule) {
+                cart.add((CartDiscountRule) rule);
+                known = true;
+            }
+            if (!known) {
+                throw new IllegalArgumentException("Unknown rule type: " + rule.getClass().getName());
+            }
+        }
+        this.itemRules = new HashMap<>();
+        byItem.forEach((itemId, itemRuleList) -> itemRules.put(itemId, itemRuleList.toArray(NO_ITEM_RULES)));
+        this.cartRules = cart.toArray(new CartDiscountRule[0]);
+    }
+
+    // Prices the cart from scratch. Use cacheFor when the same cart is priced repeatedly.
+    public PriceBreakdown price(ShoppingCart cart) {
+        long subtotal = 0;
+        long itemDiscount = 0;
+        Map<String, Long> lineDiscounts = new HashMap<>();
+        for (CartItem item : cart.getItems()) {
+            subtotal += (long) item.getPrice() * item.getQuantity();
+            if (hasItemRules(item.getId())) {
+                long discount = lineDiscount(item.getId(), item.getPrice(), item.getQuantity());
+                if (discount > 0) {
+                    lineDiscounts.put(item.getId(), discount);
+                    itemDiscount += discount;
+                }
+            }
+        }
+        return breakdown(subtotal, itemDiscount, lineDiscounts);
+    }
+
+    // The cache registers a listener on the cart; close it when done
+    public CartPriceCache cacheFor(ShoppingCart cart) {
+        return new CartPriceCache(this, cart);
+    }
+
+    // Like cacheFor(cart), for a cart that lives in the store and may be spilled by it
+    public CartPriceCache cacheFor(CartStore store, String cartId) {
+        ShoppingCart cart = store.findById(cartId).orElseThrow(() -> new IllegalArgumentException("Invalid cart ID"));
+        return new CartPriceCache(this, store, cart);
+    }
+
+    boolean hasItemRules(String itemId) {
+        return itemRules.containsKey(itemId);
+    }
+
+    long lineDiscount(String itemId, int unitPriceMinor, int quantity) {
+        long lineTotal = (long) unitPriceMinor * quantity;
+        long best = 0;
+        for (ItemDiscountRule rule : itemRules.getOrDefault(itemId, NO_ITEM_RULES)) {
+            best = Math.max(best, rule.discountMinor(unitPriceMinor, quantity));
+        }
+        return Math.min(best, lineTotal);
+    }
+
+    PriceBreakdown breakdown(long subtotal, long itemDiscount, Map<String, Long> lineDiscounts) {
+        long afterItems = subtotal - itemDiscount;
+        long best = 0;
+        for (CartDiscountRule rule : cartRules) {
+            best = Math.max(best, rule.discountMinor(afterItems));
+        }
+        return new PriceBreakdown(subtotal, itemDiscount, Math.min(best, afterItems), lineDiscounts);
+    }
+}
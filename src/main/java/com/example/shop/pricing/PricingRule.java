@@ -0,0 +1,6 @@
+package com.example.shop.pricing;
+
+// A discount rule. Implement ItemDiscountRule for rules on a single item, or
+// CartDiscountRule for rules on the whole cart.
+public interface PricingRule {
+}
@@ -0,0 +1,39 @@
+package com.example.shop.pricing;
+
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+// A percentage off the whole line that depends on the quantity. Tiers map a minimum
+// quantity to a percentage, and the highest tier the quantity reaches applies.
+public class TieredQuantityDiscount implements ItemDiscountRule {
+    private final String itemId;
+    private final NavigableMap<Integer, Integer> percentByMinQuantity;
+
+    public TieredQuantityDiscount(String itemId, Map<Integer, Integer> percentByMinQuantity) {
+        if (itemId == null || percentByMinQuantity.isEmpty()) {
+            throw new IllegalArgumentException("Invalid input");
+        }
+        for (Map.Entry<Integer, Integer> tier : percentByMinQuantity.entrySet()) {
+            if (tier.getKey() <= 0 || tier.getValue() < 0 || tier.getValue() > 100) {
+                throw new IllegalArgumentException("Invalid input");
+            }
+        }
+        this.itemId = itemId;
+        this.percentByMinQuantity = new TreeMap<>(percentByMinQuantity);
+    }
+
+    @Override
+    public String getItemId() {
+        return itemId;
+    }
+
+    @Override
+    public long discountMinor(int unitPriceMinor, int quantity) {
+        Map.Entry<Integer, Integer> tier = percentByMinQuantity.floorEntry(quantity);
+        if (tier == null) {
+            return 0;
+        }
+        return (long) unitPriceMinor * quantity * tier.getValue() / 100;
+    }
+}
@@ -0,0 +1,152 @@
+package com.example;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+@DisplayName("AsyncBookingSystem Tests")
+class AsyncBookingSystemTest {
+
+    private final LocalDateTime now = LocalDateTime.of(2026, 7, 1, 9, 0);
+
+    private ExecutorService executor;
+    private InMemoryRoomRepository repository;
+    private NotificationService notificationService;
+    private BookingSystem blocking;
+    private AsyncBookingSystem bookingSystem;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        repository = new InMemoryRoomRepository();
+        repository.save(new Room("room1", "Room 1"));
+        repository.save(new Room("room2", "Room 2"));
+        notificationService = mock(NotificationService.class);
+        blocking = new BookingSystem(() -> now, repository, notificationService);
+        bookingSystem = new AsyncBookingSystem(blocking);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("Should let exactly one of many concurrent bookings of the same slot succeed")
+    void shouldSerializeBookingsPerRoom() {
+        List<CompletableFuture<Boolean>> results = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            results.add(bookingSystem.bookRoom("room1", now.plusHours(1), now.plusHours(2)));
+        }
+
+        assertThat(results.stream().map(CompletableFuture::join).filter(booked -> booked)).hasSize(1);
+        assertThat(repository.findById("room1").orElseThrow().getBookings()).hasSize(1);
+    }
+
+    @Test
+    @DisplayName("Should never double-book a slot booked through both the facade and BookingSystem")
+    void shouldExcludeBookingsThroughBlockingApi() throws Exception {
+        for (int round = 0; round < 50; round++) {
+            LocalDateTime start = now.plusHours(2L * round + 1);
+            CompletableFuture<Boolean> async = bookingSystem.bookRoom("room1", start, start.plusHours(1));
+            Future<Boolean> direct = executor.submit(() -> blocking.bookRoom("room1", start, start.plusHours(1)));
+
+            assertThat(async.get(5, TimeUnit.SECONDS) ^ direct.get(5, TimeUnit.SECONDS)).isTrue();
+        }
+        assertThat(repository.findById("room1").orElseThrow().getBookings()).hasSize(50);
+    }
+
+    @Test
+    @DisplayName("Should complete with the same validation errors as BookingSystem")
+    void shouldFailFutureOnInvalidInput() {
+        assertThatThrownBy(() -> bookingSystem.bookRoom("room1", now.minusHours(1), now).get())
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(IllegalArgumentException.class)
+                .hasRootCauseMessage("Kan inte boka tid i dåtid");
+        assertThatThrownBy(() -> bookingSystem.bookRoom("missing", now.plusHours(1), now.plusHours(2)).get())
+                .hasRootCauseMessage("Rummet existerar inte");
+    }
+
+    @Test
+    @DisplayName("Should cancel a booking and report success even if notification fails")
+    void shouldCancelBooking() throws Exception {
+        doThrow(new NotificationException("nere")).when(notificationService).sendCancellationConfirmation(any());
+        assertThat(bookingSystem.bookRoom("room2", now.plusHours(1), now.plusHours(2)).get(5, TimeUnit.SECONDS)).isTrue();
+        String bookingId = repository.findById("room2").orElseThrow().getBookings().iterator().next().getId();
+
+        assertThat(bookingSystem.cancelBooking(bookingId).get(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(bookingSystem.cancelBooking(bookingId).get(5, TimeUnit.SECONDS)).isFalse();
+        assertThat(repository.findById("room2").orElseThrow().getBookings()).isEmpty();
+        verify(notificationService).sendBookingConfirmation(any());
+    }
+
+    @Test
+    @DisplayName("Should find bookings made outside the async facade")
+    void shouldCancelBookingMadeElsewhere() throws Exception {
+        repository.findById("room1").orElseThrow()
+                .addBooking(new Booking("b1", "room1", now.plusHours(3), now.plusHours(4)));
+
+        assertThat(bookingSystem.getAvailableRooms(now.plusHours(3), now.plusHours(4)).get())
+                .extracting(Room::getId)
+                .containsExactly("room2");
+        assertThat(bookingSystem.cancelBooking("b1").get()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should not read every room again when cancelling unknown bookings")
+    void shouldNotRescanOnCancelMiss() throws Exception {
+        AtomicInteger scans = new AtomicInteger();
+        InMemoryRoomRepository counting = new InMemoryRoomRepository() {
+            @Override
+            public Stream<Room> streamAll() {
+                scans.incrementAndGet();
+                return super.streamAll();
+            }
+        };
+        counting.save(new Room("room1", "Room 1"));
+        AsyncBookingSystem facade = new AsyncBookingSystem(new BookingSystem(() -> now, counting, notificationService));
+
+        for (int i = 0; i < 10; i++) {
+            assertThat(facade.cancelBooking("unknown" + i).get(5, TimeUnit.SECONDS)).isFalse();
+        }
+
+        assertThat(scans).hasValue(1);
+    }
+
+    @Test
+    @DisplayName("Should run each call on a virtual thread")
+    void shouldRunOnVirtualThreads() throws Exception {
+        NotificationService recording = mock(NotificationService.class);
+        List<Thread> threads = new ArrayList<>();
+        doAnswer(invocation -> {
+            threads.add(Thread.currentThread());
+            return null;
+        }).when(recording).sendBookingConfirmation(any());
+        AsyncBookingSystem facade = new AsyncBookingSystem(new BookingSystem(() -> now, repository, recording));
+
+        assertThat(facade.bookRoom("room2", now.plusHours(1), now.plusHours(2)).get(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(threads).singleElement().satisfies(thread -> assertThat(thread.isVirtual()).isTrue());
+    }
+}
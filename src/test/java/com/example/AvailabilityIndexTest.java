@@ -0,0 +1,196 @@
+package com.example;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+@DisplayName("AvailabilityIndex Tests")
+class AvailabilityIndexTest {
+
+    private final LocalDateTime now = LocalDateTime.of(2026, 2, 9, 8, 0);
+    private AvailabilityIndex index;
+    private Room room;
+
+    @BeforeEach
+    void setUp() {
+        index = new AvailabilityIndex(now, Duration.ofMinutes(15), 4 * 24 * 14);
+        room = new Room("room1", "Test Room");
+    }
+
+    @Test
+    @DisplayName("Should classify free, busy and partially covered slots")
+    void shouldClassifySlots() {
+        room.addBooking(new Booking("b1", "room1", now.plusHours(2), now.plusHours(3)));
+        index.indexRoom(room);
+
+        assertThat(index.availability("room1", now, now.plusHours(1))).isEqualTo(AvailabilityIndex.Availability.FREE);
+        assertThat(index.availability("room1", now.plusHours(1), now.plusHours(4))).isEqualTo(AvailabilityIndex.Availability.BUSY);
+        assertThat(index.availability("room1", now.plusHours(3).plusMinutes(5), now.plusHours(3).plusMinutes(10)))
+                .isEqualTo(AvailabilityIndex.Availability.UNKNOWN);
+        assertThat(index.availability("other", now, now.plusHours(1))).isEqualTo(AvailabilityIndex.Availability.UNKNOWN);
+        assertThat(index.availability("room1", now.plusDays(30), now.plusDays(30).plusHours(1)))
+                .isEqualTo(AvailabilityIndex.Availability.UNKNOWN);
+    }
+
+    @Test
+    @DisplayName("Should keep sharing slots busy when one booking is removed")
+    void shouldKeepSharedSlotsBusyAfterRemoval() {
+        Booking first = new Booking("b1", "room1", now.plusMinutes(60), now.plusMinutes(65));
+        Booking second = new Booking("b2", "room1", now.plusMinutes(70), now.plusMinutes(74));
+        room.addBooking(first);
+        room.addBooking(second);
+        index.indexRoom(room);
+
+        room.removeBooking("b1");
+        index.bookingRemoved(room, first);
+
+        assertThat(index.availability("room1", now.plusMinutes(60), now.plusMinutes(75)))
+                .isEqualTo(AvailabilityIndex.Availability.BUSY);
+
+        room.removeBooking("b2");
+        index.bookingRemoved(room, second);
+
+        assertThat(index.availability("room1", now.plusMinutes(60), now.plusMinutes(75)))
+                .isEqualTo(AvailabilityIndex.Availability.FREE);
+    }
+
+    @Test
+    @DisplayName("Should never contradict Room.isAvailable")
+    void shouldNeverContradictRoomIsAvailable() {
+        Random random = new Random(7);
+        index.indexRoom(room);
+        for (int i = 0; i < 400; i++) {
+            LocalDateTime start = now.plusMinutes(random.nextInt(20_000));
+            Booking booking = new Booking("b" + i, "room1", start, start.plusMinutes(random.nextInt(200)));
+            room.addBooking(booking);
+            index.bookingAdded(room, booking);
+            if (random.nextInt(3) == 0) {
+                room.removeBooking(booking.getId());
+                index.bookingRemoved(room, booking);
+            }
+        }
+
+        for (int i = 0; i < 2_000; i++) {
+            LocalDateTime start = now.plusMinutes(random.nextInt(19_000)).plusSeconds(random.nextInt(60));
+            LocalDateTime end = start.plusMinutes(random.nextInt(120));
+            AvailabilityIndex.Availability availability = index.availability("room1", start, end);
+            if (availability != AvailabilityIndex.Availability.UNKNOWN) {
+                assertThat(availability == AvailabilityIndex.Availability.FREE)
+                        .isEqualTo(room.isAvailable(start, end));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Should classify every room with one pass over the slots")
+    void shouldClassifyAllRooms() {
+        Room partly = new Room("room2", "Partly Booked");
+        Room free = new Room("room3", "Free Room");
+        room.addBooking(new Booking("b1", "room1", now.plusHours(1), now.plusHours(3)));
+        partly.addBooking(new Booking("b2", "room2", now.plusHours(2), now.plusHours(2).plusMinutes(5)));
+        index.rebuild(Stream.of(room, partly, free));
+
+        AvailabilityIndex.Classification known = index.classify(now.plusHours(2).plusMinutes(10), now.plusHours(3));
+
+        assertThat(known.of("room1")).isEqualTo(AvailabilityIndex.Availability.BUSY);
+        assertThat(known.of("room2")).isEqualTo(AvailabilityIndex.Availability.UNKNOWN);
+        assertThat(known.of("room3")).isEqualTo(AvailabilityIndex.Availability.FREE);
+        assertThat(known.of("other")).isEqualTo(AvailabilityIndex.Availability.UNKNOWN);
+        assertThat(index.classify(now.minusHours(1), now.plusHours(1))).isNull();
+        assertThat(index.classify(now.plusDays(30), now.plusDays(30).plusHours(1))).isNull();
+    }
+
+    @Test
+    @DisplayName("Should roll the window forward and index the slots it gains")
+    void shouldRollWindowForward() {
+        AvailabilityIndex daily = new AvailabilityIndex(now, Duration.ofHours(1), 24);
+        room.addBooking(new Booking("b1", "room1", now.plusHours(30), now.plusHours(31)));
+        daily.indexRoom(room);
+        assertThat(daily.availability("room1", now.plusHours(29), now.plusHours(32)))
+                .isEqualTo(AvailabilityIndex.Availability.UNKNOWN);
+
+        assertThat(daily.isBehind(now.plusHours(10).plusMinutes(5))).isTrue();
+        daily.advanceTo(now.plusHours(10).plusMinutes(5), Stream.of(room));
+
+        assertThat(daily.isBehind(now.plusHours(10).plusMinutes(30))).isFalse();
+        assertThat(daily.availability("room1", now.plusHours(29), now.plusHours(32)))
+                .isEqualTo(AvailabilityIndex.Availability.BUSY);
+        assertThat(daily.availability("room1", now.plusHours(32), now.plusHours(33)))
+                .isEqualTo(AvailabilityIndex.Availability.FREE);
+        // Före fönstret avgörs frågan av rummet
+        assertThat(daily.availability("room1", now.plusHours(5), now.plusHours(6)))
+                .isEqualTo(AvailabilityIndex.Availability.UNKNOWN);
+    }
+
+    @Test
+    @DisplayName("Should treat times far outside the window as outside it")
+    void shouldHandleTimesFarFromOrigin() {
+        LocalDateTime ancient = LocalDateTime.of(1700, 1, 1, 0, 0);
+        LocalDateTime distant = LocalDateTime.of(2250, 12, 31, 23, 0);
+        Booking forever = new Booking("b1", "room1", ancient, distant);
+        room.addBooking(forever);
+        index.indexRoom(room);
+
+        assertThat(index.availability("room1", ancient, ancient.plusHours(1))).isEqualTo(AvailabilityIndex.Availability.UNKNOWN);
+        assertThat(index.availability("room1", distant.minusHours(1), distant)).isEqualTo(AvailabilityIndex.Availability.UNKNOWN);
+        assertThat(index.availability("room1", now, now.plusHours(1))).isEqualTo(AvailabilityIndex.Availability.BUSY);
+
+        room.removeBooking("b1");
+        index.bookingRemoved(room, forever);
+        assertThat(index.availability("room1", now, now.plusHours(1))).isEqualTo(AvailabilityIndex.Availability.FREE);
+    }
+
+    @Test
+    @DisplayName("Should follow the clock when used by BookingSystem")
+    void shouldFollowClockInBookingSystem() {
+        AtomicReference<LocalDateTime> clock = new AtomicReference<>(now);
+        InMemoryRoomRepository repository = new InMemoryRoomRepository();
+        repository.save(room);
+        repository.save(new Room("room2", "Other Room"));
+        BookingSystem bookingSystem = new BookingSystem(clock::get, repository, mock(NotificationService.class));
+        AvailabilityIndex daily = new AvailabilityIndex(now, Duration.ofHours(1), 24);
+        bookingSystem.setAvailabilityIndex(daily);
+
+        clock.set(now.plusHours(10));
+        bookingSystem.bookRoom("room1", now.plusHours(30), now.plusHours(31));
+        assertThat(daily.covers(now.plusHours(30), now.plusHours(31))).isFalse();
+
+        assertThat(bookingSystem.getAvailableRooms(now.plusHours(30), now.plusHours(31)))
+                .extracting(Room::getId).containsExactly("room2");
+        assertThat(daily.covers(now.plusHours(30), now.plusHours(31))).isTrue();
+        assertThat(daily.availability("room1", now.plusHours(29), now.plusHours(32)))
+                .isEqualTo(AvailabilityIndex.Availability.BUSY);
+    }
+
+    @Test
+    @DisplayName("Should keep BookingSystem results correct when enabled")
+    void shouldKeepBookingSystemResultsCorrect() {
+        InMemoryRoomRepository repository = new InMemoryRoomRepository();
+        repository.save(room);
+        repository.save(new Room("room2", "Other Room"));
+        BookingSystem bookingSystem = new BookingSystem(() -> now, repository, mock(NotificationService.class));
+        bookingSystem.setAvailabilityIndex(index);
+
+        LocalDateTime start = now.plusHours(1);
+        bookingSystem.bookRoom("room1", start, start.plusHours(1));
+
+        List<Room> available = bookingSystem.getAvailableRooms(start, start.plusMinutes(30));
+        assertThat(available).extracting(Room::getId).containsExactly("room2");
+
+        String bookingId = room.getBookings().iterator().next().getId();
+        bookingSystem.cancelBooking(bookingId);
+
+        assertThat(bookingSystem.getAvailableRooms(start, start.plusMinutes(30)))
+                .extracting(Room::getId).containsExactly("room1", "room2");
+    }
+}
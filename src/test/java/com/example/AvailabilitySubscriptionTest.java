@@ -0,0 +1,131 @@
+package com.example;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.Mockito.mock;
+
+@DisplayName("AvailabilitySubscription Tests")
+class AvailabilitySubscriptionTest {
+
+    private final LocalDateTime now = LocalDateTime.of(2026, 8, 3, 8, 0);
+    private final LocalDateTime windowStart = now.plusHours(2);
+    private final LocalDateTime windowEnd = now.plusHours(4);
+
+    private InMemoryRoomRepository repository;
+    private BookingSystem bookingSystem;
+
+    @BeforeEach
+    void setUp() {
+        repository = new InMemoryRoomRepository();
+        for (int i = 1; i <= 3; i++) {
+            repository.save(new Room("room" + i, "Room " + i));
+        }
+        bookingSystem = new BookingSystem(() -> now, repository, mock(NotificationService.class));
+    }
+
+    @Test
+    @DisplayName("Should emit a change only when a room's state inside the window flips")
+    void shouldEmitOnlyStateChanges() {
+        AvailabilitySubscription subscription = bookingSystem.subscribeAvailability(windowStart, windowEnd, 10);
+
+        bookingSystem.bookRoom("room1", now.plusHours(2), now.plusHours(3));
+        bookingSystem.bookRoom("room1", now.plusHours(3).plusMinutes(30), now.plusHours(4));
+        bookingSystem.bookRoom("room2", now.plusHours(6), now.plusHours(7));
+
+        AvailabilityUpdate update = subscription.poll();
+        assertThat(update.isResyncRequired()).isFalse();
+        assertThat(update.getChanges())
+                .extracting(AvailabilityChange::getRoomId, AvailabilityChange::isAvailable)
+                .containsExactly(tuple("room1", false));
+
+        cancelAll("room1");
+
+        assertThat(subscription.poll().getChanges())
+                .extracting(AvailabilityChange::getRoomId, AvailabilityChange::isAvailable)
+                .containsExactly(tuple("room1", true));
+    }
+
+    @Test
+    @DisplayName("Should deliver the latest state when a change is reverted after the client read it")
+    void shouldDeliverRevertedChangeAsLatestState() {
+        AvailabilitySubscription subscription = bookingSystem.subscribeAvailability(windowStart, windowEnd, 10);
+
+        bookingSystem.bookRoom("room1", now.plusHours(2), now.plusHours(3));
+        assertThat(bookingSystem.getAvailableRooms(windowStart, windowEnd))
+                .extracting(Room::getId)
+                .doesNotContain("room1");
+        cancelAll("room1");
+
+        assertThat(subscription.poll().getChanges())
+                .extracting(AvailabilityChange::getRoomId, AvailabilityChange::isAvailable)
+                .containsExactly(tuple("room1", true));
+        assertThat(subscription.poll().isEmpty()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should ask for a resync when more rooms change than the buffer holds")
+    void shouldRequestResyncOnOverflow() {
+        AvailabilitySubscription subscription = bookingSystem.subscribeAvailability(windowStart, windowEnd, 2);
+
+        bookingSystem.bookRooms(List.of(
+                new BookingRequest("room1", now.plusHours(2), now.plusHours(3)),
+                new BookingRequest("room2", now.plusHours(2), now.plusHours(3)),
+                new BookingRequest("room3", now.plusHours(2), now.plusHours(3))));
+
+        AvailabilityUpdate update = subscription.poll();
+        assertThat(update.isResyncRequired()).isTrue();
+        assertThat(update.getChanges()).isEmpty();
+        assertThat(subscription.poll().isResyncRequired()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should wake a waiting client and stop delivering after close")
+    void shouldWakeWaitingClient() throws Exception {
+        AvailabilitySubscription subscription = bookingSystem.subscribeAvailability(windowStart, windowEnd, 10);
+
+        CompletableFuture<AvailabilityUpdate> waiting = CompletableFuture.supplyAsync(() -> {
+            try {
+                return subscription.take(Duration.ofSeconds(10));
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        bookingSystem.bookRoom("room3", now.plusHours(3), now.plusHours(5));
+
+        assertThat(waiting.get(5, TimeUnit.SECONDS).getChanges())
+                .extracting(AvailabilityChange::getRoomId)
+                .containsExactly("room3");
+
+        subscription.close();
+        bookingSystem.bookRoom("room2", now.plusHours(3), now.plusHours(5));
+        assertThat(subscription.isClosed()).isTrue();
+        assertThat(subscription.take(Duration.ofSeconds(5)).isEmpty()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should reject invalid subscriptions")
+    void shouldRejectInvalidSubscriptions() {
+        assertThatThrownBy(() -> bookingSystem.subscribeAvailability(windowEnd, windowStart, 10))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Sluttid måste vara efter starttid");
+        assertThatThrownBy(() -> bookingSystem.subscribeAvailability(windowStart, windowEnd, 0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private void cancelAll(String roomId) {
+        for (Booking booking : repository.findById(roomId).orElseThrow().getBookings()) {
+            bookingSystem.cancelBooking(booking.getId());
+        }
+    }
+}
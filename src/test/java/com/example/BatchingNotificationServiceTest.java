@@ -0,0 +1,201 @@
+package com.example;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@DisplayName("BatchingNotificationService Tests")
+class BatchingNotificationServiceTest {
+
+    private final LocalDateTime start = LocalDateTime.of(2026, 2, 9, 11, 0);
+    private final Booking booking = new Booking("booking1", "room1", start, start.plusHours(1));
+
+    @Test
+    @DisplayName("Should deliver queued notifications before close returns")
+    void shouldDeliverQueuedNotifications() throws Exception {
+        NotificationService delegate = mock(NotificationService.class, CALLS_REAL_METHODS);
+        BatchingNotificationService service = new BatchingNotificationService(delegate);
+
+        for (int i = 0; i < 250; i++) {
+            service.sendBookingConfirmation(booking);
+        }
+        service.sendCancellationConfirmation(booking);
+        service.close();
+
+        verify(delegate, times(250)).sendBookingConfirmation(booking);
+        verify(delegate).sendCancellationConfirmation(booking);
+        assertThat(service.getDeliveredCount()).isEqualTo(251);
+    }
+
+    @Test
+    @DisplayName("Should retry with backoff when the delegate fails")
+    void shouldRetryWhenDelegateFails() throws Exception {
+        NotificationService delegate = mock(NotificationService.class);
+        doThrow(new NotificationException("Failed to send"))
+                .doThrow(new NotificationException("Failed to send"))
+                .doNothing()
+                .when(delegate).sendBookingConfirmation(any(Booking.class));
+        BatchingNotificationService service = new BatchingNotificationService(delegate, 10, 5, 3, Duration.ofMillis(1));
+
+        service.sendBookingConfirmation(booking);
+        service.close();
+
+        verify(delegate, times(3)).sendBookingConfirmation(booking);
+        assertThat(service.getDeliveredCount()).isEqualTo(1);
+        assertThat(service.getFailedCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should give up after the maximum number of attempts")
+    void shouldGiveUpAfterMaxAttempts() throws Exception {
+        NotificationService delegate = mock(NotificationService.class);
+        doThrow(new NotificationException("Failed to send")).when(delegate).sendCancellationConfirmation(any(Booking.class));
+        BatchingNotificationService service = new BatchingNotificationService(delegate, 10, 5, 2, Duration.ofMillis(1));
+
+        service.sendCancellationConfirmation(booking);
+        service.close();
+
+        verify(delegate, times(2)).sendCancellationConfirmation(booking);
+        assertThat(service.getFailedCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should keep sending other notifications while a failed one waits for its retry")
+    void shouldNotHoldBackQueueDuringBackoff() throws Exception {
+        Booking other = new Booking("booking2", "room2", start, start.plusHours(1));
+        NotificationService delegate = mock(NotificationService.class);
+        doThrow(new NotificationException("Failed to send")).when(delegate).sendBookingConfirmation(booking);
+        BatchingNotificationService service = new BatchingNotificationService(delegate, 10, 5, 2, Duration.ofSeconds(1));
+
+        service.sendBookingConfirmation(booking);
+        verify(delegate, timeout(1_000)).sendBookingConfirmation(booking);
+        service.sendBookingConfirmation(other);
+
+        verify(delegate, timeout(500)).sendBookingConfirmation(other);
+        awaitCount(service::getDeliveredCount, 1);
+        awaitCount(service::getPendingCount, 1);
+
+        service.close();
+        verify(delegate, times(2)).sendBookingConfirmation(booking);
+        assertThat(service.getFailedCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should send notifications that queued up behind a slow send as one batch")
+    void shouldCoalesceQueuedNotifications() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        NotificationService delegate = mock(NotificationService.class, CALLS_REAL_METHODS);
+        doAnswer(invocation -> {
+            release.await();
+            return null;
+        }).when(delegate).sendBookingConfirmation(booking);
+        BatchingNotificationService service = new BatchingNotificationService(delegate, 10, 10, 1, 1, Duration.ofMillis(1));
+
+        service.sendBookingConfirmation(booking);
+        verify(delegate, timeout(1_000)).sendBookingConfirmation(booking);
+        List<Booking> queued = new ArrayList<>();
+        for (int i = 2; i <= 6; i++) {
+            Booking next = new Booking("booking" + i, "room1", start, start.plusHours(1));
+            queued.add(next);
+            service.sendBookingConfirmation(next);
+        }
+        release.countDown();
+        service.close();
+
+        verify(delegate).sendBookingConfirmations(queued);
+        assertThat(service.getDeliveredCount()).isEqualTo(6);
+    }
+
+    @Test
+    @DisplayName("Should block callers when the queue is full")
+    void shouldBlockCallersWhenQueueIsFull() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        NotificationService delegate = mock(NotificationService.class);
+        doAnswer(invocation -> {
+            release.await();
+            return null;
+        }).when(delegate).sendBookingConfirmation(any(Booking.class));
+        BatchingNotificationService service = new BatchingNotificationService(delegate, 1, 1, 1, 1, Duration.ofMillis(1));
+
+        service.sendBookingConfirmation(booking);
+        Thread.sleep(50);
+        service.sendBookingConfirmation(booking);
+        Thread producer = Thread.ofVirtual().start(() -> {
+            try {
+                service.sendBookingConfirmation(booking);
+            } catch (NotificationException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        assertThat(producer.join(Duration.ofMillis(200))).isFalse();
+
+        release.countDown();
+        assertThat(producer.join(Duration.ofSeconds(5))).isTrue();
+        service.close();
+        assertThat(service.getDeliveredCount()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Should deliver every notification that was accepted while closing")
+    void shouldDeliverEverythingAcceptedDuringClose() throws Exception {
+        NotificationService delegate = mock(NotificationService.class, CALLS_REAL_METHODS);
+        BatchingNotificationService service = new BatchingNotificationService(delegate, 16, 4, 1, Duration.ofMillis(1));
+        AtomicLong accepted = new AtomicLong();
+        List<Thread> producers = new ArrayList<>();
+        for (int p = 0; p < 4; p++) {
+            producers.add(Thread.ofVirtual().start(() -> {
+                try {
+                    for (int i = 0; i < 1_000; i++) {
+                        service.sendBookingConfirmation(booking);
+                        accepted.incrementAndGet();
+                    }
+                } catch (NotificationException e) {
+                    // Stängd under tiden, resten skickas inte
+                }
+            }));
+        }
+
+        Thread.sleep(5);
+        service.close();
+        for (Thread producer : producers) {
+            producer.join();
+        }
+
+        assertThat(service.getDeliveredCount()).isEqualTo(accepted.get());
+        verify(delegate, times((int) accepted.get())).sendBookingConfirmation(booking);
+    }
+
+    @Test
+    @DisplayName("Should reject notifications after close")
+    void shouldRejectNotificationsAfterClose() throws Exception {
+        BatchingNotificationService service = new BatchingNotificationService(mock(NotificationService.class));
+        service.close();
+
+        assertThatThrownBy(() -> service.sendBookingConfirmation(booking))
+                .isInstanceOf(NotificationException.class)
+                .hasMessage("Notifieringskön är stängd");
+    }
+
+    // Räknarna ökas på sändartråden efter att delegaten returnerat
+    private static void awaitCount(LongSupplier count, long expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (count.getAsLong() != expected && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertThat(count.getAsLong()).isEqualTo(expected);
+    }
+}
@@ -0,0 +1,126 @@
+package com.example;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assumptions.assumeThat;
+
+@DisplayName("Booking allocation Tests")
+class BookingAllocationTest {
+    private static final int WARMUP = 50_000;
+    private static final int MEASURED = 20_000;
+
+    private final LocalDateTime now = LocalDateTime.of(2026, 5, 4, 8, 0);
+
+    private com.sun.management.ThreadMXBean threads;
+    private Room room;
+    private BookingSystem bookingSystem;
+
+    @BeforeEach
+    void setUp() {
+        assumeThat(ManagementFactory.getThreadMXBean()).isInstanceOf(com.sun.management.ThreadMXBean.class);
+        threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeThat(threads.isThreadAllocatedMemorySupported()).isTrue();
+        threads.setThreadAllocatedMemoryEnabled(true);
+
+        InMemoryRoomRepository repository = new InMemoryRoomRepository();
+        room = new Room("room1", "Room 1");
+        repository.save(room);
+        bookingSystem = new BookingSystem(() -> now, repository, new NotificationService() {
+            @Override
+            public void sendBookingConfirmation(Booking booking) {
+            }
+
+            @Override
+            public void sendCancellationConfirmation(Booking booking) {
+            }
+        });
+        bookingSystem.setBookingIdGenerator(new TimeOrderedBookingIdGenerator());
+    }
+
+    @Test
+    @DisplayName("Should not allocate when the room is already booked")
+    void shouldNotAllocateOnConflict() {
+        LocalDateTime start = now.plusHours(1);
+        LocalDateTime end = now.plusHours(2);
+        assertThat(bookingSystem.bookRoom("room1", start, end)).isTrue();
+
+        for (int i = 0; i < WARMUP; i++) {
+            bookingSystem.bookRoom("room1", start, end);
+        }
+        long before = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < MEASURED; i++) {
+            bookingSystem.bookRoom("room1", start, end);
+        }
+        long perCall = (threads.getCurrentThreadAllocatedBytes() - before) / MEASURED;
+
+        assertThat(perCall).isLessThanOrEqualTo(8);
+    }
+
+    @Test
+    @DisplayName("Should allocate only the booking and its bookkeeping when booking succeeds")
+    void shouldAllocateOnlyTheBooking() {
+        long perBooking = allocatedPerBooking();
+
+        // Booking (32 byte), id-strängen (24 + 56 byte) och noden i systemets id-map (32 byte),
+        // plus ett objekt till som JIT:en inte alltid eliminerar när hela sviten körs
+        assertThat(perBooking).isLessThanOrEqualTo(192);
+    }
+
+    @Test
+    @DisplayName("Should allocate less per booking than random UUID ids")
+    void shouldAllocateLessThanRandomUuids() {
+        long timeOrdered = allocatedPerBooking();
+        setUp();
+        bookingSystem.setBookingIdGenerator(BookingIdGenerator.randomUuid());
+        long randomUuid = allocatedPerBooking();
+
+        assertThat(timeOrdered).isLessThan(randomUuid);
+    }
+
+    // Alla tider bokas först och de sista MEASURED avbokas, så att rummets kolumner, id-index
+    // och systemets id-map redan har vuxit färdigt när de bokas igen i mätfönstret
+    private long allocatedPerBooking() {
+        LocalDateTime[] starts = new LocalDateTime[WARMUP + MEASURED];
+        LocalDateTime[] ends = new LocalDateTime[WARMUP + MEASURED];
+        for (int i = 0; i < starts.length; i++) {
+            starts[i] = now.plusHours(2L * i + 1);
+            ends[i] = starts[i].plusHours(1);
+            bookingSystem.bookRoom("room1", starts[i], ends[i]);
+        }
+        for (Booking booking : room.getBookings(starts[WARMUP], ends[starts.length - 1])) {
+            bookingSystem.cancelBooking(booking.getId());
+        }
+        assertThat(room.getBookings()).hasSize(WARMUP);
+
+        long before = threads.getCurrentThreadAllocatedBytes();
+        for (int i = WARMUP; i < starts.length; i++) {
+            bookingSystem.bookRoom("room1", starts[i], ends[i]);
+        }
+        long perBooking = (threads.getCurrentThreadAllocatedBytes() - before) / MEASURED;
+        return perBooking;
+    }
+
+    @Test
+    @DisplayName("Should generate unique, time-ordered ids in UUID format")
+    void shouldGenerateUniqueIds() {
+        TimeOrderedBookingIdGenerator generator = new TimeOrderedBookingIdGenerator();
+        Set<String> ids = new HashSet<>();
+        String previous = generator.nextId();
+        for (int i = 0; i < 100_000; i++) {
+            String id = generator.nextId();
+            assertThat(java.util.UUID.fromString(id).version()).isEqualTo(7);
+            assertThat(id.substring(0, 13).compareTo(previous.substring(0, 13))).isGreaterThanOrEqualTo(0);
+            ids.add(id);
+            previous = id;
+        }
+        assertThat(ids).hasSize(100_000);
+    }
+}
@@ -0,0 +1,176 @@
+package com.example;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@DisplayName("BookingArchive Tests")
+class BookingArchiveTest {
+
+    @TempDir
+    Path directory;
+
+    private final LocalDateTime now = LocalDateTime.of(2026, 3, 2, 12, 0);
+
+    private InMemoryRoomRepository repository;
+    private BookingSystem bookingSystem;
+
+    @BeforeEach
+    void setUp() {
+        TimeProvider timeProvider = mock(TimeProvider.class);
+        when(timeProvider.getCurrentTime()).thenReturn(now);
+        repository = new InMemoryRoomRepository();
+        bookingSystem = new BookingSystem(timeProvider, repository, mock(NotificationService.class));
+
+        Room room1 = new Room("room1", "Room 1");
+        room1.addBooking(new Booking("old1", "room1", now.minusDays(2), now.minusDays(2).plusHours(1)));
+        room1.addBooking(new Booking("old2", "room1", now.minusDays(1), now.minusDays(1).plusHours(2)));
+        room1.addBooking(new Booking("ongoing", "room1", now.minusHours(1), now.plusHours(1)));
+        room1.addBooking(new Booking("future", "room1", now.plusDays(1), now.plusDays(1).plusHours(1)));
+        repository.save(room1);
+
+        Room room2 = new Room("room2", "Room 2");
+        room2.addBooking(new Booking("old3", "room2", now.minusDays(1), now.minusDays(1).plusHours(1)));
+        repository.save(room2);
+    }
+
+    @Test
+    @DisplayName("Should move ended bookings out of the rooms and keep current and future ones")
+    void shouldArchiveEndedBookings() {
+        BookingArchive archive = new BookingArchive(directory);
+
+        assertThat(bookingSystem.archivePastBookings(archive)).isEqualTo(3);
+
+        assertThat(repository.findById("room1").orElseThrow().getBookings())
+                .extracting(Booking::getId)
+                .containsExactlyInAnyOrder("ongoing", "future");
+        assertThat(repository.findById("room2").orElseThrow().getBookings()).isEmpty();
+        assertThat(archive.size()).isEqualTo(3);
+        assertThat(bookingSystem.archivePastBookings(archive)).isZero();
+    }
+
+    @Test
+    @DisplayName("Should find archived bookings by room and interval")
+    void shouldQueryArchivedBookings() {
+        BookingArchive archive = new BookingArchive(directory);
+        bookingSystem.archivePastBookings(archive);
+
+        assertThat(archive.findBookings("room1", now.minusDays(3), now))
+                .extracting(Booking::getId)
+                .containsExactly("old1", "old2");
+        assertThat(archive.findBookings(null, now.minusDays(1).plusMinutes(30), now.minusDays(1).plusMinutes(30)))
+                .extracting(Booking::getId)
+                .containsExactlyInAnyOrder("old2", "old3");
+        assertThat(archive.findBookings("room2", now.minusDays(2), now.minusDays(2).plusHours(5))).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should read segments written by an earlier instance")
+    void shouldReopenSegments() {
+        bookingSystem.archivePastBookings(new BookingArchive(directory));
+
+        BookingArchive reopened = new BookingArchive(directory);
+        reopened.append(List.of(new Booking("old4", "room2", now.minusDays(5), now.minusDays(5).plusHours(1))));
+
+        List<Booking> bookings = new BookingArchive(directory).findBookings(null, now.minusDays(10), now);
+        assertThat(bookings)
+                .extracting(Booking::getId)
+                .containsExactly("old4", "old1", "old2", "old3");
+        assertThat(bookings.get(1).getRoomId()).isEqualTo("room1");
+        assertThat(bookings.get(1).getEndTime()).isEqualTo(now.minusDays(2).plusHours(1));
+    }
+
+    @Test
+    @DisplayName("Should keep appending to the log until it is full and then write one segment")
+    void shouldRollActiveSegment() throws IOException {
+        try (BookingArchive archive = new BookingArchive(directory, 3)) {
+            archive.append(List.of(booking("a1", 10)));
+            archive.append(List.of(booking("a2", 9)));
+
+            assertThat(archive.segmentCount()).isZero();
+            assertThat(segmentFiles()).isEmpty();
+
+            archive.append(List.of(booking("a3", 8)));
+
+            assertThat(archive.segmentCount()).isEqualTo(1);
+            assertThat(segmentFiles()).hasSize(1);
+            assertThat(archive.findBookings(null, now.minusDays(20), now))
+                    .extracting(Booking::getId)
+                    .containsExactly("a1", "a2", "a3");
+        }
+    }
+
+    @Test
+    @DisplayName("Should merge segments of the same size without changing query results")
+    void shouldCompactSegments() throws IOException {
+        try (BookingArchive archive = new BookingArchive(directory, 1)) {
+            for (int day = 1; day <= 5; day++) {
+                archive.append(List.of(booking("b" + day, day)));
+            }
+
+            assertThat(archive.segmentCount()).isEqualTo(2);
+            assertThat(segmentFiles()).hasSize(2);
+
+            archive.compact();
+
+            assertThat(segmentFiles()).hasSize(1);
+            assertThat(archive.size()).isEqualTo(5);
+            assertThat(archive.findBookings(null, now.minusDays(4).minusMinutes(30), now))
+                    .extracting(Booking::getId)
+                    .containsExactly("b4", "b3", "b2", "b1");
+        }
+
+        try (BookingArchive reopened = new BookingArchive(directory, 1)) {
+            assertThat(reopened.findBookings(null, now.minusDays(10), now))
+                    .extracting(Booking::getId)
+                    .containsExactly("b5", "b4", "b3", "b2", "b1");
+        }
+    }
+
+    @Test
+    @DisplayName("Should keep ids that are not plain ASCII intact in the log and in segments")
+    void shouldRoundTripUnicodeIds() throws IOException {
+        List<String> ids = List.of("bokning-åäö", "nul-\u0000-tecken", "emoji-\uD83D\uDE00");
+        try (BookingArchive archive = new BookingArchive(directory, 10)) {
+            archive.append(List.of(booking(ids.get(0), "rum-ä", 3), booking(ids.get(1), "rum-ä", 2),
+                    booking(ids.get(2), "rum-ä", 1)));
+        }
+
+        try (BookingArchive reopened = new BookingArchive(directory, 10)) {
+            assertThat(reopened.findBookings(null, now.minusDays(10), now))
+                    .extracting(Booking::getId)
+                    .containsExactlyElementsOf(ids);
+            reopened.compact();
+            assertThat(segmentFiles()).hasSize(1);
+            assertThat(reopened.findBookings("rum-ä", now.minusDays(10), now))
+                    .extracting(Booking::getId)
+                    .containsExactlyElementsOf(ids);
+        }
+    }
+
+    private Booking booking(String id, int daysAgo) {
+        return booking(id, "room1", daysAgo);
+    }
+
+    private Booking booking(String id, String roomId, int daysAgo) {
+        return new Booking(id, roomId, now.minusDays(daysAgo), now.minusDays(daysAgo).plusHours(1));
+    }
+
+    private List<Path> segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".seg")).toList();
+        }
+    }
+}
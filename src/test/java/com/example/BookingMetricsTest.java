@@ -0,0 +1,168 @@
+package com.example;
+
+import com.example.metrics.BookingMetrics;
+import com.example.metrics.InMemoryMetricsExporter;
+import com.example.metrics.LatencyHistogram;
+import com.example.metrics.LatencySnapshot;
+import com.example.metrics.Operation;
+import com.example.metrics.Outcome;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@DisplayName("BookingMetrics Tests")
+class BookingMetricsTest {
+
+    @Nested
+    @DisplayName("LatencyHistogram")
+    class HistogramTests {
+
+        @Test
+        @DisplayName("Should report percentiles within the bucket precision")
+        void shouldReportPercentiles() {
+            LatencyHistogram histogram = new LatencyHistogram();
+            for (long value = 1; value <= 100_000; value++) {
+                histogram.record(value * 1_000);
+            }
+
+            LatencySnapshot snapshot = histogram.snapshot();
+            assertThat(snapshot.getCount()).isEqualTo(100_000);
+            assertThat(snapshot.getMaxNanos()).isEqualTo(100_000_000);
+            assertThat((double) snapshot.getValueAtPercentile(50)).isCloseTo(50_000_000, within(1_600_000.0));
+            assertThat((double) snapshot.getValueAtPercentile(99)).isCloseTo(99_000_000, within(3_100_000.0));
+            assertThat(snapshot.getValueAtPercentile(100)).isEqualTo(100_000_000);
+            assertThat(snapshot.getMeanNanos()).isCloseTo(50_000_500.0, within(1.0));
+        }
+
+        @Test
+        @DisplayName("Should keep small values exact")
+        void shouldKeepSmallValuesExact() {
+            LatencyHistogram histogram = new LatencyHistogram();
+            histogram.record(3);
+            histogram.record(40);
+            histogram.record(-5);
+
+            LatencySnapshot snapshot = histogram.snapshot();
+            assertThat(snapshot.getValueAtPercentile(0)).isZero();
+            assertThat(snapshot.getValueAtPercentile(50)).isEqualTo(3);
+            assertThat(snapshot.getValueAtPercentile(100)).isEqualTo(40);
+        }
+
+        @Test
+        @DisplayName("Should handle an empty histogram and reject invalid percentiles")
+        void shouldHandleEmptyHistogram() {
+            LatencySnapshot snapshot = new LatencyHistogram().snapshot();
+            assertThat(snapshot.getValueAtPercentile(99)).isZero();
+            assertThat(snapshot.getMeanNanos()).isZero();
+            assertThatThrownBy(() -> snapshot.getValueAtPercentile(101))
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    @Nested
+    @DisplayName("BookingSystem instrumentation")
+    class BookingSystemTests {
+        private final LocalDateTime now = LocalDateTime.of(2026, 4, 1, 9, 0);
+
+        private NotificationService notificationService;
+        private BookingSystem bookingSystem;
+        private BookingMetrics metrics;
+
+        @BeforeEach
+        void setUp() {
+            TimeProvider timeProvider = mock(TimeProvider.class);
+            when(timeProvider.getCurrentTime()).thenReturn(now);
+            notificationService = mock(NotificationService.class);
+            InMemoryRoomRepository repository = new InMemoryRoomRepository();
+            repository.save(new Room("room1", "Room 1"));
+            bookingSystem = new BookingSystem(timeProvider, repository, notificationService);
+            metrics = new BookingMetrics();
+            bookingSystem.setMetrics(metrics);
+        }
+
+        @Test
+        @DisplayName("Should count outcomes and latencies per operation")
+        void shouldCountOutcomes() {
+            assertThat(bookingSystem.bookRoom("room1", now.plusHours(1), now.plusHours(2))).isTrue();
+            assertThat(bookingSystem.bookRoom("room1", now.plusHours(1), now.plusHours(2))).isFalse();
+            assertThatThrownBy(() -> bookingSystem.bookRoom("room1", now.minusHours(1), now))
+                    .isInstanceOf(IllegalArgumentException.class);
+            assertThat(bookingSystem.cancelBooking("missing")).isFalse();
+            bookingSystem.getAvailableRooms(now, now.plusHours(1));
+
+            assertThat(metrics.getCount(Operation.BOOK_ROOM, Outcome.SUCCESS)).isEqualTo(1);
+            assertThat(metrics.getCount(Operation.BOOK_ROOM, Outcome.CONFLICT)).isEqualTo(1);
+            assertThat(metrics.getCount(Operation.BOOK_ROOM, Outcome.INVALID)).isEqualTo(1);
+            assertThat(metrics.getCount(Operation.CANCEL_BOOKING, Outcome.NOT_FOUND)).isEqualTo(1);
+            assertThat(metrics.getCount(Operation.GET_AVAILABLE_ROOMS, Outcome.SUCCESS)).isEqualTo(1);
+            assertThat(metrics.getLatency(Operation.BOOK_ROOM).getCount()).isEqualTo(3);
+        }
+
+        @Test
+        @DisplayName("Should count each request of a batch booking")
+        void shouldCountBatchOutcomes() {
+            bookingSystem.bookRooms(List.of(
+                    new BookingRequest("room1", now.plusHours(1), now.plusHours(2)),
+                    new BookingRequest("room1", now.plusHours(1), now.plusHours(2)),
+                    new BookingRequest("room1", now.minusHours(1), now)));
+            assertThatThrownBy(() -> bookingSystem.bookRooms(null))
+                    .isInstanceOf(IllegalArgumentException.class);
+
+            assertThat(metrics.getCount(Operation.BOOK_ROOMS, Outcome.SUCCESS)).isEqualTo(1);
+            assertThat(metrics.getCount(Operation.BOOK_ROOMS, Outcome.CONFLICT)).isEqualTo(1);
+            assertThat(metrics.getCount(Operation.BOOK_ROOMS, Outcome.INVALID)).isEqualTo(2);
+            assertThat(metrics.getLatency(Operation.BOOK_ROOMS).getCount()).isEqualTo(4);
+            assertThat(metrics.getCount(Operation.BOOK_ROOM, Outcome.SUCCESS)).isZero();
+        }
+
+        @Test
+        @DisplayName("Should track notification success rate")
+        void shouldTrackNotifications() throws NotificationException {
+            doThrow(new NotificationException("nere")).when(notificationService).sendBookingConfirmation(any());
+
+            bookingSystem.bookRoom("room1", now.plusHours(1), now.plusHours(2));
+            bookingSystem.bookRoom("room1", now.plusHours(3), now.plusHours(4));
+
+            assertThat(metrics.getNotificationsFailed()).isEqualTo(2);
+            assertThat(metrics.getNotificationsSent()).isZero();
+            assertThat(metrics.getNotificationSuccessRate()).isZero();
+        }
+
+        @Test
+        @DisplayName("Should export counters and latencies under stable names")
+        void shouldExport() {
+            bookingSystem.bookRoom("room1", now.plusHours(1), now.plusHours(2));
+
+            InMemoryMetricsExporter exporter = new InMemoryMetricsExporter();
+            metrics.exportTo(exporter);
+
+            assertThat(exporter.getCounter("bookRoom.success")).isEqualTo(1);
+            assertThat(exporter.getCounter("cancelBooking.invalid")).isZero();
+            assertThat(exporter.getCounter("notification.sent")).isEqualTo(1);
+            assertThat(exporter.getLatency("bookRoom.latency")).get()
+                    .extracting(LatencySnapshot::getCount)
+                    .isEqualTo(1L);
+        }
+
+        @Test
+        @DisplayName("Should stop recording when metrics are removed")
+        void shouldStopRecording() {
+            bookingSystem.setMetrics(null);
+            bookingSystem.bookRoom("room1", now.plusHours(1), now.plusHours(2));
+
+            assertThat(metrics.getCount(Operation.BOOK_ROOM, Outcome.SUCCESS)).isZero();
+        }
+    }
+}
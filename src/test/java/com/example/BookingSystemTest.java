@@ -8,14 +8,20 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
+import org.mockito.Answers;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -30,7 +36,8 @@ class BookingSystemTest {
     @Mock
     private TimeProvider timeProvider;
 
-    @Mock
+    // Standardmetoderna i RoomRepository (t.ex. streamAll) ska gå via de stubbade metoderna
+    @Mock(answer = Answers.CALLS_REAL_METHODS)
     private RoomRepository roomRepository;
 
     @Mock
@@ -132,6 +139,80 @@ class BookingSystemTest {
         }
     }
 
+    @Nested
+    @DisplayName("bookRooms() Tests")
+    class BookRoomsTests {
+
+        @Test
+        @DisplayName("Should save each room once for a recurring series")
+        void testBookRooms_SavesEachRoomOnce() throws NotificationException {
+            Room otherRoom = new Room("room2", "Other Room");
+            when(roomRepository.findById(roomId)).thenReturn(Optional.of(room));
+            when(roomRepository.findById("room2")).thenReturn(Optional.of(otherRoom));
+
+            List<BookingResult> results = bookingSystem.bookRooms(List.of(
+                    new BookingRequest(roomId, startTime, endTime),
+                    new BookingRequest("room2", startTime, endTime),
+                    new BookingRequest(roomId, startTime.plusDays(1), endTime.plusDays(1)),
+                    new BookingRequest(roomId, startTime.plusDays(2), endTime.plusDays(2))));
+
+            assertThat(results).allMatch(BookingResult::isSuccess);
+            assertThat(room.getBookings()).hasSize(3);
+            verify(roomRepository, times(1)).findById(roomId);
+            verify(roomRepository, times(1)).save(room);
+            verify(roomRepository, times(1)).save(otherRoom);
+            verify(notificationService, times(4)).sendBookingConfirmation(any(Booking.class));
+        }
+
+        @Test
+        @DisplayName("Should report conflicts with existing bookings and within the batch")
+        void testBookRooms_ReportsConflicts() {
+            room.addBooking(booking);
+            when(roomRepository.findById(roomId)).thenReturn(Optional.of(room));
+
+            List<BookingResult> results = bookingSystem.bookRooms(List.of(
+                    new BookingRequest(roomId, startTime, endTime),
+                    new BookingRequest(roomId, startTime.plusDays(1), endTime.plusDays(1)),
+                    new BookingRequest(roomId, startTime.plusDays(1).plusMinutes(30), endTime.plusDays(1))));
+
+            assertThat(results).extracting(BookingResult::getStatus).containsExactly(
+                    BookingResult.Status.CONFLICT, BookingResult.Status.BOOKED, BookingResult.Status.CONFLICT);
+            verify(roomRepository, times(1)).save(room);
+        }
+
+        @Test
+        @DisplayName("Should report invalid requests without failing the batch")
+        void testBookRooms_ReportsInvalidRequests() {
+            when(roomRepository.findById(roomId)).thenReturn(Optional.of(room));
+            when(roomRepository.findById("missing")).thenReturn(Optional.empty());
+
+            List<BookingResult> results = bookingSystem.bookRooms(List.of(
+                    new BookingRequest(roomId, now.minusHours(1), endTime),
+                    new BookingRequest(roomId, endTime, startTime),
+                    new BookingRequest("missing", startTime, endTime),
+                    new BookingRequest(roomId, startTime, endTime)));
+
+            assertThat(results).extracting(BookingResult::getFailureReason).containsExactly(
+                    "Kan inte boka tid i dåtid",
+                    "Sluttid måste vara efter starttid",
+                    "Rummet existerar inte",
+                    null);
+            assertThat(results.get(3).getBooking().getRoomId()).isEqualTo(roomId);
+        }
+
+        @Test
+        @DisplayName("Should not save a room when every request conflicts")
+        void testBookRooms_NoSaveWhenNothingBooked() {
+            room.addBooking(booking);
+            when(roomRepository.findById(roomId)).thenReturn(Optional.of(room));
+
+            List<BookingResult> results = bookingSystem.bookRooms(List.of(new BookingRequest(roomId, startTime, endTime)));
+
+            assertThat(results).noneMatch(BookingResult::isSuccess);
+            verify(roomRepository, never()).save(any());
+        }
+    }
+
     @Nested
     @DisplayName("cancelBooking() Tests")
     class CancelBookingTests {
@@ -140,6 +221,7 @@ class BookingSystemTest {
         void setup() {
             room.addBooking(booking);
             lenient().when(roomRepository.findAll()).thenReturn(Collections.singletonList(room));
+            lenient().when(roomRepository.findById(roomId)).thenReturn(Optional.of(room));
         }
 
         @Test
@@ -198,6 +280,119 @@ class BookingSystemTest {
             assertThat(result).isTrue();
             verify(roomRepository).save(room);
         }
+
+        @Test
+        @DisplayName("Should cancel via booking index without scanning all rooms")
+        void testCancelBooking_UsesBookingIndex() {
+            Room freshRoom = new Room("room2", "Fresh Room");
+            when(roomRepository.findById("room2")).thenReturn(Optional.of(freshRoom));
+            bookingSystem.bookRoom("room2", startTime, endTime);
+            String newBookingId = freshRoom.getBookings().iterator().next().getId();
+
+            boolean result = bookingSystem.cancelBooking(newBookingId);
+
+            assertThat(result).isTrue();
+            assertThat(freshRoom.hasBooking(newBookingId)).isFalse();
+            verify(roomRepository, never()).findAll();
+        }
+
+        @Test
+        @DisplayName("Should stop streaming rooms once the booking is found")
+        void testCancelBooking_ShortCircuitsRoomStream() {
+            when(roomRepository.streamAll()).thenReturn(Stream.concat(
+                    Stream.of(room),
+                    Stream.generate(() -> {
+                        throw new AssertionError("Fler rum lästes än nödvändigt");
+                    })));
+
+            boolean result = bookingSystem.cancelBooking(bookingId);
+
+            assertThat(result).isTrue();
+            verify(roomRepository, never()).findAll();
+        }
+
+        @Test
+        @DisplayName("Should fall back to a rescan when the index is stale")
+        void testCancelBooking_StaleIndexAfterReload() {
+            Room freshRoom = new Room("room2", "Fresh Room");
+            when(roomRepository.findById("room2")).thenReturn(Optional.of(freshRoom));
+            bookingSystem.bookRoom("room2", startTime, endTime);
+            Booking stored = freshRoom.getBookings().iterator().next();
+
+            // Repositoryt laddas om och bokningen ligger nu i ett annat rum
+            Room reloadedRoom = new Room("room3", "Reloaded Room");
+            reloadedRoom.addBooking(new Booking(stored.getId(), "room3", stored.getStartTime(), stored.getEndTime()));
+            when(roomRepository.findById("room2")).thenReturn(Optional.of(new Room("room2", "Fresh Room")));
+            when(roomRepository.findAll()).thenReturn(List.of(room, reloadedRoom));
+            when(roomRepository.findById("room3")).thenReturn(Optional.of(reloadedRoom));
+
+            boolean result = bookingSystem.cancelBooking(stored.getId());
+
+            assertThat(result).isTrue();
+            assertThat(reloadedRoom.hasBooking(stored.getId())).isFalse();
+            verify(roomRepository).save(reloadedRoom);
+        }
+
+        @Test
+        @DisplayName("Should scan the rooms only once for unknown bookings")
+        void testCancelBooking_UnknownBookingScansOnce() {
+            assertThat(bookingSystem.cancelBooking("unknown1")).isFalse();
+            assertThat(bookingSystem.cancelBooking("unknown2")).isFalse();
+            assertThat(bookingSystem.cancelBooking(bookingId)).isTrue();
+            assertThat(bookingSystem.cancelBooking(bookingId)).isFalse();
+
+            verify(roomRepository, times(1)).findAll();
+        }
+
+        @Test
+        @DisplayName("Should not mark the index complete after a concurrent rebuild cleared it")
+        void testCancelBooking_ScanRacingRebuild() throws InterruptedException {
+            CountDownLatch rebuildScanning = new CountDownLatch(1);
+            CountDownLatch releaseRebuild = new CountDownLatch(1);
+            AtomicInteger scans = new AtomicInteger();
+            Thread[] rebuild = new Thread[1];
+            when(roomRepository.streamAll()).thenAnswer(invocation -> switch (scans.incrementAndGet()) {
+                // Den första genomsökningen har indexerat alla rum när ombyggnaden tömmer indexet
+                case 1 -> Stream.of(room).onClose(() -> {
+                    rebuild[0] = Thread.ofPlatform().start(bookingSystem::rebuildBookingIndex);
+                    awaitLatch(rebuildScanning);
+                });
+                case 2 -> {
+                    rebuildScanning.countDown();
+                    awaitLatch(releaseRebuild);
+                    yield Stream.of(room);
+                }
+                default -> Stream.of(room);
+            });
+
+            try {
+                assertThat(bookingSystem.cancelBooking("unknown")).isFalse();
+                assertThat(bookingSystem.cancelBooking(bookingId)).isTrue();
+            } finally {
+                releaseRebuild.countDown();
+                rebuild[0].join();
+            }
+            assertThat(scans.get()).isEqualTo(3);
+        }
+
+        @Test
+        @DisplayName("Should save the room as read under the lock, not the copy from the lookup")
+        void testCancelBooking_RereadsRoomUnderLock() {
+            // Uppslaget ser en äldre kopia; en bokning har lagts till i den sparade versionen sedan dess
+            Room current = new Room(roomId, "Test Room");
+            current.addBooking(booking);
+            Booking later = new Booking("laterBooking", roomId, startTime.plusDays(1), endTime.plusDays(1));
+            current.addBooking(later);
+            when(roomRepository.findById(roomId)).thenReturn(Optional.of(current));
+
+            boolean result = bookingSystem.cancelBooking(bookingId);
+
+            assertThat(result).isTrue();
+            assertThat(current.hasBooking(bookingId)).isFalse();
+            assertThat(current.hasBooking("laterBooking")).isTrue();
+            verify(roomRepository).save(current);
+            verify(roomRepository, never()).save(room);
+        }
     }
 
     @Nested
@@ -238,6 +433,31 @@ class BookingSystemTest {
             assertThat(availableRooms).containsExactlyInAnyOrder(room, anotherRoom);
         }
 
+        @Test
+        @DisplayName("Should return the same ordered result when searching in parallel")
+        void testGetAvailableRooms_ParallelSearchKeepsOrder() {
+            List<Room> rooms = new ArrayList<>();
+            for (int i = 0; i < 500; i++) {
+                Room candidate = new Room("room" + i, "Room " + i);
+                if (i % 3 == 0) {
+                    candidate.addBooking(new Booking("booking" + i, candidate.getId(), startTime, endTime));
+                }
+                rooms.add(candidate);
+            }
+            when(roomRepository.findAll()).thenReturn(rooms);
+            List<Room> sequential = bookingSystem.getAvailableRooms(startTime, endTime);
+
+            ForkJoinPool pool = new ForkJoinPool(4);
+            try {
+                bookingSystem.enableParallelSearch(pool, 1);
+                List<Room> parallel = bookingSystem.getAvailableRooms(startTime, endTime);
+
+                assertThat(parallel).containsExactlyElementsOf(sequential).hasSize(333);
+            } finally {
+                pool.shutdown();
+            }
+        }
+
         @Test
         @DisplayName("Should throw exception when end time is before start time")
         void testGetAvailableRooms_InvalidTime_EndTimeBeforeStartTime() {
@@ -274,4 +494,13 @@ class BookingSystemTest {
                 Arguments.of(validTime, null)
         );
     }
-}
\ No newline at end of file
+
+    private static void awaitLatch(CountDownLatch latch) {
+        try {
+            assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AssertionError(e);
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.example;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("CachingRoomRepository Tests")
+class CachingRoomRepositoryTest {
+
+    @Mock
+    private RoomRepository delegate;
+
+    private CachingRoomRepository repository;
+    private final Room room1 = new Room("room1", "Room 1");
+    private final Room room2 = new Room("room2", "Room 2");
+    private final Room room3 = new Room("room3", "Room 3");
+
+    @BeforeEach
+    void setUp() {
+        repository = new CachingRoomRepository(delegate, 2);
+    }
+
+    @Test
+    @DisplayName("Should serve repeated lookups from the cache")
+    void shouldServeRepeatedLookupsFromCache() {
+        when(delegate.findById("room1")).thenReturn(Optional.of(room1));
+
+        assertThat(repository.findById("room1")).contains(room1);
+        assertThat(repository.findById("room1")).contains(room1);
+
+        verify(delegate, times(1)).findById("room1");
+        assertThat(repository.getHitCount()).isEqualTo(1);
+        assertThat(repository.getMissCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should evict the least recently used room")
+    void shouldEvictLeastRecentlyUsedRoom() {
+        when(delegate.findById("room2")).thenReturn(Optional.of(room2));
+        repository.save(room1);
+        repository.save(room2);
+        repository.findById("room1");
+        repository.save(room3);
+
+        assertThat(repository.getEvictionCount()).isEqualTo(1);
+        assertThat(repository.size()).isEqualTo(2);
+
+        repository.findById("room1");
+        repository.findById("room2");
+
+        verify(delegate, never()).findById("room1");
+        verify(delegate).findById("room2");
+    }
+
+    @Test
+    @DisplayName("Should write through and update the findAll snapshot on save")
+    void shouldWriteThroughAndUpdateSnapshot() {
+        when(delegate.findAll()).thenReturn(List.of(room1));
+
+        assertThat(repository.findAll()).containsExactly(room1);
+        assertThat(repository.findAll()).containsExactly(room1);
+        verify(delegate, times(1)).findAll();
+
+        repository.save(room2);
+        repository.save(room1);
+
+        verify(delegate).save(room2);
+        assertThat(repository.findAll()).containsExactly(room1, room2);
+        repository.deleteById("room1");
+        assertThat(repository.findAll()).containsExactly(room2);
+        verify(delegate, times(1)).findAll();
+    }
+
+    @Test
+    @DisplayName("Should build the snapshot when streaming all rooms")
+    void shouldCacheStreamedRooms() {
+        when(delegate.findAll()).thenReturn(List.of(room1, room2));
+
+        assertThat(repository.streamAll()).containsExactly(room1, room2);
+        repository.save(room1);
+        assertThat(repository.streamAll()).containsExactly(room1, room2);
+
+        verify(delegate, times(1)).findAll();
+        verify(delegate, never()).streamAll();
+    }
+
+    @Test
+    @DisplayName("Should return the cached room when it was saved while loading")
+    void shouldPreferRoomCachedDuringLoad() {
+        Room newer = new Room("room1", "Room 1");
+        when(delegate.findById("room1")).thenAnswer(invocation -> {
+            // En annan tråd sparar rummet medan den långsamma läsningen pågår
+            repository.save(newer);
+            return Optional.of(room1);
+        });
+
+        assertThat(repository.findById("room1")).containsSame(newer);
+        assertThat(repository.findByIdOrNull("room1")).isSameAs(newer);
+    }
+
+    @Test
+    @DisplayName("Should not cache a room that was deleted while loading")
+    void shouldNotCacheRoomDeletedDuringLoad() {
+        when(delegate.findById("room1")).thenAnswer(invocation -> {
+            // En annan tråd tar bort rummet medan den långsamma läsningen pågår
+            repository.deleteById("room1");
+            return Optional.of(room1);
+        }).thenReturn(Optional.empty());
+
+        assertThat(repository.findById("room1")).containsSame(room1);
+        assertThat(repository.size()).isZero();
+        assertThat(repository.findById("room1")).isEmpty();
+        verify(delegate, times(2)).findById("room1");
+    }
+
+    @Test
+    @DisplayName("Should not cache missing rooms")
+    void shouldNotCacheMissingRooms() {
+        when(delegate.findById("missing")).thenReturn(Optional.empty());
+
+        assertThat(repository.findById("missing")).isEmpty();
+        assertThat(repository.findById("missing")).isEmpty();
+
+        verify(delegate, times(2)).findById("missing");
+    }
+}
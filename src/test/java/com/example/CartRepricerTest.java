@@ -0,0 +1,148 @@
+package com.example;
+
+import com.example.shop.CartItem;
+import com.example.shop.CartRepricer;
+import com.example.shop.CartStore;
+import com.example.shop.RepricingReport;
+import com.example.shop.ShoppingCart;
+import com.example.shop.pricing.CartPriceCache;
+import com.example.shop.pricing.PercentageItemDiscount;
+import com.example.shop.pricing.PricingEngine;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("CartRepricer Tests")
+class CartRepricerTest {
+    private static final Duration TTL = Duration.ofMinutes(30);
+
+    private LocalDateTime now = LocalDateTime.of(2026, 9, 7, 8, 0);
+    private ExecutorService executor;
+    private CartStore store;
+    private CartRepricer repricer;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newFixedThreadPool(4);
+        store = new CartStore(() -> now, TTL, 4096);
+        repricer = new CartRepricer(store, executor, 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+        store.close();
+    }
+
+    @Test
+    @DisplayName("Should keep the store's item index in step with the carts")
+    void shouldIndexCartsByItem() {
+        ShoppingCart cart = store.getOrCreate("cart1", "Cart 1");
+        CartItem shirt = new CartItem("shirt", "Shirt", 1_000, 1);
+        cart.addItem(shirt);
+        assertThat(store.getCartIdsWith("shirt")).containsExactly("cart1");
+
+        cart.addItem(new CartItem("socks", "Socks", 200, 2));
+        cart.removeItem(shirt);
+        assertThat(store.getCartIdsWith("socks")).containsExactly("cart1");
+        assertThat(store.getCartIdsWith("shirt")).isEmpty();
+
+        now = now.plus(TTL);
+        store.evictIdle();
+        assertThat(store.getCartIdsWith("socks")).containsExactly("cart1");
+
+        store.remove("cart1");
+        cart.addItem(shirt);
+        assertThat(store.getCartIdsWith("socks")).isEmpty();
+        assertThat(store.getCartIdsWith("shirt")).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should reprice only the affected carts and adjust their totals")
+    void shouldRepriceAffectedCarts() {
+        for (int i = 0; i < 10; i++) {
+            ShoppingCart cart = store.getOrCreate("cart" + i, "Cart " + i);
+            cart.addItem(new CartItem("hat", "Hat", 500, 1));
+            if (i % 2 == 0) {
+                cart.addItem(new CartItem("shirt", "Shirt", 1_000, 2));
+            }
+            if (i % 3 == 0) {
+                cart.addItem(new CartItem("socks", "Socks", 200, 3));
+            }
+        }
+
+        RepricingReport report = repricer.reprice(Map.of("shirt", 1_200, "socks", 200, "missing", 1));
+
+        // Carts 0, 2, 3, 4, 6, 8 and 9 hold shirt or socks; only shirt lines change price
+        assertThat(report.getCartsRepriced()).isEqualTo(7);
+        assertThat(report.getLinesUpdated()).isEqualTo(5);
+        assertThat(report.getBatches()).isEqualTo(4);
+        assertThat(report.getCartsPerSecond()).isPositive();
+        assertThat(cart("cart0").getTotalPriceMinor()).isEqualTo(500 + 2_400 + 600);
+        assertThat(cart("cart1").getTotalPriceMinor()).isEqualTo(500);
+        assertThat(cart("cart2").getTotalPriceMinor()).isEqualTo(500 + 2_400);
+        assertThat(cart("cart2").getItem("shirt").getPrice()).isEqualTo(1_200);
+    }
+
+    @Test
+    @DisplayName("Should reprice spilled carts without bringing them back on the heap")
+    void shouldRepriceSpilledCarts() {
+        ShoppingCart cart = store.getOrCreate("cart1", "Cart 1");
+        cart.addItem(new CartItem("shirt", "Shirt", 1_000, 2));
+        cart.addItem(new CartItem("hat", "Hat", 500, 1));
+        now = now.plus(TTL);
+        store.evictIdle();
+
+        RepricingReport report = repricer.reprice(Map.of("shirt", 1_500));
+
+        assertThat(report.getLinesUpdated()).isEqualTo(1);
+        assertThat(store.getSpilledCartCount()).isEqualTo(1);
+        ShoppingCart rehydrated = cart("cart1");
+        assertThat(rehydrated.getItem("shirt").getPrice()).isEqualTo(1_500);
+        assertThat(rehydrated.getTotalPriceMinor()).isEqualTo(3_000 + 500);
+    }
+
+    @Test
+    @DisplayName("Should let a price cache see repriced lines")
+    void shouldUpdatePriceCaches() {
+        ShoppingCart cart = store.getOrCreate("cart1", "Cart 1");
+        cart.addItem(new CartItem("shirt", "Shirt", 1_000, 1));
+        try (CartPriceCache cache = new PricingEngine(List.of(new PercentageItemDiscount("shirt", 10))).cacheFor(cart)) {
+            assertThat(cache.getPrice().getTotalMinor()).isEqualTo(900);
+
+            repricer.reprice(Map.of("shirt", 2_000));
+
+            assertThat(cache.getPrice().getTotalMinor()).isEqualTo(1_800);
+        }
+    }
+
+    @Test
+    @DisplayName("Should reject negative prices")
+    void shouldRejectNegativePrices() {
+        ShoppingCart cart = store.getOrCreate("cart1", "Cart 1");
+        cart.addItem(new CartItem("shirt", "Shirt", 1_000, 1));
+
+        assertThatThrownBy(() -> repricer.reprice(Map.of("shirt", -1)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Invalid input");
+        assertThatThrownBy(() -> cart.updatePrice("shirt", -1))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(cart.updatePrice("missing", 10)).isFalse();
+        assertThat(store.updatePrices("missing", Map.of("shirt", 10))).isEqualTo(-1);
+    }
+
+    private ShoppingCart cart(String cartId) {
+        return store.findById(cartId).orElseThrow();
+    }
+}
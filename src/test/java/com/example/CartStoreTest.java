@@ -0,0 +1,155 @@
+package com.example;
+
+import com.example.shop.CartItem;
+import com.example.shop.CartStore;
+import com.example.shop.ShoppingCart;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+@DisplayName("CartStore Tests")
+class CartStoreTest {
+    private static final Duration TTL = Duration.ofMinutes(30);
+
+    private LocalDateTime now = LocalDateTime.of(2026, 9, 7, 8, 0);
+    private CartStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new CartStore(() -> now, TTL, 4096);
+    }
+
+    @AfterEach
+    void tearDown() {
+        store.close();
+    }
+
+    @Test
+    @DisplayName("Should return the same cart while it is in use")
+    void shouldKeepActiveCartsOnHeap() {
+        ShoppingCart cart = store.getOrCreate("cart1", "Cart 1");
+        cart.addItem(new CartItem("item1", "Item 1", 100, 2));
+
+        now = now.plusMinutes(20);
+        assertThat(store.findById("cart1")).containsSame(cart);
+        now = now.plusMinutes(20);
+
+        assertThat(store.evictIdle()).isZero();
+        assertThat(store.getOrCreate("cart1", "ignored")).isSameAs(cart);
+        assertThat(store.findById("missing")).isEmpty();
+        assertThat(store.getOffHeapBytes()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should spill idle carts off-heap and rehydrate them on access")
+    void shouldSpillAndRehydrate() {
+        ShoppingCart cart = store.getOrCreate("cart1", "Kundvagn åäö");
+        cart.addItem(new CartItem("item1", "Item 1", 100, 2));
+        cart.addItem(new CartItem("item2", "Äpple", 35, 7));
+        store.getOrCreate("cart2", null);
+
+        now = now.plus(TTL);
+        assertThat(store.evictIdle()).isEqualTo(2);
+        assertThat(store.getSpilledCartCount()).isEqualTo(2);
+        assertThat(store.getOffHeapBytes()).isEqualTo(4096);
+
+        ShoppingCart rehydrated = store.findById("cart1").orElseThrow();
+        assertThat(rehydrated).isNotSameAs(cart);
+        assertThat(rehydrated.getCartId()).isEqualTo("cart1");
+        assertThat(rehydrated.getCartName()).isEqualTo("Kundvagn åäö");
+        assertThat(rehydrated.getItems())
+                .extracting(CartItem::getId, CartItem::getName, CartItem::getPrice, CartItem::getQuantity)
+                .containsExactly(tuple("item1", "Item 1", 100, 2), tuple("item2", "Äpple", 35, 7));
+        assertThat(rehydrated.getTotalPriceMinor()).isEqualTo(cart.getTotalPriceMinor());
+        assertThat(store.getOrCreate("cart2", "ignored").getCartName()).isNull();
+        assertThat(store.getSpilledCartCount()).isZero();
+        assertThat(store.getCartCount()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should free slabs once every cart in them is back on the heap or removed")
+    void shouldFreeEmptySlabs() {
+        for (int i = 0; i < 200; i++) {
+            ShoppingCart cart = store.getOrCreate("cart" + i, "Cart " + i);
+            for (int j = 0; j < 5; j++) {
+                cart.addItem(new CartItem("item" + j, "Item " + j, 100 + j, 1 + j));
+            }
+        }
+        ShoppingCart large = store.getOrCreate("large", "Large cart");
+        for (int j = 0; j < 500; j++) {
+            large.addItem(new CartItem("item" + j, "Item " + j, 10, 1));
+        }
+        now = now.plus(TTL);
+        store.evictIdle();
+        assertThat(store.getOffHeapBytes()).isGreaterThan(10 * 4096L);
+
+        for (int i = 0; i < 200; i += 2) {
+            assertThat(store.findById("cart" + i)).isPresent();
+            assertThat(store.remove("cart" + (i + 1))).isTrue();
+        }
+        assertThat(store.findById("large").orElseThrow().getTotalPriceMinor()).isEqualTo(5000);
+
+        assertThat(store.getOffHeapBytes()).isEqualTo(4096);
+        assertThat(store.getSpilledCartCount()).isZero();
+        assertThat(store.remove("cart1")).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should keep the listeners of a spilled cart")
+    void shouldKeepListenersAcrossSpill() {
+        List<String> changed = new ArrayList<>();
+        ShoppingCart cart = store.getOrCreate("cart1", "Cart 1");
+        cart.addItem(new CartItem("item1", "Item 1", 100, 1));
+        cart.addListener((changedCart, itemId) -> changed.add(changedCart.getCartId() + ":" + itemId));
+
+        now = now.plus(TTL);
+        store.evictIdle();
+        ShoppingCart rehydrated = store.findById("cart1").orElseThrow();
+        assertThat(changed).isEmpty();
+
+        rehydrated.updatePrice("item1", 150);
+        assertThat(changed).containsExactly("cart1:item1");
+    }
+
+    @Test
+    @DisplayName("Should drop carts that stay spilled for another idle period")
+    void shouldExpireSpilledCarts() {
+        store.getOrCreate("cart1", "Cart 1").addItem(new CartItem("item1", "Item 1", 100, 1));
+        store.getOrCreate("cart2", "Cart 2");
+
+        now = now.plus(TTL);
+        assertThat(store.evictIdle()).isEqualTo(2);
+        now = now.plusMinutes(10);
+        store.findById("cart2");
+        now = now.plus(TTL).minusMinutes(10);
+
+        assertThat(store.evictIdle()).isEqualTo(1);
+        assertThat(store.findById("cart1")).isEmpty();
+        assertThat(store.getCartCount()).isEqualTo(1);
+        assertThat(store.getSpilledCartCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should reject use after close")
+    void shouldRejectUseAfterClose() {
+        store.getOrCreate("cart1", "Cart 1");
+        now = now.plus(TTL);
+        store.evictIdle();
+
+        store.close();
+
+        assertThatThrownBy(() -> store.findById("cart1"))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("Cart store is closed");
+    }
+}
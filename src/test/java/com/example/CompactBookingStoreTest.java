@@ -0,0 +1,148 @@
+package com.example;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jol.info.GraphLayout;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("CompactBookingStore Tests")
+class CompactBookingStoreTest {
+
+    private final LocalDateTime base = LocalDateTime.of(2026, 2, 9, 10, 0);
+    private CompactBookingStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new CompactBookingStore("room1");
+    }
+
+    @Test
+    @DisplayName("Should materialize bookings with identical values")
+    void shouldMaterializeBookingsWithIdenticalValues() {
+        String uuid = UUID.randomUUID().toString();
+        LocalDateTime start = base.plusSeconds(7).plusNanos(123_456_789);
+        store.add(new Booking(uuid, "room1", start, start.plusHours(1)));
+        store.add(new Booking("legacy-id", "room1", base, base.plusMinutes(5)));
+
+        Booking restored = store.find(uuid).orElseThrow();
+        assertThat(restored.getId()).isEqualTo(uuid);
+        assertThat(restored.getRoomId()).isEqualTo("room1");
+        assertThat(restored.getStartTime()).isEqualTo(start);
+        assertThat(restored.getEndTime()).isEqualTo(start.plusHours(1));
+        assertThat(store.find("legacy-id").orElseThrow().getEndTime()).isEqualTo(base.plusMinutes(5));
+        assertThat(store.toBookings()).extracting(Booking::getId).containsExactly("legacy-id", uuid);
+    }
+
+    @Test
+    @DisplayName("Should reject bookings for another room")
+    void shouldRejectBookingsForAnotherRoom() {
+        assertThatThrownBy(() -> store.add(new Booking("b1", "room2", base, base.plusHours(1))))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Bokningen tillhör ett annat rum");
+    }
+
+    @Test
+    @DisplayName("Should answer availability exactly like a linear overlap scan")
+    void shouldAnswerAvailabilityLikeLinearScan() {
+        Random random = new Random(11);
+        List<Booking> expected = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            LocalDateTime start = base.plusMinutes(random.nextInt(50_000));
+            Booking booking = new Booking(UUID.randomUUID().toString(), "room1", start, start.plusMinutes(random.nextInt(240)));
+            store.add(booking);
+            expected.add(booking);
+            if (random.nextInt(4) == 0) {
+                expected.remove(booking);
+                assertThat(store.remove(booking.getId())).isEqualTo(booking);
+            }
+        }
+        assertThat(store.size()).isEqualTo(expected.size());
+
+        for (int i = 0; i < 5_000; i++) {
+            LocalDateTime start = base.plusMinutes(random.nextInt(50_500) - 250);
+            LocalDateTime end = start.plusMinutes(random.nextInt(90));
+            List<Booking> overlapping = expected.stream()
+                    .filter(booking -> booking.overlaps(start, end))
+                    .toList();
+            assertThat(store.isAvailable(start, end)).isEqualTo(overlapping.isEmpty());
+            assertThat(store.findOverlapping(start, end)).containsExactlyInAnyOrderElementsOf(overlapping);
+        }
+    }
+
+    @Test
+    @DisplayName("Should answer queries whose bounds lie outside the storable range")
+    void shouldClampQueryBoundsOutsideStorableRange() {
+        Booking booking = new Booking("b1", "room1", base, base.plusHours(1));
+        store.add(booking);
+        LocalDateTime farFuture = LocalDateTime.of(3000, 1, 1, 0, 0);
+        LocalDateTime farPast = LocalDateTime.of(1000, 1, 1, 0, 0);
+
+        assertThat(store.isAvailable(base.plusDays(1), farFuture)).isTrue();
+        assertThat(store.isAvailable(farFuture, LocalDateTime.MAX)).isTrue();
+        assertThat(store.isAvailable(farPast, base.minusDays(1))).isTrue();
+        assertThat(store.isAvailable(farPast, farFuture)).isFalse();
+        assertThat(store.findOverlapping(LocalDateTime.MIN, LocalDateTime.MAX)).containsExactly(booking);
+        assertThat(store.findEndedBefore(farFuture)).containsExactly(booking);
+        assertThat(store.findEndedBefore(farPast)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should find, replace and remove bookings by id when many share a start time")
+    void shouldLookUpIdsThroughIndex() {
+        Random random = new Random(7);
+        Map<String, Booking> expected = new HashMap<>();
+        for (int i = 0; i < 5_000; i++) {
+            LocalDateTime start = base.plusMinutes(random.nextInt(20));
+            String id = i % 10 == 0 ? "legacy" + i : UUID.randomUUID().toString();
+            Booking booking = new Booking(id, "room1", start, start.plusMinutes(random.nextInt(60)));
+            store.add(booking);
+            expected.put(id, booking);
+            if (random.nextInt(3) == 0) {
+                String removed = expected.keySet().iterator().next();
+                assertThat(store.remove(removed)).usingRecursiveComparison().isEqualTo(expected.remove(removed));
+            }
+        }
+        Booking first = expected.values().iterator().next();
+        Booking moved = new Booking(first.getId(), "room1", base.plusDays(1), base.plusDays(1).plusHours(1));
+        store.add(moved);
+        expected.put(moved.getId(), moved);
+
+        assertThat(store.size()).isEqualTo(expected.size());
+        for (Booking booking : expected.values()) {
+            assertThat(store.find(booking.getId())).get().usingRecursiveComparison().isEqualTo(booking);
+        }
+        assertThat(store.contains(UUID.randomUUID().toString())).isFalse();
+        assertThat(store.remove("legacy-missing")).isNull();
+    }
+
+    @Test
+    @DisplayName("Should use a fraction of the heap of a set of Booking objects")
+    void shouldUseFractionOfHeap() {
+        int bookings = 10_000;
+        Set<Booking> bookingSet = new HashSet<>();
+        for (int i = 0; i < bookings; i++) {
+            LocalDateTime start = base.plusMinutes(30L * i);
+            Booking booking = new Booking(UUID.randomUUID().toString(), "room1", start, start.plusMinutes(25));
+            bookingSet.add(booking);
+            store.add(booking);
+        }
+
+        long setBytes = GraphLayout.parseInstance(bookingSet).totalSize();
+        long compactBytes = GraphLayout.parseInstance(store).totalSize();
+        // Id-indexet kostar ungefär lika mycket som kolumnerna
+        assertThat(compactBytes).isLessThan(setBytes / 3);
+    }
+}
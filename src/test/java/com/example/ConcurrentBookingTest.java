@@ -0,0 +1,118 @@
+package com.example;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+@DisplayName("Concurrent booking Tests")
+class ConcurrentBookingTest {
+
+    private static final int ROOMS = 8;
+    private static final int THREADS = 16;
+    private static final int ATTEMPTS_PER_THREAD = 2_000;
+
+    private final LocalDateTime now = LocalDateTime.of(2026, 2, 9, 10, 0);
+    private InMemoryRoomRepository roomRepository;
+    private BookingSystem bookingSystem;
+
+    @BeforeEach
+    void setUp() {
+        roomRepository = new InMemoryRoomRepository();
+        for (int i = 0; i < ROOMS; i++) {
+            roomRepository.save(new Room("room" + i, "Room " + i));
+        }
+        bookingSystem = new BookingSystem(() -> now, roomRepository, mock(NotificationService.class));
+    }
+
+    @Test
+    @DisplayName("Should never double-book a room under concurrent load")
+    void shouldNeverDoubleBookUnderConcurrentLoad() throws Exception {
+        AtomicInteger successfulBookings = new AtomicInteger();
+        AtomicInteger successfulCancellations = new AtomicInteger();
+
+        runConcurrently(() -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int i = 0; i < ATTEMPTS_PER_THREAD; i++) {
+                String roomId = "room" + random.nextInt(ROOMS);
+                LocalDateTime start = now.plusMinutes(random.nextInt(5_000));
+                if (bookingSystem.bookRoom(roomId, start, start.plusMinutes(1 + random.nextInt(90)))) {
+                    successfulBookings.incrementAndGet();
+                }
+                if (random.nextInt(10) == 0) {
+                    List<Booking> bookings = new ArrayList<>(roomRepository.findById(roomId).orElseThrow().getBookings());
+                    if (!bookings.isEmpty() && bookingSystem.cancelBooking(bookings.get(random.nextInt(bookings.size())).getId())) {
+                        successfulCancellations.incrementAndGet();
+                    }
+                }
+            }
+        });
+
+        int storedBookings = 0;
+        for (Room room : roomRepository.findAll()) {
+            List<Booking> bookings = new ArrayList<>(room.getBookings());
+            bookings.sort(Comparator.comparing(Booking::getStartTime));
+            LocalDateTime latestEnd = null;
+            for (Booking booking : bookings) {
+                if (latestEnd != null) {
+                    assertThat(booking.getStartTime())
+                            .as("överlapp i %s", room.getId())
+                            .isAfter(latestEnd);
+                }
+                latestEnd = latestEnd == null || booking.getEndTime().isAfter(latestEnd) ? booking.getEndTime() : latestEnd;
+            }
+            storedBookings += bookings.size();
+        }
+        assertThat(storedBookings).isEqualTo(successfulBookings.get() - successfulCancellations.get());
+    }
+
+    @Test
+    @DisplayName("Should let exactly one thread win the same slot")
+    void shouldLetExactlyOneThreadWinTheSameSlot() throws Exception {
+        AtomicInteger winners = new AtomicInteger();
+        LocalDateTime start = now.plusHours(1);
+
+        runConcurrently(() -> {
+            if (bookingSystem.bookRoom("room0", start, start.plusHours(1))) {
+                winners.incrementAndGet();
+            }
+        });
+
+        assertThat(winners).hasValue(1);
+        assertThat(roomRepository.findById("room0").orElseThrow().getBookings()).hasSize(1);
+    }
+
+    private void runConcurrently(Runnable task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            CountDownLatch startSignal = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                futures.add(executor.submit(() -> {
+                    startSignal.await();
+                    task.run();
+                    return null;
+                }));
+            }
+            startSignal.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
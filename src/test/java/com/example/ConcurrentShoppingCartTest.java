@@ -0,0 +1,126 @@
+package com.example;
+
+import com.example.shop.CartItem;
+import com.example.shop.CartSnapshot;
+import com.example.shop.ConcurrentShoppingCart;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("ConcurrentShoppingCart Tests")
+class ConcurrentShoppingCartTest {
+    private static final int ITEMS = 32;
+
+    private ConcurrentShoppingCart cart;
+
+    @BeforeEach
+    void setUp() {
+        cart = new ConcurrentShoppingCart("cart1", "Shared cart");
+        for (int i = 0; i < ITEMS; i++) {
+            cart.addItem(new CartItem("item" + i, "Item " + i, 100 + i, 1));
+        }
+    }
+
+    @Test
+    @DisplayName("Should apply single-threaded changes like ShoppingCart")
+    void shouldApplyChanges() {
+        cart.updateQuantity("item0", 3);
+        cart.removeItem("item1");
+        cart.addItem(new CartItem("item2", "Item 2", 50, 2));
+
+        assertThat(cart.checkQuantity("item0")).isEqualTo(3);
+        assertThat(cart.checkQuantity("item1")).isZero();
+        assertThat(cart.getTotalPriceMinor()).isEqualTo(sumOf(cart.snapshot()));
+        assertThatThrownBy(() -> cart.removeItem("item1"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Item does not exist");
+        assertThatThrownBy(() -> cart.updateQuantity("item0", -1))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Invalid input");
+
+        long total = cart.getTotalPriceMinor();
+        cart.updateQuantity("item1", 5);
+        assertThat(cart.checkQuantity("item1")).isZero();
+        assertThat(cart.getTotalPriceMinor()).isEqualTo(total);
+    }
+
+    @Test
+    @DisplayName("Should not be affected by later changes to the added item")
+    void shouldCopyItems() {
+        CartItem item = new CartItem("extra", "Extra", 10, 1);
+        cart.addItem(item);
+        long total = cart.getTotalPriceMinor();
+
+        item.quantity = 1_000;
+        cart.snapshot().getItems().get(0).quantity = 1_000;
+
+        assertThat(cart.getTotalPriceMinor()).isEqualTo(total);
+        assertThat(cart.checkQuantity("extra")).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should keep every snapshot consistent while many threads update the cart")
+    void shouldKeepSnapshotsConsistentUnderContention() throws Exception {
+        int writers = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(writers + 1);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean running = new AtomicBoolean(true);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int w = 0; w < writers; w++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    for (int i = 0; i < 20_000; i++) {
+                        cart.updateQuantity("item" + random.nextInt(ITEMS), random.nextInt(10));
+                    }
+                    return null;
+                }));
+            }
+            Future<Integer> checker = executor.submit(() -> {
+                start.await();
+                int inconsistent = 0;
+                while (running.get()) {
+                    CartSnapshot snapshot = cart.snapshot();
+                    if (snapshot.getTotalPriceMinor() != sumOf(snapshot)) {
+                        inconsistent++;
+                    }
+                }
+                return inconsistent;
+            });
+
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+            running.set(false);
+
+            assertThat(checker.get(30, TimeUnit.SECONDS)).isZero();
+            assertThat(cart.getTotalPriceMinor()).isEqualTo(sumOf(cart.snapshot()));
+            assertThat(cart.snapshot().getItems()).hasSize(ITEMS);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static long sumOf(CartSnapshot snapshot) {
+        long sum = 0;
+        for (CartItem item : snapshot.getItems()) {
+            sum += (long) item.getPrice() * item.getQuantity();
+        }
+        return sum;
+    }
+}
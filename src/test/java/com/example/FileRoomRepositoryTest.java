@@ -0,0 +1,218 @@
+package com.example;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("FileRoomRepository Tests")
+class FileRoomRepositoryTest {
+
+    @TempDir
+    Path directory;
+
+    private final LocalDateTime start = LocalDateTime.of(2026, 2, 9, 11, 0, 0, 500);
+
+    private Path logFile;
+
+    @BeforeEach
+    void setUp() {
+        logFile = directory.resolve("rooms.wal");
+    }
+
+    @Test
+    @DisplayName("Should recover rooms, bookings and cancellations from the log")
+    void shouldRecoverFromLog() throws IOException {
+        try (FileRoomRepository repository = new FileRoomRepository(directory)) {
+            Room room = new Room("room1", "Room 1");
+            room.addBooking(new Booking("b1", "room1", start, start.plusHours(1)));
+            repository.save(room);
+            room.addBooking(new Booking("b2", "room1", start.plusHours(2), start.plusHours(3)));
+            room.removeBooking("b1");
+            repository.save(room);
+        }
+
+        try (FileRoomRepository reopened = new FileRoomRepository(directory)) {
+            Room room = reopened.findById("room1").orElseThrow();
+            assertThat(room.getName()).isEqualTo("Room 1");
+            assertThat(room.hasBooking("b1")).isFalse();
+            assertThat(room.getBooking("b2").getStartTime()).isEqualTo(start.plusHours(2));
+        }
+    }
+
+    @Test
+    @DisplayName("Should append only the change when saving a large room")
+    void shouldAppendOnlyTheChange() throws IOException {
+        try (FileRoomRepository repository = new FileRoomRepository(directory)) {
+            Room room = new Room("room1", "Room 1");
+            for (int i = 0; i < 1_000; i++) {
+                room.addBooking(new Booking("b" + i, "room1", start.plusHours(2L * i), start.plusHours(2L * i + 1)));
+            }
+            repository.save(room);
+            long sizeAfterFullWrite = Files.size(logFile);
+
+            room.addBooking(new Booking("extra", "room1", start.minusDays(1), start.minusDays(1).plusHours(1)));
+            repository.save(room);
+            long appended = Files.size(logFile) - sizeAfterFullWrite;
+
+            repository.save(room);
+
+            assertThat(appended).isLessThan(100);
+            assertThat(Files.size(logFile)).isEqualTo(sizeAfterFullWrite + appended);
+        }
+    }
+
+    @Test
+    @DisplayName("Should write a snapshot and replay only the log tail")
+    void shouldSnapshotAndReplayTail() throws IOException {
+        try (FileRoomRepository repository = new FileRoomRepository(directory, 10)) {
+            Room room = new Room("room1", "Room 1");
+            repository.save(room);
+            for (int i = 0; i < 25; i++) {
+                room.addBooking(new Booking("b" + i, "room1", start.plusHours(2L * i), start.plusHours(2L * i + 1)));
+                repository.save(room);
+            }
+        }
+        // Ögonblicksbilden skrivs i bakgrunden, och close väntar in den
+        assertThat(directory.resolve("rooms.snapshot")).exists();
+        assertThat(Files.size(logFile)).isLessThan(1_000);
+
+        try (FileRoomRepository reopened = new FileRoomRepository(directory, 10)) {
+            assertThat(reopened.findById("room1").orElseThrow().getBookings()).hasSize(25);
+        }
+    }
+
+    @Test
+    @DisplayName("Should ignore a torn record at the end of the log")
+    void shouldIgnoreTornTail() throws IOException {
+        try (FileRoomRepository repository = new FileRoomRepository(directory)) {
+            Room room = new Room("room1", "Room 1");
+            room.addBooking(new Booking("b1", "room1", start, start.plusHours(1)));
+            repository.save(room);
+        }
+        long validSize = Files.size(logFile);
+        Files.write(logFile, new byte[]{0, 0, 0, 40, 1, 2, 3}, StandardOpenOption.APPEND);
+
+        try (FileRoomRepository reopened = new FileRoomRepository(directory)) {
+            Room room = reopened.findById("room1").orElseThrow();
+            assertThat(room.hasBooking("b1")).isTrue();
+            assertThat(Files.size(logFile)).isEqualTo(validSize);
+
+            room.addBooking(new Booking("b2", "room1", start.plusHours(2), start.plusHours(3)));
+            reopened.save(room);
+        }
+
+        try (FileRoomRepository reopened = new FileRoomRepository(directory)) {
+            assertThat(reopened.findById("room1").orElseThrow().hasBooking("b2")).isTrue();
+        }
+    }
+
+    @Test
+    @DisplayName("Should ignore a zero-filled tail left by a crash")
+    void shouldIgnoreZeroFilledTail() throws IOException {
+        try (FileRoomRepository repository = new FileRoomRepository(directory)) {
+            Room room = new Room("room1", "Room 1");
+            room.addBooking(new Booking("b1", "room1", start, start.plusHours(1)));
+            repository.save(room);
+        }
+        long validSize = Files.size(logFile);
+        Files.write(logFile, new byte[4096], StandardOpenOption.APPEND);
+
+        try (FileRoomRepository reopened = new FileRoomRepository(directory)) {
+            assertThat(reopened.findById("room1").orElseThrow().hasBooking("b1")).isTrue();
+            assertThat(Files.size(logFile)).isEqualTo(validSize);
+        }
+    }
+
+    @Test
+    @DisplayName("Should refuse to open a log that is damaged before its end")
+    void shouldRejectCorruptionBeforeTail() throws IOException {
+        try (FileRoomRepository repository = new FileRoomRepository(directory)) {
+            Room room = new Room("room1", "Room 1");
+            repository.save(room);
+            room.addBooking(new Booking("b1", "room1", start, start.plusHours(1)));
+            repository.save(room);
+        }
+        byte[] content = Files.readAllBytes(logFile);
+        // Sista byten i den första posten, rummet, ändras så att checksumman inte stämmer
+        int firstRecordEnd = 8 + ByteBuffer.wrap(content).getInt(0);
+        content[firstRecordEnd - 1] ^= 1;
+        Files.write(logFile, content);
+
+        assertThatThrownBy(() -> new FileRoomRepository(directory))
+                .isInstanceOf(UncheckedIOException.class)
+                .hasRootCauseMessage("Loggen är skadad vid position 0: " + logFile);
+    }
+
+    @Test
+    @DisplayName("Should fail every later append once a write to the log has failed")
+    void shouldFenceLogAfterFailedWrite() throws IOException {
+        WriteAheadLog log = new WriteAheadLog(logFile);
+        log.recover();
+        log.append(List.of(new byte[]{1}));
+        log.close();
+
+        assertThatThrownBy(() -> log.append(List.of(new byte[]{2})))
+                .isInstanceOf(ClosedChannelException.class);
+        assertThatThrownBy(() -> log.append(List.of(new byte[]{3})))
+                .isInstanceOf(IOException.class)
+                .hasMessage("Loggen tar inte emot fler poster efter ett skrivfel")
+                .hasCauseInstanceOf(ClosedChannelException.class);
+
+        try (WriteAheadLog reopened = new WriteAheadLog(logFile)) {
+            assertThat(reopened.recover()).containsExactly(new byte[]{1});
+        }
+    }
+
+    @Test
+    @DisplayName("Should persist bookings made through BookingSystem")
+    void shouldPersistBookingsMadeThroughBookingSystem() throws IOException {
+        LocalDateTime now = LocalDateTime.of(2026, 2, 9, 10, 0);
+        String bookingId;
+        try (FileRoomRepository repository = new FileRoomRepository(directory)) {
+            repository.save(new Room("room1", "Room 1"));
+            BookingSystem bookingSystem = new BookingSystem(() -> now, repository, org.mockito.Mockito.mock(NotificationService.class));
+            bookingSystem.bookRoom("room1", now.plusHours(1), now.plusHours(2));
+            bookingSystem.bookRoom("room1", now.plusHours(3), now.plusHours(4));
+            bookingId = repository.findById("room1").orElseThrow().getBookings().iterator().next().getId();
+            bookingSystem.cancelBooking(bookingId);
+        }
+
+        try (FileRoomRepository reopened = new FileRoomRepository(directory)) {
+            Room room = reopened.findById("room1").orElseThrow();
+            assertThat(room.getBookings()).hasSize(1);
+            assertThat(room.hasBooking(bookingId)).isFalse();
+        }
+    }
+
+    @Test
+    @DisplayName("Should keep a deleted room deleted after reopening")
+    void shouldPersistDeletion() throws IOException {
+        try (FileRoomRepository repository = new FileRoomRepository(directory)) {
+            Room room = new Room("room1", "Room 1");
+            room.addBooking(new Booking("b1", "room1", start, start.plusHours(1)));
+            repository.save(room);
+            repository.save(new Room("room2", "Room 2"));
+            repository.deleteById("room1");
+            assertThat(repository.findById("room1")).isEmpty();
+        }
+
+        try (FileRoomRepository reopened = new FileRoomRepository(directory)) {
+            assertThat(reopened.findById("room1")).isEmpty();
+            assertThat(reopened.findById("room2")).isPresent();
+        }
+    }
+}
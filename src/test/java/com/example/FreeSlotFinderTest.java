@@ -0,0 +1,153 @@
+package com.example;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.Mockito.mock;
+
+@DisplayName("Earliest free slot Tests")
+class FreeSlotFinderTest {
+
+    private final LocalDateTime now = LocalDateTime.of(2026, 9, 7, 8, 0);
+
+    private InMemoryRoomRepository repository;
+    private BookingSystem bookingSystem;
+
+    @BeforeEach
+    void setUp() {
+        repository = new InMemoryRoomRepository();
+        bookingSystem = new BookingSystem(() -> now, repository, mock(NotificationService.class));
+    }
+
+    @Test
+    @DisplayName("Should return the earliest start in each gap, across rooms in time order")
+    void shouldMergeGapsAcrossRooms() {
+        Room room1 = new Room("room1", "Room 1");
+        room1.addBooking(new Booking("b1", "room1", now.plusHours(1), now.plusHours(3)));
+        room1.addBooking(new Booking("b2", "room1", now.plusHours(6), now.plusHours(7)));
+        repository.save(room1);
+        Room room2 = new Room("room2", "Room 2");
+        room2.addBooking(new Booking("b3", "room2", now, now.plusHours(4)));
+        repository.save(room2);
+
+        List<FreeSlot> slots = bookingSystem.findEarliestFreeSlots(Duration.ofHours(2), now, now.plusHours(12), 10);
+
+        assertThat(slots)
+                .extracting(FreeSlot::getRoomId, FreeSlot::getStartTime, FreeSlot::getEndTime)
+                .containsExactly(
+                        tuple("room1", now.plusHours(3).plusMinutes(1), now.plusHours(5).plusMinutes(1)),
+                        tuple("room2", now.plusHours(4).plusMinutes(1), now.plusHours(6).plusMinutes(1)),
+                        tuple("room1", now.plusHours(7).plusMinutes(1), now.plusHours(9).plusMinutes(1)));
+    }
+
+    @Test
+    @DisplayName("Should limit the result, filter by room and never start in the past")
+    void shouldLimitAndFilter() {
+        for (int i = 1; i <= 3; i++) {
+            repository.save(new Room("room" + i, "Room " + i));
+        }
+
+        List<FreeSlot> slots = bookingSystem.findEarliestFreeSlots(Duration.ofHours(1), now.minusDays(1),
+                now.plusDays(1), 2);
+        assertThat(slots).extracting(FreeSlot::getRoomId).containsExactly("room1", "room2");
+        assertThat(slots).extracting(FreeSlot::getStartTime).containsOnly(now);
+
+        assertThat(bookingSystem.findEarliestFreeSlots(Duration.ofHours(1), now, now.plusDays(1), 5,
+                List.of("room3", "missing")))
+                .extracting(FreeSlot::getRoomId)
+                .containsExactly("room3");
+    }
+
+    @Test
+    @DisplayName("Should only return slots that bookRoom accepts")
+    void shouldReturnBookableSlots() {
+        Room room = new Room("room1", "Room 1");
+        for (int i = 0; i < 50; i++) {
+            room.addBooking(new Booking("b" + i, "room1", now.plusMinutes(90L * i), now.plusMinutes(90L * i + 60)));
+        }
+        repository.save(room);
+
+        List<FreeSlot> slots = bookingSystem.findEarliestFreeSlots(Duration.ofMinutes(20), now, now.plusDays(3), 5);
+
+        assertThat(slots).hasSize(5);
+        for (FreeSlot slot : slots) {
+            assertThat(bookingSystem.bookRoom(slot.getRoomId(), slot.getStartTime(), slot.getEndTime())).isTrue();
+        }
+    }
+
+    @Test
+    @DisplayName("Should match a brute-force search over random bookings")
+    void shouldMatchBruteForce() {
+        Random random = new Random(42);
+        List<Room> rooms = new ArrayList<>();
+        for (int r = 0; r < 20; r++) {
+            Room room = new Room("room" + r, "Room " + r);
+            for (int b = 0; b < 60; b++) {
+                LocalDateTime start = now.plusMinutes(15L * random.nextInt(7 * 24 * 4));
+                room.addBooking(new Booking(r + "-" + b, room.getId(), start, start.plusMinutes(15L * (1 + random.nextInt(16)))));
+            }
+            repository.save(room);
+            rooms.add(room);
+        }
+        Duration duration = Duration.ofHours(2);
+        LocalDateTime until = now.plusDays(7);
+
+        List<FreeSlot> slots = bookingSystem.findEarliestFreeSlots(duration, now, until, 200);
+
+        assertThat(slots).hasSize(200);
+        assertThat(describe(slots)).containsExactlyElementsOf(describe(bruteForce(rooms, duration, now, until, 200)));
+    }
+
+    @Test
+    @DisplayName("Should reject invalid searches")
+    void shouldRejectInvalidSearches() {
+        assertThatThrownBy(() -> bookingSystem.findEarliestFreeSlots(Duration.ZERO, now, now.plusDays(1), 1))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> bookingSystem.findEarliestFreeSlots(Duration.ofHours(1), now.plusDays(1), now, 1))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Sluttid måste vara efter starttid");
+        assertThatThrownBy(() -> bookingSystem.findEarliestFreeSlots(Duration.ofHours(1), now, now.plusDays(1), 0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    // Provar början av fönstret och första minuten efter varje bokning; bland giltiga
+    // starter i samma lucka behålls den tidigaste
+    private static List<FreeSlot> bruteForce(List<Room> rooms, Duration duration, LocalDateTime from,
+                                             LocalDateTime until, int limit) {
+        List<FreeSlot> all = new ArrayList<>();
+        for (Room room : rooms) {
+            TreeSet<LocalDateTime> candidates = new TreeSet<>();
+            candidates.add(from);
+            for (Booking booking : room.getBookings()) {
+                candidates.add(FreeSlotFinder.firstStartAfter(booking.getEndTime()));
+            }
+            for (LocalDateTime start : candidates) {
+                LocalDateTime end = start.plus(duration);
+                if (!start.isBefore(from) && !end.isAfter(until) && room.isAvailable(start, end)) {
+                    all.add(new FreeSlot(room.getId(), start, end));
+                }
+            }
+        }
+        all.sort(Comparator.comparing(FreeSlot::getStartTime).thenComparing(FreeSlot::getRoomId));
+        return all.subList(0, Math.min(limit, all.size()));
+    }
+
+    private static List<String> describe(List<FreeSlot> slots) {
+        return slots.stream()
+                .map(slot -> slot.getRoomId() + "@" + slot.getStartTime())
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,340 @@
+package com.example;
+
+import com.example.payment.ChargeResult;
+import com.example.payment.InMemoryPaymentNotifier;
+import com.example.payment.InMemoryPaymentRepository;
+import com.example.payment.JdbcPaymentRepository;
+import com.example.payment.PaymentGateway;
+import com.example.payment.PaymentGatewayException;
+import com.example.payment.PaymentNotifier;
+import com.example.payment.PaymentProcessor;
+import com.example.payment.PaymentRecord;
+import com.example.payment.PaymentRepository;
+import com.example.payment.PaymentStatus;
+import com.example.payment.SimulatedPaymentGateway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import javax.sql.DataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@DisplayName("PaymentProcessor Tests")
+class PaymentProcessorTest {
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 9, 7, 8, 0);
+
+    private ExecutorService executor;
+    private InMemoryPaymentRepository repository;
+    private InMemoryPaymentNotifier notifier;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newFixedThreadPool(8);
+        repository = new InMemoryPaymentRepository();
+        notifier = new InMemoryPaymentNotifier();
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    private PaymentProcessor processor(PaymentGateway gateway) {
+        return processor(gateway, repository, notifier);
+    }
+
+    private PaymentProcessor processor(PaymentGateway gateway, PaymentRepository repository, PaymentNotifier notifier) {
+        return new PaymentProcessor(gateway, repository, notifier, executor, () -> NOW, 1_000, 50);
+    }
+
+    private static PaymentRecord await(CompletableFuture<PaymentRecord> future) throws Exception {
+        return future.get(10, TimeUnit.SECONDS);
+    }
+
+    // Bekräftelser skickas på executorn efter att framtiden blivit klar
+    private void awaitNotifications() throws InterruptedException {
+        executor.shutdown();
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Nested
+    @DisplayName("Processing")
+    class ProcessingTests {
+
+        @Test
+        @DisplayName("Should charge, save and confirm a payment")
+        void shouldProcessPayment() throws Exception {
+            SimulatedPaymentGateway gateway = new SimulatedPaymentGateway();
+            try (PaymentProcessor processor = processor(gateway)) {
+                PaymentRecord record = await(processor.processPayment("order-1", 12_500, "user@example.com"));
+
+                assertThat(record.getStatus()).isEqualTo(PaymentStatus.SUCCEEDED);
+                assertThat(record.getAmountMinor()).isEqualTo(12_500);
+                assertThat(record.getTransactionId()).isNotNull();
+                assertThat(record.getProcessedAt()).isEqualTo(NOW);
+                assertThat(repository.findByIdempotencyKey("order-1")).containsSame(record);
+            }
+            awaitNotifications();
+            assertThat(notifier.getSent()).extracting(PaymentRecord::getIdempotencyKey).containsExactly("order-1");
+        }
+
+        @Test
+        @DisplayName("Should save declined payments without sending a confirmation")
+        void shouldSaveDeclinedPayments() throws Exception {
+            try (PaymentProcessor processor = processor(new SimulatedPaymentGateway(Duration.ZERO, 1.0))) {
+                PaymentRecord record = await(processor.processPayment("order-1", 100, "user@example.com"));
+
+                assertThat(record.getStatus()).isEqualTo(PaymentStatus.DECLINED);
+                assertThat(repository.size()).isEqualTo(1);
+            }
+            awaitNotifications();
+            assertThat(notifier.getSent()).isEmpty();
+        }
+
+        @Test
+        @DisplayName("Should complete the payment even if the confirmation fails")
+        void shouldIgnoreNotificationFailures() throws Exception {
+            PaymentNotifier failingNotifier = mock(PaymentNotifier.class);
+            doThrow(new NotificationException("Mejlservern svarar inte"))
+                    .when(failingNotifier).sendPaymentConfirmation(anyString(), any());
+            try (PaymentProcessor processor = processor(new SimulatedPaymentGateway(), repository, failingNotifier)) {
+                assertThat(await(processor.processPayment("order-1", 100, "user@example.com")).getStatus())
+                        .isEqualTo(PaymentStatus.SUCCEEDED);
+                awaitNotifications();
+                assertThat(processor.getFailedNotificationCount()).isEqualTo(1);
+            }
+        }
+
+        @Test
+        @DisplayName("Should reject invalid payments")
+        void shouldRejectInvalidPayments() throws Exception {
+            PaymentProcessor processor = processor(new SimulatedPaymentGateway());
+            assertThatThrownBy(() -> processor.processPayment(" ", 100, null))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessage("Idempotensnyckel saknas");
+            assertThatThrownBy(() -> processor.processPayment("order-1", 0, null))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessage("Beloppet måste vara positivt");
+
+            processor.close();
+            assertThatThrownBy(() -> processor.processPayment("order-1", 100, null))
+                    .isInstanceOf(IllegalStateException.class);
+        }
+
+        @Test
+        @DisplayName("Should fail payments still pending when close is interrupted")
+        void shouldFailPendingPaymentsOnInterruptedClose() throws Exception {
+            CountDownLatch charging = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            PaymentGateway stuckGateway = (idempotencyKey, amountMinor) -> {
+                charging.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return new ChargeResult(PaymentStatus.SUCCEEDED, "tx-1");
+            };
+            PaymentProcessor processor = processor(stuckGateway);
+            CompletableFuture<PaymentRecord> payment = processor.processPayment("order-1", 100, null);
+            assertThat(charging.await(10, TimeUnit.SECONDS)).isTrue();
+
+            Thread closer = new Thread(processor::close);
+            closer.start();
+            closer.interrupt();
+            closer.join(10_000);
+            release.countDown();
+
+            assertThat(closer.isAlive()).isFalse();
+            assertThatThrownBy(() -> await(payment))
+                    .isInstanceOf(ExecutionException.class)
+                    .hasCauseInstanceOf(IllegalStateException.class);
+            assertThat(processor.getInFlightCount()).isZero();
+        }
+    }
+
+    @Nested
+    @DisplayName("Idempotency")
+    class IdempotencyTests {
+
+        @Test
+        @DisplayName("Should charge once when the same key is retried while in flight")
+        void shouldShareInFlightPayment() throws Exception {
+            SimulatedPaymentGateway gateway = new SimulatedPaymentGateway(Duration.ofMillis(100), 0.0);
+            try (PaymentProcessor processor = processor(gateway)) {
+                List<CompletableFuture<PaymentRecord>> attempts = new ArrayList<>();
+                for (int i = 0; i < 5; i++) {
+                    attempts.add(processor.processPayment("order-1", 100, "user@example.com"));
+                }
+
+                Set<String> transactions = new HashSet<>();
+                for (CompletableFuture<PaymentRecord> attempt : attempts) {
+                    transactions.add(await(attempt).getTransactionId());
+                }
+                assertThat(transactions).hasSize(1);
+                assertThat(gateway.getCallCount()).isEqualTo(1);
+            }
+        }
+
+        @Test
+        @DisplayName("Should return the saved payment when a finished payment is retried")
+        void shouldReturnSavedPayment() throws Exception {
+            SimulatedPaymentGateway gateway = new SimulatedPaymentGateway();
+            try (PaymentProcessor processor = processor(gateway)) {
+                PaymentRecord first = await(processor.processPayment("order-1", 100, "user@example.com"));
+                PaymentRecord retry = await(processor.processPayment("order-1", 100, "user@example.com"));
+
+                assertThat(retry.getTransactionId()).isEqualTo(first.getTransactionId());
+                assertThat(gateway.getCallCount()).isEqualTo(1);
+                assertThat(processor.getInFlightCount()).isZero();
+            }
+        }
+
+        @Test
+        @DisplayName("Should reject a key reused for another amount")
+        void shouldRejectChangedAmount() throws Exception {
+            try (PaymentProcessor processor = processor(new SimulatedPaymentGateway())) {
+                await(processor.processPayment("order-1", 100, null));
+
+                assertThatThrownBy(() -> await(processor.processPayment("order-1", 200, null)))
+                        .isInstanceOf(ExecutionException.class)
+                        .hasCauseInstanceOf(IllegalArgumentException.class)
+                        .hasMessageContaining("annat belopp");
+            }
+        }
+
+        @Test
+        @DisplayName("Should allow a retry after the gateway fails")
+        void shouldRetryAfterGatewayFailure() throws Exception {
+            PaymentGateway gateway = mock(PaymentGateway.class);
+            when(gateway.charge(anyString(), anyLong()))
+                    .thenThrow(new PaymentGatewayException("Tidsgräns"))
+                    .thenReturn(new ChargeResult(PaymentStatus.SUCCEEDED, "tx-1"));
+            try (PaymentProcessor processor = processor(gateway)) {
+                assertThatThrownBy(() -> await(processor.processPayment("order-1", 100, null)))
+                        .hasCauseInstanceOf(PaymentGatewayException.class);
+                assertThat(processor.getInFlightCount()).isZero();
+
+                assertThat(await(processor.processPayment("order-1", 100, null)).getTransactionId()).isEqualTo("tx-1");
+                verify(gateway, times(2)).charge("order-1", 100);
+            }
+        }
+
+        @Test
+        @DisplayName("Should not charge twice when saving fails and the payment is retried")
+        void shouldNotDoubleChargeAfterSaveFailure() throws Exception {
+            SimulatedPaymentGateway gateway = new SimulatedPaymentGateway();
+            PaymentRepository flaky = mock(PaymentRepository.class);
+            when(flaky.findByIdempotencyKey(anyString())).thenReturn(Optional.empty());
+            doThrow(new IllegalStateException("Databasen svarar inte"))
+                    .doNothing()
+                    .when(flaky).saveAll(any());
+            try (PaymentProcessor processor = processor(gateway, flaky, notifier)) {
+                assertThatThrownBy(() -> await(processor.processPayment("order-1", 100, null)))
+                        .hasCauseInstanceOf(IllegalStateException.class);
+
+                PaymentRecord retry = await(processor.processPayment("order-1", 100, null));
+
+                assertThat(retry.getStatus()).isEqualTo(PaymentStatus.SUCCEEDED);
+                assertThat(gateway.getCallCount()).isEqualTo(2);
+                assertThat(gateway.getChargeCount()).isEqualTo(1);
+            }
+        }
+    }
+
+    @Nested
+    @DisplayName("Persistence")
+    class PersistenceTests {
+
+        @Test
+        @DisplayName("Should save concurrent payments in batches")
+        void shouldBatchWrites() throws Exception {
+            SimulatedPaymentGateway gateway = new SimulatedPaymentGateway(Duration.ofMillis(1), 0.1);
+            try (PaymentProcessor processor = processor(gateway)) {
+                List<CompletableFuture<PaymentRecord>> payments = new ArrayList<>();
+                for (int i = 0; i < 500; i++) {
+                    payments.add(processor.processPayment("order-" + i, 100 + i, "user@example.com"));
+                }
+                CompletableFuture.allOf(payments.toArray(new CompletableFuture[0])).get(30, TimeUnit.SECONDS);
+            }
+
+            assertThat(repository.size()).isEqualTo(500);
+            assertThat(repository.getBatchCount()).isBetween(10, 499);
+            assertThat(gateway.getCallCount()).isEqualTo(500);
+        }
+
+        @Test
+        @DisplayName("Should write a batch with one prepared statement in a transaction")
+        void shouldUsePreparedStatementBatch() throws Exception {
+            DataSource dataSource = mock(DataSource.class);
+            Connection connection = mock(Connection.class);
+            PreparedStatement statement = mock(PreparedStatement.class);
+            when(dataSource.getConnection()).thenReturn(connection);
+            when(connection.getAutoCommit()).thenReturn(true);
+            when(connection.prepareStatement(anyString())).thenReturn(statement);
+            JdbcPaymentRepository jdbcRepository = new JdbcPaymentRepository(dataSource);
+
+            jdbcRepository.saveAll(List.of(
+                    new PaymentRecord("order-1", 100, PaymentStatus.SUCCEEDED, "tx-1", NOW),
+                    new PaymentRecord("order-2', 'x'); DROP TABLE payments; --", 200, PaymentStatus.DECLINED, null, NOW)));
+
+            verify(connection, times(1)).prepareStatement(
+                    "INSERT INTO payments (idempotency_key, amount_minor, status, transaction_id, processed_at) VALUES (?, ?, ?, ?, ?)");
+            verify(statement).setString(1, "order-2', 'x'); DROP TABLE payments; --");
+            verify(statement, times(2)).addBatch();
+            var order = inOrder(connection, statement);
+            order.verify(connection).setAutoCommit(false);
+            order.verify(statement).executeBatch();
+            order.verify(connection).commit();
+            order.verify(connection).setAutoCommit(true);
+        }
+
+        @Test
+        @DisplayName("Should roll back a batch that fails")
+        void shouldRollBackFailedBatch() throws Exception {
+            DataSource dataSource = mock(DataSource.class);
+            Connection connection = mock(Connection.class);
+            PreparedStatement statement = mock(PreparedStatement.class);
+            when(dataSource.getConnection()).thenReturn(connection);
+            when(connection.prepareStatement(anyString())).thenReturn(statement);
+            when(statement.executeBatch()).thenThrow(new SQLException("duplicate key"));
+
+            assertThatThrownBy(() -> new JdbcPaymentRepository(dataSource).saveAll(List.of(
+                    new PaymentRecord("order-1", 100, PaymentStatus.SUCCEEDED, "tx-1", NOW))))
+                    .isInstanceOf(IllegalStateException.class)
+                    .hasCauseInstanceOf(SQLException.class);
+            verify(connection).rollback();
+            verify(connection, never()).commit();
+        }
+    }
+}
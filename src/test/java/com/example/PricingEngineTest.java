@@ -0,0 +1,228 @@
+package com.example;
+
+import com.example.shop.CartItem;
+import com.example.shop.CartStore;
+import com.example.shop.ShoppingCart;
+import com.example.shop.pricing.BuyXGetYFreeDiscount;
+import com.example.shop.pricing.CartPriceCache;
+import com.example.shop.pricing.CartThresholdDiscount;
+import com.example.shop.pricing.ItemDiscountRule;
+import com.example.shop.pricing.PercentageItemDiscount;
+import com.example.shop.pricing.PriceBreakdown;
+import com.example.shop.pricing.PricingEngine;
+import com.example.shop.pricing.PricingRule;
+import com.example.shop.pricing.TieredQuantityDiscount;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("PricingEngine Tests")
+class PricingEngineTest {
+
+    private ShoppingCart cart;
+
+    @BeforeEach
+    void setUp() {
+        cart = new ShoppingCart("cart1", "Cart 1");
+    }
+
+    @Nested
+    @DisplayName("Rules")
+    class RuleTests {
+
+        @Test
+        @DisplayName("Should apply each kind of rule to its own item")
+        void shouldApplyRules() {
+            PricingEngine engine = new PricingEngine(List.of(
+                    new PercentageItemDiscount("shirt", 10),
+                    new BuyXGetYFreeDiscount("socks", 2, 1),
+                    new TieredQuantityDiscount("pens", Map.of(10, 5, 50, 20)),
+                    new CartThresholdDiscount(5_000, 500)));
+            cart.addItem(new CartItem("shirt", "Shirt", 1_999, 1));
+            cart.addItem(new CartItem("socks", "Socks", 300, 7));
+            cart.addItem(new CartItem("pens", "Pens", 100, 12));
+            cart.addItem(new CartItem("hat", "Hat", 2_000, 1));
+
+            PriceBreakdown price = engine.price(cart);
+
+            assertThat(price.getSubtotalMinor()).isEqualTo(1_999 + 2_100 + 1_200 + 2_000);
+            assertThat(price.getLineDiscountMinor("shirt")).isEqualTo(199);
+            assertThat(price.getLineDiscountMinor("socks")).isEqualTo(600);
+            assertThat(price.getLineDiscountMinor("pens")).isEqualTo(60);
+            assertThat(price.getLineDiscountMinor("hat")).isZero();
+            assertThat(price.getItemDiscountMinor()).isEqualTo(859);
+            assertThat(price.getCartDiscountMinor()).isEqualTo(500);
+            assertThat(price.getTotalMinor()).isEqualTo(7_299 - 859 - 500);
+        }
+
+        @Test
+        @DisplayName("Should apply the largest matching discount and never go below zero")
+        void shouldApplyBestDiscount() {
+            PricingEngine engine = new PricingEngine(List.of(
+                    new PercentageItemDiscount("socks", 10),
+                    new BuyXGetYFreeDiscount("socks", 1, 1),
+                    new CartThresholdDiscount(0, 100),
+                    new CartThresholdDiscount(100, 10_000)));
+            cart.addItem(new CartItem("socks", "Socks", 300, 4));
+
+            PriceBreakdown price = engine.price(cart);
+
+            assertThat(price.getItemDiscountMinor()).isEqualTo(600);
+            assertThat(price.getCartDiscountMinor()).isEqualTo(600);
+            assertThat(price.getTotalMinor()).isZero();
+        }
+
+        @Test
+        @DisplayName("Should use the cart total after item discounts for threshold rules")
+        void shouldCheckThresholdAfterItemDiscounts() {
+            PricingEngine engine = new PricingEngine(List.of(
+                    new PercentageItemDiscount("shirt", 50),
+                    new CartThresholdDiscount(1_000, 100)));
+            cart.addItem(new CartItem("shirt", "Shirt", 1_500, 1));
+
+            assertThat(engine.price(cart).getCartDiscountMinor()).isZero();
+        }
+
+        @Test
+        @DisplayName("Should reject invalid and unknown rules")
+        void shouldRejectInvalidRules() {
+            assertThatThrownBy(() -> new PercentageItemDiscount("shirt", 101))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessage("Invalid input");
+            assertThatThrownBy(() -> new BuyXGetYFreeDiscount("socks", 0, 1))
+                    .isInstanceOf(IllegalArgumentException.class);
+            assertThatThrownBy(() -> new PricingEngine(List.of(new PricingRule() {
+            }))).isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    @Nested
+    @DisplayName("Caching")
+    class CachingTests {
+
+        @Test
+        @DisplayName("Should only re-run rules for lines that changed")
+        void shouldReuseUnchangedLines() {
+            CountingRule shirtRule = new CountingRule("shirt");
+            CountingRule socksRule = new CountingRule("socks");
+            PricingEngine engine = new PricingEngine(List.of(shirtRule, socksRule));
+            CartItem shirt = new CartItem("shirt", "Shirt", 1_000, 1);
+            CartItem socks = new CartItem("socks", "Socks", 200, 2);
+            cart.addItem(shirt);
+            cart.addItem(socks);
+            for (int i = 0; i < 100; i++) {
+                cart.addItem(new CartItem("item" + i, "Item " + i, 10, 1));
+            }
+            CartPriceCache cache = engine.cacheFor(cart);
+
+            PriceBreakdown first = cache.getPrice();
+            assertThat(cache.getPrice()).isSameAs(first);
+            assertThat(shirtRule.calls + socksRule.calls).isEqualTo(2);
+
+            cart.updateQuantity(socks, 5);
+            PriceBreakdown second = cache.getPrice();
+
+            assertThat(second).isNotSameAs(first);
+            assertThat(shirtRule.calls).isEqualTo(1);
+            assertThat(socksRule.calls).isEqualTo(2);
+            assertThat(second.getLineDiscountMinor("socks")).isEqualTo(5);
+            assertThat(second.getTotalMinor()).isEqualTo(engine.price(cart).getTotalMinor());
+        }
+
+        @Test
+        @DisplayName("Should follow items being removed and added back")
+        void shouldFollowRemovedItems() {
+            PricingEngine engine = new PricingEngine(List.of(new PercentageItemDiscount("shirt", 10)));
+            CartItem shirt = new CartItem("shirt", "Shirt", 1_000, 1);
+            cart.addItem(shirt);
+            CartPriceCache cache = engine.cacheFor(cart);
+            assertThat(cache.getPrice().getItemDiscountMinor()).isEqualTo(100);
+
+            cart.removeItem(shirt);
+            assertThat(cache.getPrice().getItemDiscountMinor()).isZero();
+            assertThat(cache.getPrice().getTotalMinor()).isZero();
+
+            cart.addItem(new CartItem("shirt", "Shirt", 2_000, 1));
+            assertThat(cache.getPrice().getItemDiscountMinor()).isEqualTo(200);
+        }
+
+        @Test
+        @DisplayName("Should stop listening to the cart once closed")
+        void shouldDetachOnClose() {
+            PricingEngine engine = new PricingEngine(List.of(new PercentageItemDiscount("shirt", 10)));
+            cart.addItem(new CartItem("shirt", "Shirt", 1_000, 1));
+            try (CartPriceCache cache = engine.cacheFor(cart)) {
+                assertThat(cache.getPrice().getTotalMinor()).isEqualTo(900);
+            }
+            CartPriceCache closed = engine.cacheFor(cart);
+            closed.close();
+            closed.close();
+
+            cart.updatePrice("shirt", 2_000);
+
+            assertThatThrownBy(closed::getPrice)
+                    .isInstanceOf(IllegalStateException.class)
+                    .hasMessage("Price cache is closed");
+            try (CartPriceCache cache = engine.cacheFor(cart)) {
+                assertThat(cache.getPrice().getTotalMinor()).isEqualTo(1_800);
+            }
+        }
+
+        @Test
+        @DisplayName("Should price the live cart after the store spills and rehydrates it")
+        void shouldFollowCartAcrossSpills() {
+            LocalDateTime[] now = {LocalDateTime.of(2026, 9, 7, 8, 0)};
+            PricingEngine engine = new PricingEngine(List.of(new PercentageItemDiscount("shirt", 10)));
+            try (CartStore store = new CartStore(() -> now[0], Duration.ofMinutes(30), 4096)) {
+                store.getOrCreate("cart1", "Cart 1").addItem(new CartItem("shirt", "Shirt", 1_000, 1));
+                try (CartPriceCache cache = engine.cacheFor(store, "cart1")) {
+                    assertThat(cache.getPrice().getTotalMinor()).isEqualTo(900);
+
+                    now[0] = now[0].plusHours(1);
+                    assertThat(store.evictIdle()).isEqualTo(1);
+                    store.findById("cart1").orElseThrow().updatePrice("shirt", 2_000);
+                    assertThat(cache.getPrice().getTotalMinor()).isEqualTo(1_800);
+
+                    now[0] = now[0].plusHours(1);
+                    store.evictIdle();
+                    assertThat(store.updatePrices("cart1", Map.of("shirt", 3_000))).isEqualTo(1);
+                    assertThat(cache.getPrice().getTotalMinor()).isEqualTo(2_700);
+
+                    ShoppingCart live = store.findById("cart1").orElseThrow();
+                    live.updateQuantity(live.getItem("shirt"), 2);
+                    assertThat(cache.getPrice().getTotalMinor()).isEqualTo(5_400);
+                }
+            }
+        }
+    }
+
+    // One minor unit off per unit, counting how often it is evaluated
+    private static final class CountingRule implements ItemDiscountRule {
+        private final String itemId;
+        private int calls;
+
+        private CountingRule(String itemId) {
+            this.itemId = itemId;
+        }
+
+        @Override
+        public String getItemId() {
+            return itemId;
+        }
+
+        @Override
+        public long discountMinor(int unitPriceMinor, int quantity) {
+            calls++;
+            return quantity;
+        }
+    }
+}
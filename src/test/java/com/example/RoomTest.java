@@ -0,0 +1,107 @@
+package com.example;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("Room Tests")
+class RoomTest {
+
+    private Room room;
+    private final LocalDateTime base = LocalDateTime.of(2026, 2, 9, 10, 0);
+
+    @BeforeEach
+    void setUp() {
+        room = new Room("room1", "Test Room");
+    }
+
+    @Nested
+    @DisplayName("isAvailable() Tests")
+    class IsAvailableTests {
+
+        @Test
+        @DisplayName("Should treat touching boundaries as overlapping")
+        void shouldTreatTouchingBoundariesAsOverlapping() {
+            room.addBooking(new Booking("b1", "room1", base, base.plusHours(1)));
+
+            assertThat(room.isAvailable(base.plusHours(1), base.plusHours(2))).isFalse();
+            assertThat(room.isAvailable(base.minusHours(1), base)).isFalse();
+            assertThat(room.isAvailable(base.plusHours(1).plusNanos(1), base.plusHours(2))).isTrue();
+            assertThat(room.isAvailable(base.minusHours(1), base.minusNanos(1))).isTrue();
+        }
+
+        @Test
+        @DisplayName("Should find long booking hidden behind later starts")
+        void shouldFindLongBookingHiddenBehindLaterStarts() {
+            room.addBooking(new Booking("long", "room1", base, base.plusDays(1)));
+            for (int i = 1; i <= 20; i++) {
+                room.addBooking(new Booking("short" + i, "room1", base.plusHours(i), base.plusHours(i).plusMinutes(10)));
+            }
+
+            assertThat(room.isAvailable(base.plusHours(5).plusMinutes(30), base.plusHours(5).plusMinutes(40))).isFalse();
+        }
+
+        @Test
+        @DisplayName("Should match a linear scan over random bookings")
+        void shouldMatchLinearScanOverRandomBookings() {
+            Random random = new Random(42);
+            List<Booking> all = new ArrayList<>();
+            for (int i = 0; i < 500; i++) {
+                LocalDateTime start = base.plusMinutes(random.nextInt(10_000));
+                Booking booking = new Booking("b" + i, "room1", start, start.plusMinutes(random.nextInt(120)));
+                all.add(booking);
+                room.addBooking(booking);
+            }
+            for (int i = 0; i < 200; i += 3) {
+                String removedId = "b" + i;
+                room.removeBooking(removedId);
+                all.removeIf(booking -> booking.getId().equals(removedId));
+            }
+
+            for (int i = 0; i < 1_000; i++) {
+                LocalDateTime start = base.plusMinutes(random.nextInt(10_200) - 100);
+                LocalDateTime end = start.plusMinutes(random.nextInt(60));
+                boolean expected = all.stream().noneMatch(booking -> booking.overlaps(start, end));
+
+                assertThat(room.isAvailable(start, end)).isEqualTo(expected);
+            }
+        }
+    }
+
+    @Nested
+    @DisplayName("Booking lookup Tests")
+    class BookingLookupTests {
+
+        @Test
+        @DisplayName("Should find and remove bookings by id")
+        void shouldFindAndRemoveBookingsById() {
+            Booking booking = new Booking("b1", "room1", base, base.plusHours(1));
+            room.addBooking(booking);
+
+            assertThat(room.hasBooking("b1")).isTrue();
+            assertThat(room.getBooking("b1")).isEqualTo(booking);
+
+            room.removeBooking("b1");
+
+            assertThat(room.hasBooking("b1")).isFalse();
+            assertThat(room.isAvailable(base, base.plusHours(1))).isTrue();
+        }
+
+        @Test
+        @DisplayName("Should throw exception for unknown booking")
+        void shouldThrowExceptionForUnknownBooking() {
+            assertThatThrownBy(() -> room.getBooking("missing"))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessage("Bokning finns inte");
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.example;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+@DisplayName("ShardedBookingSystem Tests")
+class ShardedBookingSystemTest {
+    private static final int ROOMS = 40;
+
+    private final LocalDateTime now = LocalDateTime.of(2026, 6, 1, 8, 0);
+    private final Map<String, InMemoryRoomRepository> repositories = new LinkedHashMap<>();
+
+    private ShardedBookingSystem router;
+
+    @BeforeEach
+    void setUp() {
+        router = new ShardedBookingSystem(Runnable::run);
+        router.addShard("a", newShard("a"));
+        router.addShard("b", newShard("b"));
+        for (int i = 0; i < ROOMS; i++) {
+            router.addRoom(new Room(roomId(i), "Room " + i));
+        }
+    }
+
+    @Test
+    @DisplayName("Should place every room on the shard that owns it")
+    void shouldPartitionRooms() {
+        assertThat(repositories.get("a").findAll()).isNotEmpty();
+        assertThat(repositories.get("b").findAll()).isNotEmpty();
+        assertEveryRoomOnItsOwner();
+    }
+
+    @Test
+    @DisplayName("Should route bookings and cancellations to the owning shard")
+    void shouldRouteBookingAndCancellation() {
+        assertThat(router.bookRoom("room7", now.plusHours(1), now.plusHours(2))).isTrue();
+        assertThat(router.bookRoom("room7", now.plusHours(1), now.plusHours(2))).isFalse();
+
+        Room room = owningRepository("room7").findById("room7").orElseThrow();
+        String bookingId = room.getBookings().iterator().next().getId();
+
+        assertThat(router.cancelBooking(bookingId)).isTrue();
+        assertThat(room.getBookings()).isEmpty();
+        assertThat(router.cancelBooking(bookingId)).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should merge available rooms from all shards sorted by id")
+    void shouldScatterGatherAvailability() {
+        router.bookRoom("room3", now.plusHours(1), now.plusHours(2));
+        router.bookRoom("room21", now.plusHours(1), now.plusHours(2));
+
+        List<Room> available = router.getAvailableRooms(now.plusHours(1), now.plusHours(3));
+
+        assertThat(available).hasSize(ROOMS - 2);
+        assertThat(available).extracting(Room::getId).doesNotContain("room3", "room21").isSorted();
+    }
+
+    @Test
+    @DisplayName("Should move only reassigned rooms, with their bookings, when a shard is added")
+    void shouldRebalanceOnAddShard() {
+        for (int i = 0; i < ROOMS; i++) {
+            router.bookRoom(roomId(i), now.plusHours(1), now.plusHours(2));
+        }
+        Map<String, String> ownerBefore = new LinkedHashMap<>();
+        for (int i = 0; i < ROOMS; i++) {
+            ownerBefore.put(roomId(i), router.getShardIdFor(roomId(i)));
+        }
+
+        int moved = router.addShard("c", newShard("c"));
+
+        assertThat(moved).isPositive().isEqualTo(repositories.get("c").findAll().size());
+        assertEveryRoomOnItsOwner();
+        for (int i = 0; i < ROOMS; i++) {
+            String owner = router.getShardIdFor(roomId(i));
+            assertThat(owner).isIn(ownerBefore.get(roomId(i)), "c");
+        }
+
+        Room movedRoom = repositories.get("c").findAll().get(0);
+        assertThat(movedRoom.getBookings()).hasSize(1);
+        assertThat(router.bookRoom(movedRoom.getId(), now.plusHours(1), now.plusHours(2))).isFalse();
+        assertThat(router.cancelBooking(movedRoom.getBookings().iterator().next().getId())).isTrue();
+        assertThat(router.getAvailableRooms(now.plusHours(1), now.plusHours(2)))
+                .extracting(Room::getId)
+                .containsExactly(movedRoom.getId());
+    }
+
+    @Test
+    @DisplayName("Should move every room back when adding a shard fails part way")
+    void shouldRollBackFailedRebalance() {
+        for (int i = 0; i < ROOMS; i++) {
+            router.bookRoom(roomId(i), now.plusHours(1), now.plusHours(2));
+        }
+        List<String> onSecondShard = repositories.get("b").findAll().stream().map(Room::getId).toList();
+        InMemoryRoomRepository failing = new InMemoryRoomRepository() {
+            private int fromSecondShard;
+
+            @Override
+            public void save(Room room) {
+                // Alla rum från den första sharden tas emot, men bara ett från den andra
+                if (onSecondShard.contains(room.getId()) && ++fromSecondShard > 1) {
+                    throw new IllegalStateException("Lagringen är full");
+                }
+                super.save(room);
+            }
+        };
+        BookingSystem shard = new BookingSystem(() -> now, failing, mock(NotificationService.class));
+
+        assertThatThrownBy(() -> router.addShard("c", shard))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("Lagringen är full");
+
+        assertThat(router.getShardCount()).isEqualTo(2);
+        assertThat(failing.findAll()).isEmpty();
+        assertEveryRoomOnItsOwner();
+        for (int i = 0; i < ROOMS; i++) {
+            assertThat(owningRepository(roomId(i)).findById(roomId(i)).orElseThrow().getBookings()).hasSize(1);
+            assertThat(router.bookRoom(roomId(i), now.plusHours(1), now.plusHours(2))).isFalse();
+        }
+    }
+
+    @Test
+    @DisplayName("Should reject duplicate shards and invalid queries")
+    void shouldRejectInvalidInput() {
+        assertThatThrownBy(() -> router.addShard("a", newShard("a2")))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> router.getAvailableRooms(now.plusHours(2), now.plusHours(1)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Sluttid måste vara efter starttid");
+        assertThatThrownBy(() -> router.bookRoom("missing", now.plusHours(1), now.plusHours(2)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Rummet existerar inte");
+    }
+
+    private BookingSystem newShard(String shardId) {
+        InMemoryRoomRepository repository = new InMemoryRoomRepository();
+        repositories.put(shardId, repository);
+        return new BookingSystem(() -> now, repository, mock(NotificationService.class));
+    }
+
+    private InMemoryRoomRepository owningRepository(String roomId) {
+        return repositories.get(router.getShardIdFor(roomId));
+    }
+
+    private void assertEveryRoomOnItsOwner() {
+        List<String> stored = new ArrayList<>();
+        for (Map.Entry<String, InMemoryRoomRepository> entry : repositories.entrySet()) {
+            for (Room room : entry.getValue().findAll()) {
+                assertThat(router.getShardIdFor(room.getId())).isEqualTo(entry.getKey());
+                stored.add(room.getId());
+            }
+        }
+        assertThat(stored).hasSize(ROOMS).doesNotHaveDuplicates();
+    }
+
+    private static String roomId(int i) {
+        return "room" + i;
+    }
+}
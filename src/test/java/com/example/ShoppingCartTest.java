@@ -127,6 +127,58 @@ public class ShoppingCartTest {
          }
     }
 
+    @Nested
+    @DisplayName("Running total Tests")
+    class RunningTotalTests {
+
+        @Test
+        @DisplayName("Should keep the total in minor units through add, update and remove")
+        void shouldKeepRunningTotal() {
+            CartItem first = new CartItem("a", "A", 1999, 2);
+            CartItem second = new CartItem("b", "B", 500, 1);
+            shoppingCartImpl.addItem(first);
+            shoppingCartImpl.addItem(second);
+            assertThat(shoppingCartImpl.getTotalPriceMinor()).isEqualTo(4498);
+
+            shoppingCartImpl.updateQuantity(second, 4);
+            assertThat(shoppingCartImpl.getTotalPriceMinor()).isEqualTo(5998);
+
+            shoppingCartImpl.removeItem(first);
+            assertThat(shoppingCartImpl.getTotalPriceMinor()).isEqualTo(2000);
+            assertThat(shoppingCartImpl.getTotalPrice()).isEqualTo(2000.0);
+        }
+
+        @Test
+        @DisplayName("Should look items up by id")
+        void shouldLookUpItemsById() {
+            shoppingCartImpl.addItem(new CartItem(testItemId, testItemName, testItemPrice, testItemQuantity));
+            CartItem sameId = new CartItem(testItemId, "Other name", 0, 0);
+
+            assertThat(sameId).isEqualTo(new CartItem(testItemId, testItemName, testItemPrice, testItemQuantity));
+            assertThat(shoppingCartImpl.checkQuantity(sameId)).isEqualTo(testItemQuantity);
+            assertThat(shoppingCartImpl.removeItem(sameId)).isTrue();
+            assertThat(shoppingCartImpl.getTotalPriceMinor()).isZero();
+        }
+
+        @Test
+        @DisplayName("Should replace an item that is added again with the same id")
+        void shouldReplaceItemWithSameId() {
+            shoppingCartImpl.addItem(new CartItem(testItemId, testItemName, 100, 3));
+            shoppingCartImpl.addItem(new CartItem(testItemId, testItemName, 120, 1));
+
+            assertThat(shoppingCartImpl.getTotalPriceMinor()).isEqualTo(120);
+            assertThat(shoppingCartImpl.getDiscountedPrice(0.5)).isEqualTo(60.0);
+        }
+
+        @Test
+        @DisplayName("Should not overflow for large lines")
+        void shouldNotOverflowForLargeLines() {
+            shoppingCartImpl.addItem(new CartItem(testItemId, testItemName, Integer.MAX_VALUE, 4));
+
+            assertThat(shoppingCartImpl.getTotalPriceMinor()).isEqualTo(4L * Integer.MAX_VALUE);
+        }
+    }
+
 
 
 }